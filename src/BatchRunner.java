@@ -0,0 +1,317 @@
+import com.mhorak.dsa.sort.*;
+import com.mhorak.dsa.tools.ArrayFiles;
+import com.mhorak.dsa.tools.ArrayKernels;
+import com.mhorak.dsa.tools.Tools;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Runs a sorting algorithm from the command line, without a display.
+ * <p>
+ * The input is either read from a binary file of {@link ArrayFiles} or generated the same way the GUI does:
+ * {@link Tools#initializeArray(Object[], boolean, long)}, followed by the mutation of the lab variant. The sort is
+ * repeated on fresh copies of the input, the time and the metrics of every run are printed, and the result of
+ * the last run is written to a binary file and optionally to a text file.
+ * <p>
+ * Options are passed as {@code --name=value}:
+ * <ul>
+ *     <li>{@code --algorithm=selection|shell|quick|quick-introsort|quick-parallel|merge|merge-parallel|counting|radix|auto}</li>
+ *     <li>{@code --task=standard|individual} (standard by default)</li>
+ *     <li>{@code --input=file.bin}, or {@code --size=1000} with {@code --huge=true|false} to generate the input</li>
+ *     <li>{@code --seed=42}, the seed of the generated input (a random one by default)</li>
+ *     <li>{@code --variant=1..5}, the lab variant of the generated individual input (that of the algorithm by default)</li>
+ *     <li>{@code --repetitions=1}</li>
+ *     <li>{@code --output=Output.bin} and {@code --text=Output.txt} (no text output by default)</li>
+ * </ul>
+ * <p>
+ * The vector kernels use the incubating Vector API, so the sources are compiled and run with
+ * {@code --add-modules jdk.incubator.vector}:
+ * <pre>
+ * javac --add-modules jdk.incubator.vector -d out $(find src -name '*.java')
+ * java --add-modules jdk.incubator.vector -cp out BatchRunner --algorithm=quick --size=1e6
+ * </pre>
+ * Without the flag at run time the scalar kernels are used.
+ */
+public class BatchRunner {
+    private String algorithm;
+    private boolean standard = true;
+    private Path input;
+    private int size = -1;
+    private boolean useHugeNumbers;
+    private long seed = ThreadLocalRandom.current().nextLong();
+    private Integer variant;
+    private int repetitions = 1;
+    private Path output = Path.of(Tools.binaryFilePath);
+    private Path textOutput;
+
+    /**
+     * Parses the options, runs the sorts and exits with status 1 if the options are wrong, a file cannot be
+     * read or written, or a result is not sorted or lacks elements of the input.
+     *
+     * @param args The command line arguments.
+     */
+    public static void main(String[] args) {
+        BatchRunner runner = new BatchRunner();
+        try {
+            runner.parseOptions(args);
+            if (!runner.run()) {
+                System.exit(1);
+            }
+        } catch (IllegalArgumentException exception) {
+            System.err.println(exception.getMessage());
+            System.err.println("Usage: --algorithm=NAME [--task=standard|individual] (--input=FILE | --size=N [--huge=true] [--seed=N] [--variant=N])"
+                    + " [--repetitions=N] [--output=FILE] [--text=FILE]");
+            System.exit(1);
+        } catch (IOException exception) {
+            System.err.println("I/O error: " + exception.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Sorts copies of the input and prints one line per run and a summary.
+     *
+     * @return True if every result holds all elements of the input and is sorted, otherwise false.
+     * @throws IOException If the input or the output file cannot be read or written.
+     */
+    public boolean run() throws IOException {
+        Object[] source = input != null ? readInput() : generateInput();
+        System.out.printf(Locale.ROOT, "%s %s, %s, %d elements, %s kernels%n", algorithm,
+                standard ? "standard" : "individual", input != null ? input.toString() : "generated with seed " + seed,
+                source.length, ArrayKernels.get().name());
+
+        long minNanos = Long.MAX_VALUE, maxNanos = 0, totalNanos = 0;
+        boolean allSorted = true;
+        Object[] result = null;
+        for (int run = 1; run <= repetitions; run++) {
+            Sort sort = createSortingAlgorithm(algorithm);
+            result = standard ? sort.sortLab((Integer[]) copy(source)) : sortIndividual(sort, copy(source));
+            // An algorithm without a variant for the input returns an empty array instead of the sorted input
+            boolean complete = result.length == source.length;
+            boolean sorted = complete && isSorted(sort, result);
+            allSorted &= sorted;
+
+            SortMetrics metrics = sort.getMetrics();
+            long nanos = metrics.getElapsedNanos();
+            minNanos = Math.min(minNanos, nanos);
+            maxNanos = Math.max(maxNanos, nanos);
+            totalNanos += nanos;
+            System.out.printf(Locale.ROOT, "run %d: %.3f ms, sorted=%b, %s%n", run, nanos / 1e6, sorted, metrics);
+            if (!complete) {
+                System.out.printf(Locale.ROOT, "  the result has %d of the %d elements%n", result.length, source.length);
+            }
+            if (sort instanceof AutoSort autoSort) {
+                // The reason for the choice of the adaptive sort
+                System.out.println("  " + autoSort.getDecision());
+            }
+        }
+        System.out.printf(Locale.ROOT, "min %.3f ms, avg %.3f ms, max %.3f ms%n",
+                minNanos / 1e6, totalNanos / 1e6 / repetitions, maxNanos / 1e6);
+
+        if (result.length != source.length) {
+            // The output file keeps its previous content rather than an array that lost the input
+            System.out.println("The output was not written");
+            return false;
+        }
+        ArrayFiles.write(output, result, false);
+        if (textOutput != null) {
+            ArrayFiles.exportText(output, textOutput);
+        }
+        return allSorted;
+    }
+
+    /**
+     * Creates an instance of the sorting algorithm with the given name.
+     *
+     * @param name The name of the algorithm.
+     * @return The sorting algorithm.
+     */
+    private static Sort createSortingAlgorithm(String name) {
+        return switch (name) {
+            case "selection" -> new SelectionSort();
+            case "shell" -> new ShellSort();
+            case "quick" -> new QuickSort();
+            case "quick-introsort" -> new QuickSort(QuickSort.Mode.INTROSORT);
+            case "quick-parallel" -> new QuickSort(ForkJoinPool.commonPool());
+            case "merge" -> new MergeSort();
+            case "merge-parallel" -> new MergeSort(ForkJoinPool.commonPool());
+            case "counting" -> new CountingSort();
+            case "radix" -> new RadixSort();
+            case "auto" -> new AutoSort();
+            default -> throw new IllegalArgumentException("Unknown algorithm " + name);
+        };
+    }
+
+    /**
+     * Checks the result in the order of the algorithm: Merge Sort sorts the individual task in descending
+     * order, and Counting Sort sorts the columns of the matrix by the keys of the first row with one decimal
+     * digit, so the exact values of equal keys stay in their original order.
+     */
+    private boolean isSorted(Sort sort, Object[] result) {
+        if (standard) {
+            return Tools.isArraySorted(result, true);
+        }
+        if (sort instanceof CountingSort && result instanceof Double[][] matrix && matrix.length > 0) {
+            Double[] keyRow = matrix[0];
+            for (int i = 1; i < keyRow.length; i++) {
+                if ((long) (keyRow[i - 1] * 10) > (long) (keyRow[i] * 10)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return Tools.isArraySorted(result, !(sort instanceof MergeSort));
+    }
+
+    /**
+     * Sorts the array of the individual task the way the GUI does: a matrix for Shell and Counting Sort,
+     * a one-dimensional array for the others, and either of them for Radix Sort.
+     */
+    private static Object[] sortIndividual(Sort sort, Object[] arrayOfNumbers) {
+        if (arrayOfNumbers instanceof Double[][] matrix) {
+            return sort.sortIndividual(matrix);
+        }
+        return sort.sortIndividual((Double[]) arrayOfNumbers);
+    }
+
+    /**
+     * Generates the input like the GUI: Integers for the standard task, and for the individual task the
+     * array or matrix of Doubles of the lab variant, mutated by {@link Tools}.
+     */
+    private Object[] generateInput() {
+        int lab = standard ? 0 : variant != null ? variant : defaultVariant(algorithm);
+        Object[] targetArray;
+        switch (lab) {
+            case 1, 3, 4 -> {
+                targetArray = new Double[size];
+                Arrays.fill(targetArray, 0.0);
+            }
+            case 2, 5 -> {
+                targetArray = new Double[size][size];
+                for (Object row : targetArray) {
+                    Arrays.fill((Double[]) row, 0.0);
+                }
+            }
+            default -> {
+                targetArray = new Integer[size];
+                Arrays.fill(targetArray, 0);
+            }
+        }
+
+        Tools.initializeArray(targetArray, useHugeNumbers, seed);
+        if (lab == 1 || lab == 4) {
+            Tools.mutateArray((Double[]) targetArray, lab);
+        }
+        if (lab == 3) {
+            targetArray = Tools.removeMode((Double[]) targetArray);
+        }
+        if (lab == 5) {
+            Tools.mutateArray((Double[][]) targetArray, lab);
+        }
+        return targetArray;
+    }
+
+    /**
+     * Gets the lab variant of the individual task that the GUI uses for an algorithm.
+     */
+    private static int defaultVariant(String algorithm) {
+        return switch (algorithm) {
+            case "selection" -> 1;
+            case "shell", "radix" -> 2;
+            case "quick", "quick-introsort", "quick-parallel" -> 3;
+            case "merge", "merge-parallel", "auto" -> 4;
+            default -> 5;
+        };
+    }
+
+    /**
+     * Reads the first array of the input file: int values for the standard task, and double values or a
+     * matrix of them for the individual task.
+     */
+    private Object[] readInput() throws IOException {
+        ArrayFiles.Header header = ArrayFiles.readHeader(input, 0);
+        if (header.type() == ArrayFiles.ElementType.INT) {
+            standard = true;
+            return Arrays.stream(ArrayFiles.readInts(input, 0)).boxed().toArray(Integer[]::new);
+        }
+        if (header.type() != ArrayFiles.ElementType.DOUBLE) {
+            throw new IllegalArgumentException("The input must hold int or double values, not " + header.type());
+        }
+        standard = false;
+        if (header.dimensions() == 2) {
+            double[][] matrix = ArrayFiles.readDoubleMatrix(input, 0);
+            Double[][] targetArray = new Double[matrix.length][];
+            for (int i = 0; i < matrix.length; i++) {
+                targetArray[i] = Arrays.stream(matrix[i]).boxed().toArray(Double[]::new);
+            }
+            return targetArray;
+        }
+        return Arrays.stream(ArrayFiles.readDoubles(input, 0)).boxed().toArray(Double[]::new);
+    }
+
+    /**
+     * Copies the input so every run starts from the same data.
+     */
+    private static Object[] copy(Object[] source) {
+        if (source instanceof Double[][] matrix) {
+            Double[][] copy = new Double[matrix.length][];
+            for (int i = 0; i < matrix.length; i++) {
+                copy[i] = matrix[i].clone();
+            }
+            return copy;
+        }
+        return source.clone();
+    }
+
+    /**
+     * Reads the {@code --name=value} options.
+     *
+     * @param args The command line arguments.
+     * @throws IllegalArgumentException If an option is unknown, malformed or missing.
+     */
+    private void parseOptions(String[] args) {
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            String name = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+
+            switch (name) {
+                case "algorithm" -> algorithm = value;
+                case "task" -> {
+                    if (!value.equals("standard") && !value.equals("individual")) {
+                        throw new IllegalArgumentException("Unknown task " + value);
+                    }
+                    standard = value.equals("standard");
+                }
+                case "input" -> input = Path.of(value);
+                case "size" -> size = (int) Double.parseDouble(value);
+                case "huge" -> useHugeNumbers = Boolean.parseBoolean(value);
+                case "seed" -> seed = Long.parseLong(value);
+                case "variant" -> variant = Integer.parseInt(value);
+                case "repetitions" -> repetitions = Integer.parseInt(value);
+                case "output" -> output = Path.of(value);
+                case "text" -> textOutput = Path.of(value);
+                default -> throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+
+        if (algorithm == null) {
+            throw new IllegalArgumentException("Missing --algorithm");
+        }
+        createSortingAlgorithm(algorithm);
+        if (input == null && size <= 0) {
+            throw new IllegalArgumentException("Either --input or a positive --size is required");
+        }
+        if ((variant != null && (variant < 1 || variant > 5)) || repetitions < 1) {
+            throw new IllegalArgumentException("The variant must be 1 to 5 and the repetitions at least 1");
+        }
+    }
+}
@@ -1,4 +1,5 @@
 import com.mhorak.dsa.sort.*;
+import com.mhorak.dsa.tools.ArrayFiles;
 import com.mhorak.dsa.tools.Tools;
 
 import javax.swing.*;
@@ -8,9 +9,12 @@ import java.awt.*;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
+import static com.mhorak.dsa.tools.Tools.binaryFilePath;
 import static com.mhorak.dsa.tools.Tools.decimalFormat;
 import static com.mhorak.dsa.tools.Tools.filePath;
 
@@ -29,6 +33,11 @@ public class GUI {
      */
     private Sort sortingAlgorithm;
 
+    /**
+     * Whether the arrays are also written to the text file, which is much slower than the binary one.
+     */
+    private volatile boolean exportText;
+
     /**
      * Default constructor
      */
@@ -62,16 +71,20 @@ public class GUI {
         SortingMethods sortingMethods = getSortingMethods(gbc, mainPanel);
 
         // Initialize the "Generate array" button
-        initializeGenerateButton(gbc, mainPanel, sortingMethods, taskPanel, inputField, matrixArea);
+        JButton generateButton = initializeGenerateButton(gbc, mainPanel, sortingMethods, taskPanel, inputField, matrixArea);
 
         // Initialize the timer label for displaying sorting time
         JLabel timer = initializeLabel("Sorting time: ", gbc, 4, mainPanel);
 
-        // Initialize the "Sort" button for sorting the array
-        initializeSortButton(gbc, mainPanel, taskPanel, sortingMethods, timer, matrixArea, showProcessCheckBox);
+        // Initialize the "Sort" button for sorting the array; the "Sorted?" button is disabled while sorting
+        JButton sortedButton = new JButton("Sorted?");
+        initializeSortButton(gbc, mainPanel, taskPanel, sortingMethods, timer, matrixArea, showProcessCheckBox, generateButton, sortedButton);
 
         // Initialize the "Sorted?" button for checking if the array is sorted
-        initializeSortedButton(gbc, mainPanel, taskPanel, sortingMethods);
+        initializeSortedButton(gbc, mainPanel, taskPanel, sortingMethods, sortedButton);
+
+        // Create a checkbox for writing the arrays to the text file as well
+        initializeExportTextCheckbox(gbc, mainPanel);
 
         // Add the main panel to the frame
         frame.add(mainPanel);
@@ -90,9 +103,9 @@ public class GUI {
      * @param mainPanel      The main panel where the button will be added.
      * @param taskPanel      The task panel containing user task options and settings.
      * @param sortingMethods An instance of SortingMethods that provides sorting method selection.
+     * @param sortedButton   The "Sorted?" button to configure.
      */
-    private void initializeSortedButton(GridBagConstraints gbc, JPanel mainPanel, TaskPanel taskPanel, SortingMethods sortingMethods) {
-        JButton sortedButton = new JButton("Sorted?");
+    private void initializeSortedButton(GridBagConstraints gbc, JPanel mainPanel, TaskPanel taskPanel, SortingMethods sortingMethods, JButton sortedButton) {
         gbc.gridx = 2;
         gbc.gridy = 3;
         gbc.gridwidth = 1;
@@ -125,8 +138,9 @@ public class GUI {
      * @param taskPanel  The TaskPanel containing task selection and number type radio buttons.
      * @param inputField The text field for user input.
      * @param matrixArea The text area for displaying the generated array.
+     * @return The "Generate array" button.
      */
-    private void initializeGenerateButton(GridBagConstraints gbc, JPanel mainPanel, SortingMethods sortingMethods, TaskPanel taskPanel, JTextField inputField, JTextArea matrixArea) {
+    private JButton initializeGenerateButton(GridBagConstraints gbc, JPanel mainPanel, SortingMethods sortingMethods, TaskPanel taskPanel, JTextField inputField, JTextArea matrixArea) {
         JButton generateButton = new JButton("Generate array");
         gbc.gridx = 0;
         gbc.gridy = 3;
@@ -156,6 +170,7 @@ public class GUI {
             } catch (Exception exception) {
             }
         });
+        return generateButton;
     }
 
     /**
@@ -245,7 +260,7 @@ public class GUI {
                 printMutatedArray(matrixArea, targetArray);
             }
 
-            writeArrayToFile(targetArray, filePath, true);
+            saveArray(targetArray, false);
 
             return targetArray;
         } catch (Exception exception) {
@@ -281,8 +296,9 @@ public class GUI {
 
 
     /**
-     * Initializes and configures the "Sort" button with its action listener.
-     * This button triggers the sorting of an array based on user input and selected options.
+     * Initializes and configures the "Sort" and "Cancel" buttons and the progress bar.
+     * The sort runs on a background thread, so the window stays responsive, and the "Cancel" button asks the
+     * sorting algorithm to stop at its next checkpoint.
      *
      * @param gbc                 The GridBagConstraints for specifying the button's layout.
      * @param mainPanel           The main panel where the button will be added.
@@ -291,154 +307,251 @@ public class GUI {
      * @param timer               The label to display sorting time.
      * @param matrixArea          The text area for displaying the sorted array.
      * @param showProcessCheckBox The checkbox to control whether to show the sorting process.
+     * @param generateButton      The "Generate array" button, which is disabled while sorting.
+     * @param sortedButton        The "Sorted?" button, which is disabled while sorting.
      */
-    private void initializeSortButton(GridBagConstraints gbc, JPanel mainPanel, TaskPanel taskPanel, SortingMethods sortingMethods, JLabel timer, JTextArea matrixArea, JCheckBox showProcessCheckBox) {
+    private void initializeSortButton(GridBagConstraints gbc, JPanel mainPanel, TaskPanel taskPanel, SortingMethods sortingMethods, JLabel timer, JTextArea matrixArea, JCheckBox showProcessCheckBox, JButton generateButton, JButton sortedButton) {
         JButton sortButton = new JButton("Sort");
         gbc.gridx = 1;
         gbc.gridy = 3;
         gbc.gridwidth = 1;
         mainPanel.add(sortButton, gbc);
 
+        // The "Cancel" button is next to the timer and is enabled only while sorting
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false);
+        gbc.gridx = 2;
+        gbc.gridy = 4;
+        gbc.gridwidth = 1;
+        mainPanel.add(cancelButton, gbc);
+
+        JProgressBar progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        gbc.gridx = 0;
+        gbc.gridy = 5;
+        gbc.gridwidth = 3;
+        mainPanel.add(progressBar, gbc);
+
         sortButton.addActionListener(e -> {
-            if (taskPanel.standardRadioButton().isSelected()) {
-                // Sort the array of Integers
-                sortArrayLab((Integer[]) arrayOfNumbers, sortingMethods, timer, matrixArea, showProcessCheckBox);
-                writeArrayToFile(arrayOfNumbers, filePath, false);
-            } else if (taskPanel.individualRadioButton().isSelected()) {
-                // Sort the array of Doubles
-                sortArrayIndividual(arrayOfNumbers, sortingMethods, timer, matrixArea);
-                writeArrayToFile(arrayOfNumbers, filePath, false);
+            if (arrayOfNumbers == null) {
+                return;
+            }
+
+            // Read the options on the EDT before the sort starts
+            sortingAlgorithm = createSortingAlgorithm(sortingMethods);
+            boolean standard = taskPanel.standardRadioButton().isSelected();
+            boolean showProcess = showProcessCheckBox.isSelected();
+
+            SortingWorker worker = new SortingWorker(sortingAlgorithm, arrayOfNumbers, standard, showProcess, timer, matrixArea);
+            worker.addPropertyChangeListener(event -> {
+                if ("progress".equals(event.getPropertyName())) {
+                    progressBar.setValue((Integer) event.getNewValue());
+                } else if ("state".equals(event.getPropertyName()) && event.getNewValue() == SwingWorker.StateValue.DONE) {
+                    sortButton.setEnabled(true);
+                    generateButton.setEnabled(true);
+                    sortedButton.setEnabled(true);
+                    cancelButton.setEnabled(false);
+                }
+            });
+
+            sortButton.setEnabled(false);
+            generateButton.setEnabled(false);
+            sortedButton.setEnabled(false);
+            cancelButton.setEnabled(true);
+            progressBar.setValue(0);
+            worker.execute();
+        });
+
+        // The algorithm stops by itself at its next checkpoint, and the worker reports it in done()
+        cancelButton.addActionListener(e -> {
+            if (sortingAlgorithm != null) {
+                sortingAlgorithm.cancel();
             }
         });
     }
 
     /**
-     * Sorts an array of comparable elements using the selected sorting method.
-     * Displays the sorting process and timer based on user preferences.
+     * Creates an instance of the selected sorting method.
      *
-     * @param arrayOfNumbers The array of comparable elements to be sorted.
      * @param sortingMethods An instance of SortingMethods that provides sorting method selection.
-     * @param timer          The label to display sorting time.
-     * @param matrixArea     The text area for displaying the sorting process.
+     * @return The sorting algorithm.
      */
-    private void sortArrayIndividual(Object arrayOfNumbers, SortingMethods sortingMethods, JLabel timer, JTextArea matrixArea) {
-        // Determine the selected sorting method and initialize sortingAlgorithm
-        if (sortingMethods.selectionSort().isSelected()) {
-            sortingAlgorithm = new SelectionSort();
-        } else if (sortingMethods.shellSort().isSelected()) {
-            sortingAlgorithm = new ShellSort();
+    private static Sort createSortingAlgorithm(SortingMethods sortingMethods) {
+        if (sortingMethods.shellSort().isSelected()) {
+            return new ShellSort();
         } else if (sortingMethods.quickSort().isSelected()) {
-            sortingAlgorithm = new QuickSort();
+            return new QuickSort();
         } else if (sortingMethods.mergeSort().isSelected()) {
-            sortingAlgorithm = new MergeSort();
+            return new MergeSort();
         } else if (sortingMethods.countingSort().isSelected()) {
-            sortingAlgorithm = new CountingSort();
+            return new CountingSort();
+        } else if (sortingMethods.radixSort().isSelected()) {
+            return new RadixSort();
         }
+        return new SelectionSort();
+    }
 
-        // Sort the array based on the selected sorting method
-        if (sortingMethods.selectionSort().isSelected()) {
-            arrayOfNumbers = sortingAlgorithm.sortIndividual((Double[]) arrayOfNumbers);
-        } else if (sortingMethods.shellSort().isSelected()) {
-            arrayOfNumbers = sortingAlgorithm.sortIndividual((Double[][]) arrayOfNumbers);
-        } else if (sortingMethods.quickSort().isSelected()) {
-            arrayOfNumbers = sortingAlgorithm.sortIndividual((Double[]) arrayOfNumbers);
-        } else if (sortingMethods.mergeSort().isSelected()) {
-            arrayOfNumbers = sortingAlgorithm.sortIndividual((Double[]) arrayOfNumbers);
-        } else if (sortingMethods.countingSort().isSelected()) {
-            arrayOfNumbers = sortingAlgorithm.sortIndividual((Double[][]) arrayOfNumbers);
+    /**
+     * Sorts the array on a background thread and shows the result on the EDT.
+     * The progress of the algorithm is passed to {@link #setProgress(int)}, which coalesces the updates before
+     * they reach the EDT, and the text of the result is built in the background and shown in one update.
+     * The worker sorts the array it was given and hands the sorted array back to {@code arrayOfNumbers} in
+     * {@link #done()}, so the field is only written on the EDT.
+     */
+    private class SortingWorker extends SwingWorker<SortingResult, Void> {
+        private final Sort algorithm;
+        private final Object[] array;
+        private final boolean standard;
+        private final boolean showProcess;
+        private final JLabel timer;
+        private final JTextArea matrixArea;
+
+        /**
+         * Constructs a worker for one sort.
+         *
+         * @param algorithm   The sorting algorithm.
+         * @param array       The array to be sorted.
+         * @param standard    Whether to sort the standard task (Integers) or the individual one (Doubles).
+         * @param showProcess Whether to show the sorting process step by step.
+         * @param timer       The label to display sorting time.
+         * @param matrixArea  The text area for displaying the sorted array.
+         */
+        SortingWorker(Sort algorithm, Object[] array, boolean standard, boolean showProcess, JLabel timer, JTextArea matrixArea) {
+            this.algorithm = algorithm;
+            this.array = array;
+            this.standard = standard;
+            this.showProcess = standard && showProcess;
+            this.timer = timer;
+            this.matrixArea = matrixArea;
         }
 
-        // Display the sorted array in the matrixArea
-        showSortedArray((Object[]) arrayOfNumbers, matrixArea);
+        @Override
+        protected SortingResult doInBackground() {
+            algorithm.setProgressListener((done, total) -> setProgress((int) Math.min(100, 100 * done / total)));
+
+            Object[] sortedArray = array;
+            String text;
+            if (showProcess) {
+                // Display the sorting process step by step
+                try (StepLog arraySteps = new StepLog()) {
+                    algorithm.sortLabWithSteps((Integer[]) array, arraySteps);
+                    text = stepsToText(arraySteps);
+                }
+            } else if (standard) {
+                // Perform the sorting without displaying the process
+                sortedArray = algorithm.sortLab((Integer[]) array);
+                text = sortedArrayToText(sortedArray);
+            } else {
+                sortedArray = sortIndividual(algorithm, array);
+                text = sortedArrayToText(sortedArray);
+            }
+
+            saveArray(sortedArray, true);
+            return new SortingResult(sortedArray, text);
+        }
 
-        // Display the sorting timer
-        showTimer(timer);
+        @Override
+        protected void done() {
+            try {
+                SortingResult result = get();
+                arrayOfNumbers = result.sortedArray();
+                String text = result.text();
+                if (showProcess) {
+                    matrixArea.setText(text);
+                } else {
+                    matrixArea.append(text);
+                }
+                setProgress(100);
+                showTimer(timer);
+            } catch (ExecutionException exception) {
+                if (exception.getCause() instanceof CancellationException) {
+                    matrixArea.append("\nThe sorting was cancelled");
+                    timer.setText("Sorting time: cancelled");
+                } else {
+                    JOptionPane.showMessageDialog(null, exception.getCause().toString(), "Sorting failed", JOptionPane.ERROR_MESSAGE);
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
     }
 
     /**
-     * Sorts an array of comparable elements using the selected sorting method.
-     * Displays the sorting process and timer based on user preferences.
+     * A record holding the result of a {@link SortingWorker}.
      *
-     * @param arrayOfNumbers      The array of comparable elements to be sorted.
-     * @param sortingMethods      An instance of SortingMethods that provides sorting method selection.
-     * @param timer               The label to display sorting time.
-     * @param matrixArea          The text area for displaying the sorting process.
-     * @param showProcessCheckBox The checkbox to control whether to show the sorting process.
+     * @param sortedArray The sorted array.
+     * @param text        The text that shows the sorted array or the sorting process.
      */
-    private void sortArrayLab(Integer[] arrayOfNumbers, SortingMethods sortingMethods, JLabel timer, JTextArea matrixArea, JCheckBox showProcessCheckBox) {
-        if (sortingMethods.selectionSort().isSelected()) {
-            // Initialize and perform selection sort
-            sortingAlgorithm = new SelectionSort();
-        } else if (sortingMethods.shellSort().isSelected()) {
-            sortingAlgorithm = new ShellSort();
-        } else if (sortingMethods.quickSort().isSelected()) {
-            sortingAlgorithm = new QuickSort();
-        } else if (sortingMethods.mergeSort().isSelected()) {
-            sortingAlgorithm = new MergeSort();
-        } else if (sortingMethods.countingSort().isSelected()) {
-            sortingAlgorithm = new CountingSort();
-        }
+    private record SortingResult(Object[] sortedArray, String text) {
+    }
 
-        if (showProcessCheckBox.isSelected()) {
-            // Display the sorting process step by step
-            ArrayList<Integer[]> arraySteps = sortingAlgorithm.sortLabWithSteps(arrayOfNumbers);
-            fillMatrix(matrixArea, arraySteps);
-        } else {
-            // Perform the sorting without displaying the process
-            arrayOfNumbers = sortingAlgorithm.sortLab(arrayOfNumbers);
-            showSortedArray(arrayOfNumbers, matrixArea);
+    /**
+     * Sorts the array of the individual task with the variant of the sorting method: a matrix for Shell and
+     * Counting Sort, a one-dimensional array for the others, and either of them for Radix Sort.
+     *
+     * @param algorithm      The sorting algorithm.
+     * @param arrayOfNumbers The array of Doubles or the matrix of Doubles to be sorted.
+     * @return The sorted array, which is a new array for some methods.
+     */
+    private static Object[] sortIndividual(Sort algorithm, Object[] arrayOfNumbers) {
+        if (algorithm instanceof ShellSort || algorithm instanceof CountingSort) {
+            return algorithm.sortIndividual((Double[][]) arrayOfNumbers);
+        } else if (algorithm instanceof RadixSort && arrayOfNumbers instanceof Double[][]) {
+            // Radix Sort handles both the matrix and the one-dimensional variants
+            return algorithm.sortIndividual((Double[][]) arrayOfNumbers);
         }
-
-        // Display the sorting timer
-        showTimer(timer);
+        return algorithm.sortIndividual((Double[]) arrayOfNumbers);
     }
 
     /**
-     * Shows sorted array in matrixArea
+     * Builds the text that shows the sorted array, or a message if the array is too long to show.
      *
      * @param arrayOfNumbers Array of numbers to display.
-     * @param matrixArea     The text area where the sorted array will be displayed.
+     * @return The text to append to the text area.
      */
-    private static void showSortedArray(Object[] arrayOfNumbers, JTextArea matrixArea) {
+    private static String sortedArrayToText(Object[] arrayOfNumbers) {
+        StringBuilder text = new StringBuilder();
         if (arrayOfNumbers.length <= 15) {
-            matrixArea.append("\n");
+            text.append("\n");
             if (arrayOfNumbers[0] instanceof Double[]) {
                 Double[][] newArray = (Double[][]) arrayOfNumbers;
                 for (var element : newArray) {
                     for (var elemento : element) {
-                        matrixArea.append(decimalFormat.format(elemento) + " ");
+                        text.append(decimalFormat.format(elemento)).append(" ");
                     }
-                    matrixArea.append("\n");
+                    text.append("\n");
                 }
             } else if (arrayOfNumbers[0] instanceof Double) {
                 for (var element : arrayOfNumbers) {
-                    matrixArea.append(decimalFormat.format(element) + " ");
+                    text.append(decimalFormat.format(element)).append(" ");
                 }
             } else {
                 for (var element : arrayOfNumbers) {
-                    matrixArea.append(element + " ");
+                    text.append(element).append(" ");
                 }
             }
         } else {
-            matrixArea.append("\nThe array is sorted");
+            text.append("\nThe array is sorted");
         }
+        return text.toString();
     }
 
     /**
-     * Fills the provided text area with the contents of an ArrayList containing arrays of comparable elements.
-     * Each array in the list represents a step in the sorting process.
+     * Builds the text that shows the steps of the sorting process, one step per line.
+     * The steps are reconstructed one at a time, so only the text of the steps is held in memory at once.
      *
-     * @param matrixArea The text area where the sorting process will be displayed.
-     * @param arraySteps An ArrayList containing arrays representing steps of the sorting process.
+     * @param arraySteps The arrays representing steps of the sorting process.
+     * @return The text to put into the text area.
      */
-    private void fillMatrix(JTextArea matrixArea, ArrayList<Integer[]> arraySteps) {
-        matrixArea.setText(""); // Clear the text area
-        for (int i = 0; i < arraySteps.size(); i++) {
-            for (int j = 0; j < arraySteps.get(i).length; j++) {
-                matrixArea.append(arraySteps.get(i)[j] + " "); // Append each element to the text area
+    private static String stepsToText(Iterable<Integer[]> arraySteps) {
+        StringBuilder text = new StringBuilder();
+        for (Integer[] step : arraySteps) {
+            for (Integer element : step) {
+                text.append(element).append(' '); // Append each element of the step
             }
-            matrixArea.append("\n"); // Add a new line after each step
+            text.append('\n'); // Add a new line after each step
         }
+        return text.toString();
     }
 
 
@@ -475,6 +588,10 @@ public class GUI {
         JRadioButton countingSort = new JRadioButton("Counting");
         radioButtonGroup.add(countingSort); // Add to the group
 
+        // Create the sixth radio button
+        JRadioButton radixSort = new JRadioButton("Radix");
+        radioButtonGroup.add(radixSort); // Add to the group
+
         // Create a panel for the radio buttons
         JPanel radioButtonPanel = new JPanel();
         radioButtonPanel.setLayout(new FlowLayout());
@@ -483,6 +600,7 @@ public class GUI {
         radioButtonPanel.add(quickSort);
         radioButtonPanel.add(mergeSort);
         radioButtonPanel.add(countingSort);
+        radioButtonPanel.add(radixSort);
 
         // Add the radio button panel to the main panel
         gbc.gridx = 0;
@@ -491,7 +609,7 @@ public class GUI {
         mainPanel.add(radioButtonPanel, gbc);
 
         // Create and return a SortingMethods object encapsulating the radio buttons
-        SortingMethods sortingMethods = new SortingMethods(selectionSort, shellSort, quickSort, mergeSort, countingSort);
+        SortingMethods sortingMethods = new SortingMethods(selectionSort, shellSort, quickSort, mergeSort, countingSort, radixSort);
         return sortingMethods;
     }
 
@@ -503,9 +621,10 @@ public class GUI {
      * @param quickSort     The radio button for the Quick Sort method.
      * @param mergeSort     The radio button for the Merge Sort method.
      * @param countingSort  The radio button for the Counting Sort method.
+     * @param radixSort     The radio button for the Radix Sort method.
      */
     private record SortingMethods(JRadioButton selectionSort, JRadioButton shellSort, JRadioButton quickSort,
-                                  JRadioButton mergeSort, JRadioButton countingSort) {
+                                  JRadioButton mergeSort, JRadioButton countingSort, JRadioButton radixSort) {
     }
 
     /**
@@ -695,6 +814,22 @@ public class GUI {
         return showProcessCheckBox;
     }
 
+    /**
+     * Initializes a JCheckBox for writing the arrays to the text file in addition to the binary one
+     * and adds it to the main panel.
+     *
+     * @param gbc       The GridBagConstraints for specifying the layout of the checkbox.
+     * @param mainPanel The main panel where the checkbox will be added.
+     */
+    private void initializeExportTextCheckbox(GridBagConstraints gbc, JPanel mainPanel) {
+        JCheckBox exportTextCheckBox = new JCheckBox("Export text (" + filePath + ")");
+        exportTextCheckBox.addActionListener(e -> exportText = exportTextCheckBox.isSelected());
+        gbc.gridx = 0;
+        gbc.gridy = 6;
+        gbc.gridwidth = 3;
+        mainPanel.add(exportTextCheckBox, gbc);
+    }
+
     /**
      * Initializes a JLabel with the given text and adds it to the main panel.
      *
@@ -729,6 +864,7 @@ public class GUI {
 
     /**
      * Updates the provided timer JLabel with the sorting time information.
+     * The tooltip of the label shows the detailed metrics of the sorting process.
      *
      * @param timer The JLabel to display the sorting time.
      */
@@ -736,6 +872,24 @@ public class GUI {
         timer.setText("Sorting time: " + sortingAlgorithm.getTimeOfProcessing().getSeconds() + "s " +
                 sortingAlgorithm.getTimeOfProcessing().getNano() / 1000000 + "ms " +
                 sortingAlgorithm.getTimeOfProcessing().getNano() / 1000 % 1000 + "mks");
+        timer.setToolTipText(sortingAlgorithm.getMetrics().toString());
+    }
+
+    /**
+     * Saves an array of numbers to the binary file and, if the text export is enabled, to the text file.
+     *
+     * @param array  The array of numbers to be saved.
+     * @param append If set to true, the array is added after the saved ones; if false, the files are cleaned first.
+     */
+    private void saveArray(Object[] array, boolean append) {
+        try {
+            ArrayFiles.write(Path.of(binaryFilePath), array, append);
+        } catch (IOException e) {
+            e.printStackTrace(); // Handle the exception appropriately in your application
+        }
+        if (exportText) {
+            writeArrayToFile(array, filePath, !append);
+        }
     }
 
     /**
@@ -2,7 +2,16 @@
  * Sorting program
  */
 public class Main {
+    /**
+     * Launches the GUI, or with command line arguments sorts without a display, see {@link BatchRunner}.
+     *
+     * @param args The options of the batch runner, or none to launch the GUI.
+     */
     public static void main(String[] args) {
+        if (args.length > 0) {
+            BatchRunner.main(args);
+            return;
+        }
         GUI gui = new GUI();
     }
 }
\ No newline at end of file
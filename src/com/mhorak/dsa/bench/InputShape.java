@@ -0,0 +1,114 @@
+package com.mhorak.dsa.bench;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Distributions of the input data used by the benchmarks.
+ */
+public enum InputShape {
+    /**
+     * Uniform values from the "low numbers" range of the GUI (-50 to 50).
+     */
+    RANDOM,
+    /**
+     * Uniform values from the "huge numbers" range of the GUI (the whole int range).
+     */
+    HUGE_RANDOM,
+    /**
+     * Values in ascending order.
+     */
+    SORTED,
+    /**
+     * Values in descending order.
+     */
+    REVERSED,
+    /**
+     * Values in ascending order with one percent of them swapped at random positions.
+     */
+    NEARLY_SORTED,
+    /**
+     * Only four distinct values.
+     */
+    FEW_UNIQUE;
+
+    /**
+     * Generates an array of int values with this shape.
+     *
+     * @param size The number of values.
+     * @param seed The seed of the random generator, so the same input can be reproduced.
+     * @return The generated array.
+     */
+    public int[] ints(int size, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] values = new int[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = switch (this) {
+                case RANDOM -> random.nextInt(-50, 50);
+                case FEW_UNIQUE -> random.nextInt(4);
+                default -> random.nextInt();
+            };
+        }
+
+        if (this == SORTED || this == REVERSED || this == NEARLY_SORTED) {
+            Arrays.sort(values);
+        }
+        if (this == REVERSED) {
+            for (int i = 0, j = size - 1; i < j; i++, j--) {
+                int temp = values[i];
+                values[i] = values[j];
+                values[j] = temp;
+            }
+        }
+        if (this == NEARLY_SORTED) {
+            for (int k = 0; k < Math.max(1, size / 100) && size > 1; k++) {
+                int i = random.nextInt(size);
+                int j = random.nextInt(size);
+                int temp = values[i];
+                values[i] = values[j];
+                values[j] = temp;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Generates an array of double values with this shape.
+     *
+     * @param size The number of values.
+     * @param seed The seed of the random generator, so the same input can be reproduced.
+     * @return The generated array.
+     */
+    public double[] doubles(int size, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = switch (this) {
+                case RANDOM -> random.nextDouble(-50, 50);
+                case FEW_UNIQUE -> random.nextInt(4);
+                default -> random.nextDouble(Integer.MIN_VALUE, Integer.MAX_VALUE);
+            };
+        }
+
+        if (this == SORTED || this == REVERSED || this == NEARLY_SORTED) {
+            Arrays.sort(values);
+        }
+        if (this == REVERSED) {
+            for (int i = 0, j = size - 1; i < j; i++, j--) {
+                double temp = values[i];
+                values[i] = values[j];
+                values[j] = temp;
+            }
+        }
+        if (this == NEARLY_SORTED) {
+            for (int k = 0; k < Math.max(1, size / 100) && size > 1; k++) {
+                int i = random.nextInt(size);
+                int j = random.nextInt(size);
+                double temp = values[i];
+                values[i] = values[j];
+                values[j] = temp;
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,382 @@
+package com.mhorak.dsa.bench;
+
+import com.mhorak.dsa.sort.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * A benchmark harness for the sorting algorithms.
+ * <p>
+ * Every algorithm is measured on its {@code sortLab(Integer[])}, {@code sortLab(int[])} and
+ * {@code sortIndividual} paths for each requested size and input shape. A benchmark consists of warmup
+ * iterations followed by measured iterations; each iteration repeats the sort on a fresh copy of the same
+ * input until the iteration time is used up. The report shows throughput, average time and the allocation
+ * rate of the sorting thread, in the spirit of JMH's {@code thrpt}, {@code avgt} and {@code gc} profiler.
+ * <p>
+ * Options are passed as {@code --name=value}:
+ * <ul>
+ *     <li>{@code --algorithms=selection,shell,quick,quick-introsort,quick-parallel,merge,merge-parallel,counting,radix,auto},
+ *     or {@code shell-halving}, {@code shell-ciura}, {@code shell-tokuda}, {@code shell-sedgewick} and
+ *     {@code shell-pratt} for Shell Sort with a given {@link GapSequence}, or {@code shell-gaps} for all of them; these only run when selected</li>
+ *     <li>{@code --paths=lab,lab-primitive,individual}</li>
+ *     <li>{@code --sizes=100,1000,...} (1e2 to 1e8 by default)</li>
+ *     <li>{@code --shapes=RANDOM,SORTED,...} (all {@link InputShape} values by default)</li>
+ *     <li>{@code --warmup=3}, {@code --iterations=5}, {@code --time=1000} (milliseconds per iteration)</li>
+ *     <li>{@code --seed=42}</li>
+ * </ul>
+ * Like {@code BatchRunner}, the benchmark runs with {@code --add-modules jdk.incubator.vector} to measure the
+ * vector kernels, e.g. {@code java --add-modules jdk.incubator.vector -cp out com.mhorak.dsa.bench.SortBenchmark}.
+ */
+public class SortBenchmark {
+
+    /**
+     * The largest input for algorithms with quadratic running time.
+     */
+    private static final int QUADRATIC_SIZE_LIMIT = 100_000;
+
+    /**
+     * All algorithms that can be benchmarked.
+     */
+    private static final List<Engine> ENGINES = engines(
+            new Engine("selection", SelectionSort::new, true, false),
+            new Engine("shell", ShellSort::new, false, true),
+            new Engine("quick", QuickSort::new, false, false),
+            new Engine("quick-introsort", () -> new QuickSort(QuickSort.Mode.INTROSORT), false, false),
+            new Engine("quick-parallel", () -> new QuickSort(ForkJoinPool.commonPool()), false, false),
+            new Engine("merge", MergeSort::new, false, false),
+            new Engine("merge-parallel", () -> new MergeSort(ForkJoinPool.commonPool()), false, false),
+            new Engine("counting", CountingSort::new, false, true),
+            new Engine("radix", RadixSort::new, false, true),
+            new Engine("auto", AutoSort::new, false, false)
+    );
+
+    /**
+     * The name that selects the Shell Sort of every {@link GapSequence}, to compare the sequences.
+     */
+    private static final String ALL_GAP_SEQUENCES = "shell-gaps";
+
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    private List<Engine> engines = ENGINES.stream().filter(engine -> !isGapSequenceEngine(engine)).toList();
+    private List<Path> paths = List.of(Path.values());
+    private int[] sizes = {100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000};
+    private List<InputShape> shapes = List.of(InputShape.values());
+    private int warmupIterations = 3;
+    private int measurementIterations = 5;
+    private long iterationNanos = 1_000_000_000L;
+    private long seed = 42;
+
+    /**
+     * Keeps the results of the sorts reachable so the JIT cannot drop them.
+     */
+    private int sink;
+
+    public static void main(String[] args) {
+        SortBenchmark benchmark = new SortBenchmark();
+        benchmark.parseOptions(args);
+        benchmark.run();
+    }
+
+    /**
+     * Lists the given algorithms followed by a Shell Sort for every gap sequence, named e.g. "shell-ciura".
+     *
+     * @param engines The algorithms.
+     * @return The algorithms and the Shell Sorts.
+     */
+    private static List<Engine> engines(Engine... engines) {
+        List<Engine> all = new ArrayList<>(Arrays.asList(engines));
+        for (GapSequence gapSequence : GapSequence.values()) {
+            all.add(new Engine("shell-" + gapSequence.name().toLowerCase(Locale.ROOT),
+                    () -> new ShellSort(gapSequence), false, true));
+        }
+        return List.copyOf(all);
+    }
+
+    /**
+     * Checks if an algorithm is the Shell Sort of one gap sequence, which only runs when it is selected.
+     */
+    private static boolean isGapSequenceEngine(Engine engine) {
+        return engine.name().startsWith("shell-");
+    }
+
+    /**
+     * Runs every combination of algorithm, path, shape and size and prints one line per combination.
+     */
+    public void run() {
+        System.out.printf(Locale.ROOT, "%-28s %-14s %11s %14s %14s %14s %16s%n",
+                "Benchmark", "Shape", "Size", "thrpt, ops/s", "avgt, ms/op", "alloc, MB/s", "alloc.norm, B/op");
+
+        for (Engine engine : engines) {
+            for (Path path : paths) {
+                for (InputShape shape : shapes) {
+                    for (int size : sizes) {
+                        String name = engine.name() + "." + path.label;
+                        String skipReason = skipReason(engine, path, size);
+                        if (skipReason != null) {
+                            System.out.printf(Locale.ROOT, "%-28s %-14s %11d   skipped: %s%n", name, shape, size, skipReason);
+                            continue;
+                        }
+
+                        Result result;
+                        try {
+                            result = measure(engine, path, shape, size);
+                        } catch (RuntimeException | StackOverflowError exception) {
+                            // An algorithm may reject an input with an exception,
+                            // or recurse too deep on them, e.g. the classic Quick Sort with few distinct values
+                            System.out.printf(Locale.ROOT, "%-28s %-14s %11d   failed: %s%n", name, shape, size, exception);
+                            continue;
+                        }
+                        System.out.printf(Locale.ROOT, "%-28s %-14s %11d %14.3f %14.6f %14.3f %16.1f%n",
+                                name, shape, size, result.throughput(), result.averageMillis(),
+                                result.allocationRate(), result.allocationPerOperation());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Decides whether a combination is too large to run.
+     *
+     * @return The reason to skip the combination, or null if it can be run.
+     */
+    private String skipReason(Engine engine, Path path, int size) {
+        if (engine.quadratic() && size > QUADRATIC_SIZE_LIMIT) {
+            return "quadratic algorithm, limit is " + QUADRATIC_SIZE_LIMIT;
+        }
+        long estimatedBytes = (long) size * path.bytesPerElement;
+        if (estimatedBytes > Runtime.getRuntime().maxMemory() * 3 / 4) {
+            return "needs about " + estimatedBytes / (1024 * 1024) + " MB of heap, raise -Xmx";
+        }
+        return null;
+    }
+
+    /**
+     * Runs the warmup and the measured iterations of one combination.
+     */
+    private Result measure(Engine engine, Path path, InputShape shape, int size) {
+        Object input = createInput(engine, path, shape, size);
+
+        for (int i = 0; i < warmupIterations; i++) {
+            runIteration(engine, path, input);
+        }
+
+        Iteration total = new Iteration(0, 0, 0);
+        for (int i = 0; i < measurementIterations; i++) {
+            Iteration iteration = runIteration(engine, path, input);
+            total = new Iteration(total.operations() + iteration.operations(),
+                    total.nanos() + iteration.nanos(), total.allocatedBytes() + iteration.allocatedBytes());
+        }
+        return new Result(total);
+    }
+
+    /**
+     * Sorts fresh copies of the input until the iteration time is used up.
+     * Only the sort itself is timed; copying the input is not.
+     */
+    private Iteration runIteration(Engine engine, Path path, Object input) {
+        long operations = 0, nanos = 0, allocatedBytes = 0;
+        long deadline = System.nanoTime() + iterationNanos;
+
+        do {
+            Object copy = copy(input);
+            Sort sort = engine.factory().get();
+
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            Object sorted = sort(sort, path, copy);
+            long end = System.nanoTime();
+            allocatedBytes += allocatedBytes() - allocatedBefore;
+
+            sink += System.identityHashCode(sorted);
+            nanos += end - start;
+            operations++;
+        } while (System.nanoTime() < deadline);
+
+        return new Iteration(operations, nanos, allocatedBytes);
+    }
+
+    /**
+     * Calls the sorting method that belongs to the path.
+     */
+    private static Object sort(Sort sort, Path path, Object input) {
+        return switch (path) {
+            case LAB -> sort.sortLab((Integer[]) input);
+            case LAB_PRIMITIVE -> sort.sortLab((int[]) input);
+            case INDIVIDUAL -> input instanceof Double[][]
+                    ? sort.sortIndividual((Double[][]) input)
+                    : sort.sortIndividual((Double[]) input);
+        };
+    }
+
+    /**
+     * Creates the input of the path. The individual path uses a square matrix for the algorithms whose
+     * individual task sorts matrices, the same way the GUI does.
+     */
+    private Object createInput(Engine engine, Path path, InputShape shape, int size) {
+        switch (path) {
+            case LAB -> {
+                int[] values = shape.ints(size, seed);
+                Integer[] input = new Integer[size];
+                for (int i = 0; i < size; i++) {
+                    input[i] = values[i];
+                }
+                return input;
+            }
+            case LAB_PRIMITIVE -> {
+                return shape.ints(size, seed);
+            }
+            default -> {
+                if (engine.matrixIndividual()) {
+                    // The first row is the key row, the other rows are payload
+                    int side = Math.max(1, (int) Math.sqrt(size));
+                    Double[][] input = new Double[side][];
+                    for (int i = 0; i < side; i++) {
+                        double[] row = (i == 0 ? shape : InputShape.RANDOM).doubles(side, seed + i);
+                        input[i] = Arrays.stream(row).boxed().toArray(Double[]::new);
+                    }
+                    return input;
+                }
+                return Arrays.stream(shape.doubles(size, seed)).boxed().toArray(Double[]::new);
+            }
+        }
+    }
+
+    /**
+     * Copies the input so every sort starts from the same data.
+     */
+    private static Object copy(Object input) {
+        if (input instanceof int[] values) {
+            return values.clone();
+        }
+        if (input instanceof Double[][] matrix) {
+            Double[][] copy = new Double[matrix.length][];
+            for (int i = 0; i < matrix.length; i++) {
+                copy[i] = matrix[i].clone();
+            }
+            return copy;
+        }
+        return ((Object[]) input).clone();
+    }
+
+    /**
+     * Gets the number of bytes allocated by the current thread so far, or 0 if the JVM cannot tell.
+     */
+    private long allocatedBytes() {
+        if (threadBean instanceof com.sun.management.ThreadMXBean bean) {
+            return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    /**
+     * Reads the {@code --name=value} options.
+     *
+     * @param args The command line arguments.
+     * @throws IllegalArgumentException If an option is unknown or malformed.
+     */
+    private void parseOptions(String[] args) {
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            String name = arg.substring(2, separator);
+            String[] values = arg.substring(separator + 1).split(",");
+
+            switch (name) {
+                case "algorithms" -> {
+                    List<String> selected = Arrays.asList(values);
+                    engines = ENGINES.stream().filter(engine -> selected.contains(engine.name())
+                            || selected.contains(ALL_GAP_SEQUENCES) && isGapSequenceEngine(engine)).toList();
+                }
+                case "paths" -> paths = Arrays.stream(values).map(Path::fromLabel).toList();
+                case "sizes" -> sizes = Arrays.stream(values).mapToInt(value -> (int) Double.parseDouble(value)).toArray();
+                case "shapes" -> shapes = Arrays.stream(values).map(value -> InputShape.valueOf(value.toUpperCase(Locale.ROOT))).toList();
+                case "warmup" -> warmupIterations = Integer.parseInt(values[0]);
+                case "iterations" -> measurementIterations = Integer.parseInt(values[0]);
+                case "time" -> iterationNanos = Long.parseLong(values[0]) * 1_000_000L;
+                case "seed" -> seed = Long.parseLong(values[0]);
+                default -> throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+    }
+
+    /**
+     * The sorting method that is measured.
+     */
+    private enum Path {
+        LAB("lab", 56),
+        LAB_PRIMITIVE("lab-primitive", 12),
+        INDIVIDUAL("individual", 64);
+
+        /**
+         * The name of the path in the options and in the report.
+         */
+        private final String label;
+
+        /**
+         * A rough estimate of the heap needed per element, including the copy of the input.
+         */
+        private final int bytesPerElement;
+
+        Path(String label, int bytesPerElement) {
+            this.label = label;
+            this.bytesPerElement = bytesPerElement;
+        }
+
+        static Path fromLabel(String label) {
+            for (Path path : values()) {
+                if (path.label.equals(label)) {
+                    return path;
+                }
+            }
+            throw new IllegalArgumentException("Unknown path " + label);
+        }
+    }
+
+    /**
+     * An algorithm that can be benchmarked.
+     *
+     * @param name             The name of the algorithm in the options and in the report.
+     * @param factory          Creates a new instance of the algorithm.
+     * @param quadratic        Whether the algorithm needs quadratic time, which limits the input size.
+     * @param matrixIndividual Whether the individual task of the algorithm sorts a matrix.
+     */
+    private record Engine(String name, Supplier<Sort> factory, boolean quadratic, boolean matrixIndividual) {
+    }
+
+    /**
+     * The totals of one or more iterations.
+     */
+    private record Iteration(long operations, long nanos, long allocatedBytes) {
+    }
+
+    /**
+     * The totals of the measured iterations of one combination.
+     */
+    private record Result(Iteration total) {
+        double throughput() {
+            return total.operations() / (total.nanos() / 1e9);
+        }
+
+        double averageMillis() {
+            return total.nanos() / 1e6 / total.operations();
+        }
+
+        double allocationRate() {
+            return total.allocatedBytes() / (1024.0 * 1024.0) / (total.nanos() / 1e9);
+        }
+
+        double allocationPerOperation() {
+            return (double) total.allocatedBytes() / total.operations();
+        }
+    }
+}
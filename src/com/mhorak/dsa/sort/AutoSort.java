@@ -0,0 +1,988 @@
+package com.mhorak.dsa.sort;
+
+import com.mhorak.dsa.tools.ArrayKernels;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+/**
+ * An adaptive sort that profiles the input before it chooses how to sort it.
+ * <p>
+ * The profile holds the size, the range of the keys, the natural runs and the share of duplicates in a sample.
+ * Arrays that are mostly made of long runs, e.g. sorted data with a short unsorted tail, are sorted by merging
+ * their runs like TimSort. Other arrays are handed to the engine that suits them best: introsort for small
+ * arrays, Counting Sort for narrow ranges and few distinct values, and Radix Sort otherwise.
+ * <p>
+ * Every run records its {@link Decision}, with the profile and the reason for the choice, which is available
+ * from {@link #getDecision()}; the choice is also the strategy of the metrics. All arrays are sorted in
+ * ascending order, double values in the order of {@link Double#compare(double, double)}.
+ */
+public class AutoSort extends Sort {
+    /**
+     * Runs shorter than this are extended by insertion sort before they are merged.
+     */
+    static final int MIN_RUN_LENGTH = 32;
+
+    /**
+     * Arrays up to this length are sorted by introsort, which beats the linear sorts on them.
+     */
+    static final int SMALL_LENGTH = 1 << 10;
+
+    /**
+     * The number of elements sampled for the share of duplicates.
+     */
+    static final int SAMPLE_LENGTH = 1024;
+
+    /**
+     * Arrays with at least this share of their elements in runs of {@link #MIN_RUN_LENGTH} or more are
+     * sorted by merging the runs.
+     */
+    static final double PRESORTED_SHARE = 0.95;
+
+    /**
+     * Samples with at least this share of duplicates have few distinct values, which Counting Sort counts
+     * in a hash table.
+     */
+    static final double FEW_DISTINCT_DUPLICATE_SHARE = 0.9;
+
+    /**
+     * The engine that sorts the array of the current run, or null, so that a cancellation reaches it.
+     */
+    private volatile Sort delegate;
+
+    /**
+     * The listener of the progress, which is passed on to the engines.
+     */
+    private volatile ProgressListener progressListener;
+
+    /**
+     * The decision of the last run.
+     */
+    private volatile Decision decision;
+
+    /**
+     * Gets the decision of the last run: how the array was sorted and why.
+     *
+     * @return The decision, or null if nothing was sorted yet.
+     */
+    public Decision getDecision() {
+        return decision;
+    }
+
+    @Override
+    public void setProgressListener(ProgressListener progressListener) {
+        super.setProgressListener(progressListener);
+        this.progressListener = progressListener;
+    }
+
+    @Override
+    public void cancel() {
+        Sort engine = delegate;
+        if (engine != null) {
+            engine.cancel();
+        } else {
+            super.cancel();
+        }
+    }
+
+    /**
+     * Sorts the array of Integer elements in ascending order and returns the sorted array.
+     *
+     * @param arrayOfNumbers The array of Integer elements to be sorted.
+     * @return The sorted array.
+     */
+    @Override
+    public Integer[] sortLab(Integer[] arrayOfNumbers) {
+        metrics.start();
+        try {
+            int[] values = unbox(arrayOfNumbers);
+            sortLab(values);
+            box(values, arrayOfNumbers);
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Profiles the array of int values, sorts it in ascending order in the way the profile suggests and
+     * returns the sorted array.
+     *
+     * @param arrayOfNumbers The array of int values to be sorted.
+     * @return The sorted array.
+     */
+    @Override
+    public int[] sortLab(int[] arrayOfNumbers) {
+        metrics.start();
+        try {
+            long phaseStart = System.nanoTime();
+            decide(profile(arrayOfNumbers));
+            metrics.recordPhase("profile", phaseStart);
+
+            switch (decision.choice()) {
+                case NONE -> {
+                }
+                case REVERSE -> reverse(arrayOfNumbers, 0, arrayOfNumbers.length);
+                case RUN_MERGE -> runMerge(arrayOfNumbers);
+                default -> runEngine(engine -> engine.sortLab(arrayOfNumbers));
+            }
+
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Profiles the array of long values, sorts it in ascending order in the way the profile suggests and
+     * returns the sorted array.
+     *
+     * @param arrayOfNumbers The array of long values to be sorted.
+     * @return The sorted array.
+     */
+    @Override
+    public long[] sortLab(long[] arrayOfNumbers) {
+        metrics.start();
+        try {
+            long phaseStart = System.nanoTime();
+            decide(profile(arrayOfNumbers));
+            metrics.recordPhase("profile", phaseStart);
+
+            switch (decision.choice()) {
+                case NONE -> {
+                }
+                case REVERSE -> reverse(arrayOfNumbers, 0, arrayOfNumbers.length);
+                case RUN_MERGE -> runMerge(arrayOfNumbers);
+                default -> runEngine(engine -> engine.sortLab(arrayOfNumbers));
+            }
+
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Sorts the array of Double elements in ascending order and returns the sorted array.
+     *
+     * @param arrayOfNumbers The array of Double elements to be sorted.
+     * @return The sorted array.
+     */
+    @Override
+    public Double[] sortIndividual(Double[] arrayOfNumbers) {
+        metrics.start();
+        try {
+            double[] values = unbox(arrayOfNumbers);
+            sortIndividual(values);
+            box(values, arrayOfNumbers);
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Sorts the array of double values in ascending order and returns the sorted array. The values are mapped
+     * to long keys with the same order, which are profiled and sorted like an array of long values.
+     *
+     * @param arrayOfNumbers The array of double values to be sorted.
+     * @return The sorted array.
+     */
+    @Override
+    public double[] sortIndividual(double[] arrayOfNumbers) {
+        metrics.start();
+        try {
+            long phaseStart = System.nanoTime();
+            long[] keys = new long[arrayOfNumbers.length];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = RadixSort.sortableBits(arrayOfNumbers[i]);
+            }
+            metrics.recordPhase("keys", phaseStart);
+
+            sortLab(keys);
+
+            phaseStart = System.nanoTime();
+            for (int i = 0; i < keys.length; i++) {
+                arrayOfNumbers[i] = RadixSort.fromSortableBits(keys[i]);
+            }
+            metrics.countMoves(keys.length);
+            metrics.recordPhase("values", phaseStart);
+
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Sorts the columns of a two-dimensional array of Double elements by the values of the first row in
+     * ascending order. The columns are permuted in place by Shell Sort, whatever the profile of the first row.
+     *
+     * @param arrayOfNumbers The two-dimensional array of Double elements to be sorted.
+     * @return The sorted array, which is the same array.
+     */
+    @Override
+    public Double[][] sortIndividual(Double[][] arrayOfNumbers) {
+        if (arrayOfNumbers.length == 0) {
+            return arrayOfNumbers;
+        }
+
+        metrics.start();
+        try {
+            long phaseStart = System.nanoTime();
+            long[] keys = new long[arrayOfNumbers[0].length];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = RadixSort.sortableBits(arrayOfNumbers[0][i]);
+            }
+            decision = record(new Decision(Choice.SHELL, profile(keys),
+                    "the columns of a matrix are permuted in place by the key row"));
+            metrics.recordPhase("profile", phaseStart);
+
+            runEngine(engine -> engine.sortIndividual(arrayOfNumbers));
+
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Profiles the array of Integer elements and records the steps of the engine of the choice. Sorted arrays
+     * only record their initial state, and the other arrays that would be sorted without an engine record the
+     * steps of Merge Sort, whose merges are the closest to a merge of runs.
+     *
+     * @param arrayOfNumbers The array of Integer elements to be sorted.
+     * @param steps          The step log to record the intermediate sorting states in.
+     */
+    @Override
+    public void sortLabWithSteps(Integer[] arrayOfNumbers, StepLog steps) {
+        metrics.start();
+        try {
+            long phaseStart = System.nanoTime();
+            int[] values = new int[arrayOfNumbers.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = arrayOfNumbers[i];
+            }
+            decide(profile(values));
+            metrics.recordPhase("profile", phaseStart);
+
+            if (decision.choice() == Choice.NONE) {
+                steps.record(arrayOfNumbers);
+            } else {
+                runEngine(engine -> engine.sortLabWithSteps(arrayOfNumbers, steps));
+            }
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Profiles an array of int values.
+     *
+     * @param arrayOfNumbers The array.
+     * @return The profile.
+     */
+    static Profile profile(int[] arrayOfNumbers) {
+        int n = arrayOfNumbers.length;
+        if (n == 0) {
+            return new Profile(0, 0, 0, 0, 0, 0, 0);
+        }
+        int[] minMax = ArrayKernels.get().minMax(arrayOfNumbers);
+
+        // Count the runs the way the run merge finds them: non-descending or strictly descending
+        int runs = 0, descendingRuns = 0;
+        long elementsInLongRuns = 0;
+        for (int from = 0; from < n; ) {
+            int to = from + 1;
+            if (to < n && arrayOfNumbers[to] < arrayOfNumbers[from]) {
+                while (to < n && arrayOfNumbers[to] < arrayOfNumbers[to - 1]) {
+                    to++;
+                }
+                descendingRuns++;
+            } else {
+                while (to < n && arrayOfNumbers[to] >= arrayOfNumbers[to - 1]) {
+                    to++;
+                }
+            }
+            runs++;
+            if (to - from >= MIN_RUN_LENGTH) {
+                elementsInLongRuns += to - from;
+            }
+            from = to;
+        }
+
+        // Sample evenly spaced elements for the share of duplicates
+        long[] sample = new long[Math.min(n, SAMPLE_LENGTH)];
+        for (int i = 0; i < sample.length; i++) {
+            sample[i] = arrayOfNumbers[(int) ((long) i * n / sample.length)];
+        }
+
+        return new Profile(n, minMax[0], minMax[1], runs, descendingRuns, elementsInLongRuns, duplicateShare(sample));
+    }
+
+    /**
+     * Profiles an array of long values.
+     *
+     * @param arrayOfNumbers The array.
+     * @return The profile.
+     */
+    static Profile profile(long[] arrayOfNumbers) {
+        int n = arrayOfNumbers.length;
+        if (n == 0) {
+            return new Profile(0, 0, 0, 0, 0, 0, 0);
+        }
+        long[] minMax = ArrayKernels.get().minMax(arrayOfNumbers);
+
+        // Count the runs the way the run merge finds them: non-descending or strictly descending
+        int runs = 0, descendingRuns = 0;
+        long elementsInLongRuns = 0;
+        for (int from = 0; from < n; ) {
+            int to = from + 1;
+            if (to < n && arrayOfNumbers[to] < arrayOfNumbers[from]) {
+                while (to < n && arrayOfNumbers[to] < arrayOfNumbers[to - 1]) {
+                    to++;
+                }
+                descendingRuns++;
+            } else {
+                while (to < n && arrayOfNumbers[to] >= arrayOfNumbers[to - 1]) {
+                    to++;
+                }
+            }
+            runs++;
+            if (to - from >= MIN_RUN_LENGTH) {
+                elementsInLongRuns += to - from;
+            }
+            from = to;
+        }
+
+        // Sample evenly spaced elements for the share of duplicates
+        long[] sample = new long[Math.min(n, SAMPLE_LENGTH)];
+        for (int i = 0; i < sample.length; i++) {
+            sample[i] = arrayOfNumbers[(int) ((long) i * n / sample.length)];
+        }
+
+        return new Profile(n, minMax[0], minMax[1], runs, descendingRuns, elementsInLongRuns, duplicateShare(sample));
+    }
+
+    /**
+     * Calculates the share of elements of a sample that equal another element of the sample.
+     *
+     * @param sample The sample, which is sorted by the call.
+     * @return The share of duplicates, from 0 to 1.
+     */
+    private static double duplicateShare(long[] sample) {
+        Arrays.sort(sample);
+        int duplicates = 0;
+        for (int i = 1; i < sample.length; i++) {
+            if (sample[i] == sample[i - 1]) {
+                duplicates++;
+            }
+        }
+        return (double) duplicates / sample.length;
+    }
+
+    /**
+     * Chooses how to sort an array of int or long values from its profile and records the decision.
+     *
+     * @param profile The profile of the array.
+     */
+    private void decide(Profile profile) {
+        int n = profile.length();
+        Decision choice;
+        if (n < 2) {
+            choice = new Decision(Choice.NONE, profile, "at most one element");
+        } else if (profile.runs() == 1) {
+            choice = profile.descendingRuns() == 0
+                    ? new Decision(Choice.NONE, profile, "already sorted")
+                    : new Decision(Choice.REVERSE, profile, "one strictly descending run");
+        } else if (profile.presortedShare() >= PRESORTED_SHARE) {
+            choice = new Decision(Choice.RUN_MERGE, profile, String.format(Locale.ROOT,
+                    "%.1f%% of the elements are in runs of at least %d", 100 * profile.presortedShare(), MIN_RUN_LENGTH));
+        } else if (n <= SMALL_LENGTH) {
+            choice = new Decision(Choice.QUICK, profile, "at most " + SMALL_LENGTH + " elements");
+        } else if (CountingSort.chooseStrategy(profile.min(), profile.max(), n) == CountingSort.Strategy.DENSE) {
+            choice = new Decision(Choice.COUNTING, profile,
+                    "the range of " + Long.toUnsignedString(profile.max() - profile.min() + 1) + " values fits a frequency array");
+        } else if (profile.duplicateShare() >= FEW_DISTINCT_DUPLICATE_SHARE) {
+            choice = new Decision(Choice.COUNTING, profile, String.format(Locale.ROOT,
+                    "%.1f%% of a sample are duplicates, so there are few distinct values", 100 * profile.duplicateShare()));
+        } else {
+            choice = new Decision(Choice.RADIX, profile, "a wide range with many distinct values");
+        }
+        decision = record(choice);
+    }
+
+    /**
+     * Records the choice of a decision as the strategy of the metrics.
+     *
+     * @param decision The decision.
+     * @return The decision.
+     */
+    private Decision record(Decision decision) {
+        metrics.setStrategy(decision.choice().name());
+        return decision;
+    }
+
+    /**
+     * Sorts with a new instance of the engine of the decision and adds its metrics to the metrics of this run.
+     *
+     * @param sortCall Calls the sorting method of the engine.
+     * @throws CancellationException If the sort was cancelled.
+     */
+    private void runEngine(Consumer<Sort> sortCall) {
+        Sort engine = switch (decision.choice()) {
+            case QUICK -> new QuickSort(QuickSort.Mode.INTROSORT);
+            case COUNTING -> new CountingSort();
+            case RADIX -> new RadixSort();
+            case SHELL -> new ShellSort();
+            default -> new MergeSort();
+        };
+        engine.setProgressListener(progressListener);
+        delegate = engine;
+        try {
+            sortCall.accept(engine);
+        } finally {
+            delegate = null;
+        }
+        metrics.include(engine.getMetrics());
+    }
+
+    /**
+     * Sorts an array of int values by merging its natural runs like TimSort. Strictly descending runs are
+     * reversed, runs shorter than {@link #MIN_RUN_LENGTH} are extended by insertion sort, and the runs are
+     * merged on a {@link RunStack}, which keeps the merged runs of similar length. A merge skips the elements
+     * that are already in place and buffers only the shorter run, so a sorted array with a short unsorted tail
+     * costs little more than sorting the tail and moving the elements it displaces.
+     *
+     * @param array The array of int values to be sorted.
+     */
+    private void runMerge(int[] array) {
+        int n = array.length;
+        // The progress is the part of the array whose runs were found and merged as far as the stack allows
+        OperationCounter counter = progressCounter(n);
+
+        long phaseStart = System.nanoTime();
+        RunStack runs = new RunStack();
+        int[] buffer = new int[0];
+        for (int from = 0; from < n; ) {
+            int to = ascendingRun(array, from, n, counter);
+            if (to - from < MIN_RUN_LENGTH) {
+                int extendedTo = Math.min(n, from + MIN_RUN_LENGTH);
+                insertionSort(array, from, to, extendedTo, counter);
+                to = extendedTo;
+            }
+            runs.push(from, to - from);
+            for (int k = runs.collapseIndex(); k >= 0; k = runs.collapseIndex()) {
+                buffer = mergeRuns(array, runs.base(k), runs.base(k + 1), runs.end(k + 1), buffer, counter);
+                runs.merged(k);
+            }
+            counter.advance(to - from);
+            from = to;
+        }
+        for (int k = runs.forcedCollapseIndex(); k >= 0; k = runs.forcedCollapseIndex()) {
+            buffer = mergeRuns(array, runs.base(k), runs.base(k + 1), runs.end(k + 1), buffer, counter);
+            runs.merged(k);
+        }
+        metrics.recordPhase("merge", phaseStart);
+
+        metrics.count(counter);
+    }
+
+    /**
+     * Finds the end of the run that starts at an index, and reverses the run if it is strictly descending.
+     *
+     * @param array   The array.
+     * @param from    The start of the run.
+     * @param to      The end of the array.
+     * @param counter The counter of comparisons and moves.
+     * @return The end of the run (exclusive).
+     */
+    private static int ascendingRun(int[] array, int from, int to, OperationCounter counter) {
+        int end = from + 1;
+        if (end < to && array[end] < array[from]) {
+            while (end < to && array[end] < array[end - 1]) {
+                end++;
+            }
+            reverse(array, from, end);
+            counter.moves += end - from;
+        } else {
+            while (end < to && array[end] >= array[end - 1]) {
+                end++;
+            }
+        }
+        counter.comparisons += end - from;
+        return end;
+    }
+
+    /**
+     * Extends a sorted range by inserting the following elements at their places, found by binary search.
+     *
+     * @param array    The array.
+     * @param from     The start of the sorted range.
+     * @param sortedTo The end of the sorted range.
+     * @param to       The end of the range to sort.
+     * @param counter  The counter of comparisons and moves.
+     */
+    private static void insertionSort(int[] array, int from, int sortedTo, int to, OperationCounter counter) {
+        for (int i = sortedTo; i < to; i++) {
+            int value = array[i];
+            int position = upperBound(array, from, i, value, counter);
+            System.arraycopy(array, position, array, position + 1, i - position);
+            array[position] = value;
+            counter.moves += i - position + 1;
+        }
+    }
+
+    /**
+     * Merges two neighbouring sorted runs. The elements of the left run that are not greater than the first
+     * element of the right run, and the elements of the right run that are not less than the last element
+     * of the left run, are already in place; of the rest, the shorter run is copied to the buffer.
+     *
+     * @param array   The array.
+     * @param from    The start of the left run.
+     * @param middle  The end of the left run and the start of the right run.
+     * @param to      The end of the right run.
+     * @param buffer  The buffer for the shorter run, which is replaced by a larger one if it is too short.
+     * @param counter The counter of comparisons and moves.
+     * @return The buffer.
+     */
+    private static int[] mergeRuns(int[] array, int from, int middle, int to, int[] buffer, OperationCounter counter) {
+        counter.comparisons++;
+        if (array[middle - 1] <= array[middle]) {
+            return buffer;
+        }
+        from = upperBound(array, from, middle, array[middle], counter);
+        to = lowerBound(array, middle, to, array[middle - 1], counter);
+
+        int leftLength = middle - from, rightLength = to - middle;
+        if (buffer.length < Math.min(leftLength, rightLength)) {
+            buffer = new int[Math.max(Math.min(leftLength, rightLength), Math.min(2 * buffer.length, array.length))];
+        }
+
+        long comparisons = 0;
+        if (leftLength <= rightLength) {
+            // Merge from the front; the rest of the right run is already in place when the left run is used up
+            System.arraycopy(array, from, buffer, 0, leftLength);
+            int i = 0, j = middle, k = from;
+            while (i < leftLength && j < to) {
+                array[k++] = buffer[i] <= array[j] ? buffer[i++] : array[j++];
+                comparisons++;
+            }
+            System.arraycopy(buffer, i, array, k, leftLength - i);
+            counter.moves += leftLength + (k - from) + (leftLength - i);
+        } else {
+            // Merge from the back; the rest of the left run is already in place when the right run is used up
+            System.arraycopy(array, middle, buffer, 0, rightLength);
+            int i = middle - 1, j = rightLength - 1, k = to - 1;
+            while (i >= from && j >= 0) {
+                array[k--] = array[i] > buffer[j] ? array[i--] : buffer[j--];
+                comparisons++;
+            }
+            System.arraycopy(buffer, 0, array, k - j, j + 1);
+            counter.moves += rightLength + (to - 1 - k) + (j + 1);
+        }
+
+        counter.comparisons += comparisons;
+        return buffer;
+    }
+
+    /**
+     * Finds the first element of a sorted range that is greater than a value.
+     *
+     * @return The index of the element, or the end of the range if there is none.
+     */
+    private static int upperBound(int[] array, int from, int to, int value, OperationCounter counter) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (array[middle] <= value) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+            counter.comparisons++;
+        }
+        return from;
+    }
+
+    /**
+     * Finds the first element of a sorted range that is not less than a value.
+     *
+     * @return The index of the element, or the end of the range if there is none.
+     */
+    private static int lowerBound(int[] array, int from, int to, int value, OperationCounter counter) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (array[middle] < value) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+            counter.comparisons++;
+        }
+        return from;
+    }
+
+    /**
+     * Reverses a range of an array of int values.
+     */
+    private static void reverse(int[] array, int from, int to) {
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            int temp = array[i];
+            array[i] = array[j];
+            array[j] = temp;
+        }
+    }
+
+    /**
+     * Sorts an array of long values by merging its natural runs like {@link #runMerge(int[])}.
+     *
+     * @param array The array of long values to be sorted.
+     */
+    private void runMerge(long[] array) {
+        int n = array.length;
+        // The progress is the part of the array whose runs were found and merged as far as the stack allows
+        OperationCounter counter = progressCounter(n);
+
+        long phaseStart = System.nanoTime();
+        RunStack runs = new RunStack();
+        long[] buffer = new long[0];
+        for (int from = 0; from < n; ) {
+            int to = ascendingRun(array, from, n, counter);
+            if (to - from < MIN_RUN_LENGTH) {
+                int extendedTo = Math.min(n, from + MIN_RUN_LENGTH);
+                insertionSort(array, from, to, extendedTo, counter);
+                to = extendedTo;
+            }
+            runs.push(from, to - from);
+            for (int k = runs.collapseIndex(); k >= 0; k = runs.collapseIndex()) {
+                buffer = mergeRuns(array, runs.base(k), runs.base(k + 1), runs.end(k + 1), buffer, counter);
+                runs.merged(k);
+            }
+            counter.advance(to - from);
+            from = to;
+        }
+        for (int k = runs.forcedCollapseIndex(); k >= 0; k = runs.forcedCollapseIndex()) {
+            buffer = mergeRuns(array, runs.base(k), runs.base(k + 1), runs.end(k + 1), buffer, counter);
+            runs.merged(k);
+        }
+        metrics.recordPhase("merge", phaseStart);
+
+        metrics.count(counter);
+    }
+
+    /**
+     * Finds the end of the run that starts at an index, and reverses the run if it is strictly descending.
+     *
+     * @param array   The array.
+     * @param from    The start of the run.
+     * @param to      The end of the array.
+     * @param counter The counter of comparisons and moves.
+     * @return The end of the run (exclusive).
+     */
+    private static int ascendingRun(long[] array, int from, int to, OperationCounter counter) {
+        int end = from + 1;
+        if (end < to && array[end] < array[from]) {
+            while (end < to && array[end] < array[end - 1]) {
+                end++;
+            }
+            reverse(array, from, end);
+            counter.moves += end - from;
+        } else {
+            while (end < to && array[end] >= array[end - 1]) {
+                end++;
+            }
+        }
+        counter.comparisons += end - from;
+        return end;
+    }
+
+    /**
+     * Extends a sorted range by inserting the following elements at their places, found by binary search.
+     *
+     * @param array    The array.
+     * @param from     The start of the sorted range.
+     * @param sortedTo The end of the sorted range.
+     * @param to       The end of the range to sort.
+     * @param counter  The counter of comparisons and moves.
+     */
+    private static void insertionSort(long[] array, int from, int sortedTo, int to, OperationCounter counter) {
+        for (int i = sortedTo; i < to; i++) {
+            long value = array[i];
+            int position = upperBound(array, from, i, value, counter);
+            System.arraycopy(array, position, array, position + 1, i - position);
+            array[position] = value;
+            counter.moves += i - position + 1;
+        }
+    }
+
+    /**
+     * Merges two neighbouring sorted runs like {@link #mergeRuns(int[], int, int, int, int[], OperationCounter)}.
+     *
+     * @param array   The array.
+     * @param from    The start of the left run.
+     * @param middle  The end of the left run and the start of the right run.
+     * @param to      The end of the right run.
+     * @param buffer  The buffer for the shorter run, which is replaced by a larger one if it is too short.
+     * @param counter The counter of comparisons and moves.
+     * @return The buffer.
+     */
+    private static long[] mergeRuns(long[] array, int from, int middle, int to, long[] buffer, OperationCounter counter) {
+        counter.comparisons++;
+        if (array[middle - 1] <= array[middle]) {
+            return buffer;
+        }
+        from = upperBound(array, from, middle, array[middle], counter);
+        to = lowerBound(array, middle, to, array[middle - 1], counter);
+
+        int leftLength = middle - from, rightLength = to - middle;
+        if (buffer.length < Math.min(leftLength, rightLength)) {
+            buffer = new long[Math.max(Math.min(leftLength, rightLength), Math.min(2 * buffer.length, array.length))];
+        }
+
+        long comparisons = 0;
+        if (leftLength <= rightLength) {
+            // Merge from the front; the rest of the right run is already in place when the left run is used up
+            System.arraycopy(array, from, buffer, 0, leftLength);
+            int i = 0, j = middle, k = from;
+            while (i < leftLength && j < to) {
+                array[k++] = buffer[i] <= array[j] ? buffer[i++] : array[j++];
+                comparisons++;
+            }
+            System.arraycopy(buffer, i, array, k, leftLength - i);
+            counter.moves += leftLength + (k - from) + (leftLength - i);
+        } else {
+            // Merge from the back; the rest of the left run is already in place when the right run is used up
+            System.arraycopy(array, middle, buffer, 0, rightLength);
+            int i = middle - 1, j = rightLength - 1, k = to - 1;
+            while (i >= from && j >= 0) {
+                array[k--] = array[i] > buffer[j] ? array[i--] : buffer[j--];
+                comparisons++;
+            }
+            System.arraycopy(buffer, 0, array, k - j, j + 1);
+            counter.moves += rightLength + (to - 1 - k) + (j + 1);
+        }
+
+        counter.comparisons += comparisons;
+        return buffer;
+    }
+
+    /**
+     * Finds the first element of a sorted range that is greater than a value.
+     *
+     * @return The index of the element, or the end of the range if there is none.
+     */
+    private static int upperBound(long[] array, int from, int to, long value, OperationCounter counter) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (array[middle] <= value) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+            counter.comparisons++;
+        }
+        return from;
+    }
+
+    /**
+     * Finds the first element of a sorted range that is not less than a value.
+     *
+     * @return The index of the element, or the end of the range if there is none.
+     */
+    private static int lowerBound(long[] array, int from, int to, long value, OperationCounter counter) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (array[middle] < value) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+            counter.comparisons++;
+        }
+        return from;
+    }
+
+    /**
+     * Reverses a range of an array of long values.
+     */
+    private static void reverse(long[] array, int from, int to) {
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            long temp = array[i];
+            array[i] = array[j];
+            array[j] = temp;
+        }
+    }
+
+    /**
+     * The stack of the runs that wait to be merged, with the invariants of TimSort: every run is longer than
+     * the run above it and than the two runs above it together. The lengths therefore grow at least like the
+     * Fibonacci numbers, so the stack stays shallow and runs are only merged with runs of similar length.
+     */
+    private static final class RunStack {
+        /**
+         * Enough for any array, as the lengths grow faster than the Fibonacci numbers.
+         */
+        private static final int CAPACITY = 64;
+
+        private final int[] bases = new int[CAPACITY];
+        private final int[] lengths = new int[CAPACITY];
+        private int size;
+
+        /**
+         * Pushes a run that follows the run on top of the stack.
+         *
+         * @param base   The start of the run.
+         * @param length The length of the run.
+         */
+        void push(int base, int length) {
+            bases[size] = base;
+            lengths[size] = length;
+            size++;
+        }
+
+        /**
+         * Gets the start of a run.
+         *
+         * @param k The index of the run on the stack, from the bottom.
+         * @return The start of the run.
+         */
+        int base(int k) {
+            return bases[k];
+        }
+
+        /**
+         * Gets the end of a run.
+         *
+         * @param k The index of the run on the stack, from the bottom.
+         * @return The end of the run (exclusive).
+         */
+        int end(int k) {
+            return bases[k] + lengths[k];
+        }
+
+        /**
+         * Finds the run that has to be merged with the run above it to restore the invariants.
+         *
+         * @return The index of the run, or -1 if the invariants hold.
+         */
+        int collapseIndex() {
+            if (size < 2) {
+                return -1;
+            }
+            int k = size - 2;
+            if (k > 0 && lengths[k - 1] <= lengths[k] + lengths[k + 1]
+                    || k > 1 && lengths[k - 2] <= lengths[k - 1] + lengths[k]) {
+                return lengths[k - 1] < lengths[k + 1] ? k - 1 : k;
+            }
+            return lengths[k] <= lengths[k + 1] ? k : -1;
+        }
+
+        /**
+         * Finds the next run to merge when all runs were found, until one is left.
+         *
+         * @return The index of the run, or -1 if only one run is left.
+         */
+        int forcedCollapseIndex() {
+            if (size < 2) {
+                return -1;
+            }
+            int k = size - 2;
+            return k > 0 && lengths[k - 1] < lengths[k + 1] ? k - 1 : k;
+        }
+
+        /**
+         * Replaces a run and the run above it by the run they were merged into.
+         *
+         * @param k The index of the lower run.
+         */
+        void merged(int k) {
+            lengths[k] += lengths[k + 1];
+            if (k == size - 3) {
+                bases[k + 1] = bases[k + 2];
+                lengths[k + 1] = lengths[k + 2];
+            }
+            size--;
+        }
+    }
+
+    /**
+     * The ways AutoSort can sort an array.
+     */
+    public enum Choice {
+        /**
+         * Nothing to do: the array is empty, has one element or is already sorted.
+         */
+        NONE,
+
+        /**
+         * The array is one strictly descending run, which is reversed.
+         */
+        REVERSE,
+
+        /**
+         * The natural runs of the array are merged like TimSort.
+         */
+        RUN_MERGE,
+
+        /**
+         * Quick Sort with the introsort algorithm.
+         */
+        QUICK,
+
+        /**
+         * Counting Sort with a frequency array or a hash table.
+         */
+        COUNTING,
+
+        /**
+         * Radix Sort.
+         */
+        RADIX,
+
+        /**
+         * Shell Sort, for the columns of a matrix.
+         */
+        SHELL
+    }
+
+    /**
+     * What the profile of an array found.
+     *
+     * @param length             The number of elements.
+     * @param min                The smallest key.
+     * @param max                The largest key.
+     * @param runs               The number of natural runs: non-descending or strictly descending.
+     * @param descendingRuns     The number of strictly descending runs.
+     * @param elementsInLongRuns The number of elements in runs of at least {@link #MIN_RUN_LENGTH}.
+     * @param duplicateShare     The share of a sample of the elements that equal another element of the sample.
+     */
+    public record Profile(int length, long min, long max, int runs, int descendingRuns, long elementsInLongRuns,
+                          double duplicateShare) {
+        /**
+         * Gets the share of the elements that are in runs of at least {@link #MIN_RUN_LENGTH}.
+         *
+         * @return The share, from 0 to 1.
+         */
+        public double presortedShare() {
+            return length == 0 ? 1 : (double) elementsInLongRuns / length;
+        }
+    }
+
+    /**
+     * How AutoSort sorted an array, and why.
+     *
+     * @param choice  The way the array was sorted.
+     * @param profile The profile of the array, or of the key row of a matrix.
+     * @param reason  The reason for the choice.
+     */
+    public record Decision(Choice choice, Profile profile, String reason) {
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s because %s (%d elements, %d runs, %.1f%% presorted, %.1f%% duplicates)",
+                    choice, reason, profile.length(), profile.runs(), 100 * profile.presortedShare(),
+                    100 * profile.duplicateShare());
+        }
+    }
+}
@@ -1,10 +1,39 @@
 package com.mhorak.dsa.sort;
 
-import java.time.LocalTime;
-import java.util.ArrayList;
+import com.mhorak.dsa.tools.ArrayKernels;
+import com.mhorak.dsa.tools.LongIntHashMap;
+
 import java.util.Arrays;
 
+/**
+ * This class implements the Counting Sort algorithm for sorting integer keys.
+ * <p>
+ * A frequency array for the whole range of values costs 4 bytes per value in the range, so it is used only when
+ * the range is not much wider than the number of elements. Sparse ranges are counted in a hash table of the
+ * distinct values instead, and when there are too many distinct values for that, the values are sorted by
+ * their digits with {@link RadixSort}. The chosen {@link Strategy} is reported by {@link SortMetrics#getStrategy()}.
+ */
 public class CountingSort extends Sort{
+    /**
+     * Ranges up to this width always get a frequency array, which takes at most 256 KB.
+     */
+    static final long DENSE_MIN_RANGE = 1 << 16;
+
+    /**
+     * Wider ranges get a frequency array only if they have at most this many values per element.
+     */
+    static final int DENSE_RANGE_PER_ELEMENT = 4;
+
+    /**
+     * The largest length of an array the JVM can allocate.
+     */
+    static final long MAX_FREQUENCY_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    /**
+     * Sparse ranges are counted in a hash table if at most 1 / HASHED_DISTINCT_FRACTION of the values are distinct.
+     */
+    static final int HASHED_DISTINCT_FRACTION = 8;
+
     /**
      * Sorts a one-dimensional array of Double elements.
      *
@@ -17,81 +46,182 @@ public class CountingSort extends Sort{
     }
 
     /**
-     * Sorts a two-dimensional array of Double elements using Counting Sort and returns the sorted array.
+     * Sorts a one-dimensional array of double values in-place by counting the long keys of
+     * {@link RadixSort#sortableBits(double)} with {@link #sortLab(long[])}, which keeps the order of
+     * {@link Double#compare(double, double)}. Keys of a wide range are not counted densely but with the
+     * strategy that suits them.
      *
-     * @param arrayOfNumbers The array of Double elements to be sorted.
-     * @return The sorted array of Double elements.
+     * @param arrayOfNumbers The array of double values to be sorted.
+     * @return The sorted array of double values.
      */
     @Override
-    public Double[][] sortIndividual(Double[][] arrayOfNumbers) {
-        startOfSorting = LocalTime.now();
+    public double[] sortIndividual(double[] arrayOfNumbers) {
+        metrics.start();
+        try {
+            long phaseStart = System.nanoTime();
+            long[] keys = new long[arrayOfNumbers.length];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = RadixSort.sortableBits(arrayOfNumbers[i]);
+            }
+            metrics.recordPhase("keys", phaseStart);
 
-        // Get the dimensions of the array
-        int rows = arrayOfNumbers.length;
-        int cols = arrayOfNumbers[0].length;
+            sortLab(keys);
 
-        // Transpose the array for sorting based on the first column
-        Double[][] transposedArray = new Double[cols][rows];
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                transposedArray[j][i] = arrayOfNumbers[i][j];
+            phaseStart = System.nanoTime();
+            for (int i = 0; i < keys.length; i++) {
+                arrayOfNumbers[i] = RadixSort.fromSortableBits(keys[i]);
             }
-        }
+            metrics.countMoves(keys.length);
+            metrics.recordPhase("values", phaseStart);
 
-        // Calculate the minimum and maximum values in the transposed array
-        int min = (int) (transposedArray[0][0] * 10);
-        int max = (int) (transposedArray[0][0] * 10);
-        for (int i = 0; i < transposedArray.length; i++) {
-            int value = (int) (transposedArray[i][0] * 10);
-            if (value < min) {
-                min = value;
-            }
-            if (value > max) {
-                max = value;
-            }
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
         }
+    }
 
-        int length = max - min;
-        int[] frequencies = new int[length + 1];
-
-        // Calculate the frequencies of values in the first column
-        for (int i = 0; i < transposedArray.length; i++) {
-            frequencies[((int) (transposedArray[i][0] * 10)) - min]++;
+    /**
+     * Sorts a two-dimensional array of Double elements using Counting Sort and returns the sorted array.
+     * The columns are sorted by the values of the first row with one decimal digit, e.g. 1.25 as 12.
+     * The matrix is not transposed: the stable order of the keys is calculated first, and the columns are
+     * then moved to their sorted positions in place, row by row.
+     *
+     * @param arrayOfNumbers The array of Double elements to be sorted.
+     * @return The sorted array of Double elements, which is the same array.
+     */
+    @Override
+    public Double[][] sortIndividual(Double[][] arrayOfNumbers) {
+        if (arrayOfNumbers.length == 0 || arrayOfNumbers[0].length == 0) {
+            return arrayOfNumbers;
         }
 
-        int currentSum = frequencies[0];
-        for (int i = 1; i < frequencies.length; i++) {
-            currentSum += frequencies[i];
-            frequencies[i] = currentSum;
+        metrics.start();
+        try {
+            // Get the dimensions of the array
+            int rows = arrayOfNumbers.length;
+            int cols = arrayOfNumbers[0].length;
+
+            // Calculate the keys of the first row and their minimum and maximum
+            long phaseStart = System.nanoTime();
+            Double[] keyRow = arrayOfNumbers[0];
+            long[] keys = new long[cols];
+            for (int i = 0; i < cols; i++) {
+                keys[i] = (long) (keyRow[i] * 10);
+            }
+            long[] minMax = ArrayKernels.get().minMax(keys);
+            long min = minMax[0], max = minMax[1];
+            metrics.countComparisons(2L * cols);
+            metrics.recordPhase("min/max", phaseStart);
+            checkpoint(1, 3);
+
+            int[] order = sortedOrder(keys, min, max);
+            checkpoint(2, 3);
+
+            // Move the columns to their sorted positions
+            phaseStart = System.nanoTime();
+            Permutations.applyToColumns(arrayOfNumbers, order);
+            metrics.countMoves((long) rows * cols);
+            metrics.recordPhase("permute", phaseStart);
+
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
         }
+    }
 
-        for (int i = frequencies.length - 1; i > 0; i--) {
-            frequencies[i] = frequencies[i - 1];
+    /**
+     * Calculates the stable sorted order of long keys by counting them, with the strategy that suits their range.
+     *
+     * @param keys The keys to be sorted.
+     * @return The indices of the keys in sorted order.
+     */
+    @Override
+    int[] sortedOrder(long[] keys) {
+        if (keys.length == 0) {
+            return new int[0];
         }
-        frequencies[0] = 0;
 
-        // Create a sorted array based on the frequencies
-        Double[][] sorted = new Double[transposedArray.length][transposedArray[0].length];
-        for (int i = 0; i < transposedArray.length; i++) {
-            int index = frequencies[((int) (transposedArray[i][0] * 10)) - min];
-            sorted[index] = transposedArray[i];
-            frequencies[((int) (transposedArray[i][0] * 10)) - min]++;
-        }
+        long phaseStart = System.nanoTime();
+        long[] minMax = ArrayKernels.get().minMax(keys);
+        metrics.countComparisons(2L * keys.length);
+        metrics.recordPhase("min/max", phaseStart);
 
-        // Transpose the sorted array back to its original form
-        Double[][] finalArray = new Double[sorted[0].length][sorted.length];
-        for (int i = 0; i < cols; i++) {
-            for (int j = 0; j < rows; j++) {
-                finalArray[j][i] = sorted[i][j];
+        return sortedOrder(keys, minMax[0], minMax[1]);
+    }
+
+    /**
+     * Calculates the stable sorted order of keys with the strategy that suits their range.
+     *
+     * @param keys The keys to be sorted.
+     * @param min  The minimum key.
+     * @param max  The maximum key.
+     * @return The indices of the keys in sorted order.
+     */
+    private int[] sortedOrder(long[] keys, long min, long max) {
+        int n = keys.length;
+        int[] order = new int[n];
+        Strategy strategy = chooseStrategy(min, max, n);
+
+        if (strategy == Strategy.DENSE) {
+            long phaseStart = System.nanoTime();
+            int[] positions = new int[(int) (max - min + 1)];
+            for (long key : keys) {
+                positions[(int) (key - min)]++;
             }
-        }
+            metrics.recordPhase("histogram", phaseStart);
+
+            // Turn the frequencies into the first positions of the keys
+            phaseStart = System.nanoTime();
+            int position = 0;
+            for (int i = 0; i < positions.length; i++) {
+                int frequency = positions[i];
+                positions[i] = position;
+                position += frequency;
+            }
+            metrics.recordPhase("prefix sum", phaseStart);
 
-        endOfSorting = LocalTime.now();
+            phaseStart = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                order[positions[(int) (keys[i] - min)]++] = i;
+            }
+            metrics.recordPhase("order", phaseStart);
+        } else {
+            long phaseStart = System.nanoTime();
+            LongIntHashMap positions = hashedHistogram(keys);
+            metrics.recordPhase("histogram", phaseStart);
+
+            if (positions != null) {
+                // Turn the frequencies of the distinct keys, in sorted order, into their first positions
+                phaseStart = System.nanoTime();
+                long[] distinctKeys = positions.keys();
+                Arrays.sort(distinctKeys);
+                int position = 0;
+                for (long key : distinctKeys) {
+                    int frequency = positions.get(key, 0);
+                    positions.put(key, position);
+                    position += frequency;
+                }
+                metrics.recordPhase("prefix sum", phaseStart);
+
+                phaseStart = System.nanoTime();
+                for (int i = 0; i < n; i++) {
+                    order[positions.addTo(keys[i], 1) - 1] = i;
+                }
+                metrics.recordPhase("order", phaseStart);
+            } else {
+                strategy = Strategy.RADIX;
+                for (int i = 0; i < n; i++) {
+                    order[i] = i;
+                }
+                RadixSort.radixSort(keys.clone(), order, RadixSort.DEFAULT_BITS_PER_PASS, this);
+            }
+        }
+        metrics.countMoves(n);
+        metrics.setStrategy(strategy.name());
 
-        return finalArray;
+        return order;
     }
 
-
     /**
      * Sorts the array of Integer elements using Counting Sort and returns the sorted array.
      *
@@ -100,105 +230,361 @@ public class CountingSort extends Sort{
      */
     @Override
     public Integer[] sortLab(Integer[] arrayOfNumbers) {
-        startOfSorting = LocalTime.now();
+        metrics.start();
+        try {
+            int[] values = unbox(arrayOfNumbers);
+            sortLab(values);
+            box(values, arrayOfNumbers);
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
+    }
 
-        // Find the minimum and maximum values in the array
-        Integer min = arrayOfNumbers[0], max = arrayOfNumbers[0];
-        for (int i = 0; i < arrayOfNumbers.length; i++) {
-            if (arrayOfNumbers[i] < min) {
-                min = arrayOfNumbers[i];
+    /**
+     * Sorts the array of int values in-place using Counting Sort and returns the sorted array.
+     *
+     * @param arrayOfNumbers The array of int values to be sorted.
+     * @return The sorted array of int values.
+     */
+    @Override
+    public int[] sortLab(int[] arrayOfNumbers) {
+        metrics.start();
+        try {
+            if (arrayOfNumbers.length == 0) {
+                return arrayOfNumbers;
             }
-            if (arrayOfNumbers[i] > max) {
-                max = arrayOfNumbers[i];
+
+            // Find the minimum and maximum values in the array
+            long phaseStart = System.nanoTime();
+            int[] minMax = ArrayKernels.get().minMax(arrayOfNumbers);
+            int min = minMax[0], max = minMax[1];
+            metrics.countComparisons(2L * arrayOfNumbers.length);
+            metrics.recordPhase("min/max", phaseStart);
+
+            checkpoint(1, 3);
+
+            Strategy strategy = chooseStrategy(min, max, arrayOfNumbers.length);
+            if (strategy == Strategy.DENSE) {
+                countDense(arrayOfNumbers, min, max);
+            } else if (!countHashed(arrayOfNumbers)) {
+                // Too many distinct values for a hash table, so the values are sorted by their digits instead
+                strategy = Strategy.RADIX;
+                RadixSort.radixSort(arrayOfNumbers, null, RadixSort.DEFAULT_BITS_PER_PASS, this);
             }
+            metrics.setStrategy(strategy.name());
+
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
         }
+    }
 
-        // Calculate the range of values in the array
-        int length = max - min;
+    /**
+     * Sorts the array of long values in-place using Counting Sort and returns the sorted array.
+     *
+     * @param arrayOfNumbers The array of long values to be sorted.
+     * @return The sorted array of long values.
+     */
+    @Override
+    public long[] sortLab(long[] arrayOfNumbers) {
+        metrics.start();
+        try {
+            if (arrayOfNumbers.length == 0) {
+                return arrayOfNumbers;
+            }
 
-        // Initialize an array to store the frequencies of each value
-        int[] frequencies = new int[length + 1];
+            // Find the minimum and maximum values in the array
+            long phaseStart = System.nanoTime();
+            long[] minMax = ArrayKernels.get().minMax(arrayOfNumbers);
+            long min = minMax[0], max = minMax[1];
+            metrics.countComparisons(2L * arrayOfNumbers.length);
+            metrics.recordPhase("min/max", phaseStart);
+
+            checkpoint(1, 3);
+
+            Strategy strategy = chooseStrategy(min, max, arrayOfNumbers.length);
+            if (strategy == Strategy.DENSE) {
+                countDense(arrayOfNumbers, min, max);
+            } else if (!countHashed(arrayOfNumbers)) {
+                // Too many distinct values for a hash table, so the values are sorted by their digits instead
+                strategy = Strategy.RADIX;
+                RadixSort.radixSort(arrayOfNumbers, null, RadixSort.DEFAULT_BITS_PER_PASS, this);
+            }
+            metrics.setStrategy(strategy.name());
 
-        // Calculate the frequencies of each value
-        for (int i = 0; i < arrayOfNumbers.length; i++) {
-            frequencies[arrayOfNumbers[i] - min]++;
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
         }
+    }
 
-        // Create the sorted array
-        Integer[] sorted = new Integer[arrayOfNumbers.length];
+    /**
+     * Sorts an array of int values with a frequency array that covers the whole range of values.
+     *
+     * @param arrayOfNumbers The array to be sorted.
+     * @param min            The minimum value.
+     * @param max            The maximum value.
+     */
+    private void countDense(int[] arrayOfNumbers, int min, int max) {
+        // Initialize an array to store the frequencies of each value
+        long phaseStart = System.nanoTime();
+        int[] frequencies = new int[(int) ((long) max - min + 1)];
 
+        // Calculate the frequencies of each value
+        ArrayKernels.get().countHistogram(arrayOfNumbers, min, frequencies);
+        metrics.recordPhase("histogram", phaseStart);
+        checkpoint(2, 3);
+
+        // Write the values back in sorted order
+        phaseStart = System.nanoTime();
         int j = 0;
         for (int i = 0; i < frequencies.length; i++) {
             for (int k = 0; k < frequencies[i]; k++) {
-                sorted[j] = i + min;
+                arrayOfNumbers[j] = min + i;
                 j++;
             }
         }
+        metrics.countMoves(arrayOfNumbers.length);
+        metrics.recordPhase("output", phaseStart);
+    }
 
-        endOfSorting = LocalTime.now();
+    /**
+     * Sorts an array of int values with a hash table of the frequencies of the distinct values.
+     *
+     * @param arrayOfNumbers The array to be sorted.
+     * @return True if the array was sorted, or false if it has too many distinct values and was left unchanged.
+     */
+    private boolean countHashed(int[] arrayOfNumbers) {
+        long phaseStart = System.nanoTime();
+        LongIntHashMap frequencies = hashedHistogram(arrayOfNumbers);
+        metrics.recordPhase("histogram", phaseStart);
+        if (frequencies == null) {
+            return false;
+        }
+        checkpoint(2, 3);
 
-        return sorted;
+        // Sort the distinct values and write each of them as many times as it occurs
+        phaseStart = System.nanoTime();
+        long[] distinctValues = frequencies.keys();
+        Arrays.sort(distinctValues);
+        metrics.recordPhase("sort distinct", phaseStart);
+
+        phaseStart = System.nanoTime();
+        int j = 0;
+        for (long value : distinctValues) {
+            int frequency = frequencies.get(value, 0);
+            Arrays.fill(arrayOfNumbers, j, j + frequency, (int) value);
+            j += frequency;
+        }
+        metrics.countMoves(arrayOfNumbers.length);
+        metrics.recordPhase("output", phaseStart);
+        return true;
     }
 
     /**
-     * Sorts the array of Integer elements using Counting Sort with intermediate steps and returns a list of
-     * intermediate sorting states.
+     * Sorts an array of long values with a frequency array that covers the whole range of values.
      *
-     * @param arrayOfNumbers The array of Integer elements to be sorted.
-     * @return An ArrayList of arrays representing intermediate sorting states.
+     * @param arrayOfNumbers The array to be sorted.
+     * @param min            The minimum value.
+     * @param max            The maximum value.
      */
-    @Override
-    public ArrayList<Integer[]> sortLabWithSteps(Integer[] arrayOfNumbers) {
-        ArrayList<Integer[]> steps = new ArrayList<>();
+    private void countDense(long[] arrayOfNumbers, long min, long max) {
+        // Initialize an array to store the frequencies of each value
+        long phaseStart = System.nanoTime();
+        int[] frequencies = new int[(int) (max - min + 1)];
 
-        // Add the initial state of the array to the steps
-        steps.add(Arrays.copyOf(arrayOfNumbers, arrayOfNumbers.length));
+        // Calculate the frequencies of each value
+        ArrayKernels.get().countHistogram(arrayOfNumbers, min, frequencies);
+        metrics.recordPhase("histogram", phaseStart);
+        checkpoint(2, 3);
 
-        startOfSorting = LocalTime.now();
+        // Write the values back in sorted order
+        phaseStart = System.nanoTime();
+        int j = 0;
+        for (int i = 0; i < frequencies.length; i++) {
+            for (int k = 0; k < frequencies[i]; k++) {
+                arrayOfNumbers[j] = min + i;
+                j++;
+            }
+        }
+        metrics.countMoves(arrayOfNumbers.length);
+        metrics.recordPhase("output", phaseStart);
+    }
+
+    /**
+     * Sorts an array of long values with a hash table of the frequencies of the distinct values.
+     *
+     * @param arrayOfNumbers The array to be sorted.
+     * @return True if the array was sorted, or false if it has too many distinct values and was left unchanged.
+     */
+    private boolean countHashed(long[] arrayOfNumbers) {
+        long phaseStart = System.nanoTime();
+        LongIntHashMap frequencies = hashedHistogram(arrayOfNumbers);
+        metrics.recordPhase("histogram", phaseStart);
+        if (frequencies == null) {
+            return false;
+        }
+        checkpoint(2, 3);
 
-        // Find the minimum and maximum values in the array
-        Integer min = arrayOfNumbers[0], max = arrayOfNumbers[0];
-        for (int i = 0; i < arrayOfNumbers.length; i++) {
-            if (arrayOfNumbers[i] < min) {
-                min = arrayOfNumbers[i];
+        // Sort the distinct values and write each of them as many times as it occurs
+        phaseStart = System.nanoTime();
+        long[] distinctValues = frequencies.keys();
+        Arrays.sort(distinctValues);
+        metrics.recordPhase("sort distinct", phaseStart);
+
+        phaseStart = System.nanoTime();
+        int j = 0;
+        for (long value : distinctValues) {
+            int frequency = frequencies.get(value, 0);
+            Arrays.fill(arrayOfNumbers, j, j + frequency, value);
+            j += frequency;
+        }
+        metrics.countMoves(arrayOfNumbers.length);
+        metrics.recordPhase("output", phaseStart);
+        return true;
+    }
+
+    /**
+     * Counts the frequencies of the distinct int values in a hash table, as long as there are few of them.
+     *
+     * @param values The values to be counted.
+     * @return The frequencies of the distinct values, or null if there are more than
+     * 1 / {@link #HASHED_DISTINCT_FRACTION} of the number of values.
+     */
+    private static LongIntHashMap hashedHistogram(int[] values) {
+        int limit = Math.max(values.length / HASHED_DISTINCT_FRACTION, 1);
+        LongIntHashMap frequencies = new LongIntHashMap(Math.min(limit, 1 << 10));
+        for (int value : values) {
+            frequencies.addTo(value, 1);
+            if (frequencies.size() > limit) {
+                return null;
             }
-            if (arrayOfNumbers[i] > max) {
-                max = arrayOfNumbers[i];
+        }
+        return frequencies;
+    }
+
+    /**
+     * Counts the frequencies of the distinct long values in a hash table, as long as there are few of them.
+     *
+     * @param values The values to be counted.
+     * @return The frequencies of the distinct values, or null if there are more than
+     * 1 / {@link #HASHED_DISTINCT_FRACTION} of the number of values.
+     */
+    private static LongIntHashMap hashedHistogram(long[] values) {
+        int limit = Math.max(values.length / HASHED_DISTINCT_FRACTION, 1);
+        LongIntHashMap frequencies = new LongIntHashMap(Math.min(limit, 1 << 10));
+        for (long value : values) {
+            frequencies.addTo(value, 1);
+            if (frequencies.size() > limit) {
+                return null;
             }
         }
+        return frequencies;
+    }
 
-        // Calculate the range of values in the array
-        int length = max - min;
+    /**
+     * Chooses how to count values: a frequency array for the whole range is used when it is not much larger
+     * than the array of values, and a hash table of the distinct values otherwise.
+     *
+     * @param min    The minimum value.
+     * @param max    The maximum value.
+     * @param length The number of values.
+     * @return The strategy for the range.
+     */
+    static Strategy chooseStrategy(long min, long max, int length) {
+        // max - min read as an unsigned number is the exact width of the range even for the full range of long
+        long span = max - min;
+        long denseLimit = Math.min(Math.max(DENSE_MIN_RANGE, (long) DENSE_RANGE_PER_ELEMENT * length),
+                MAX_FREQUENCY_ARRAY_LENGTH);
+        return Long.compareUnsigned(span, denseLimit) < 0 ? Strategy.DENSE : Strategy.HASHED;
+    }
 
-        // Initialize an array to store the frequencies of each value
-        Integer[] frequencies = new Integer[length + 1];
-        Arrays.fill(frequencies, 0);
+    /**
+     * Sorts a copy of the array of Integer elements using Counting Sort and records the initial array, the
+     * frequencies and the sorted array in a step log.
+     *
+     * @param arrayOfNumbers The array of Integer elements to be sorted.
+     * @param steps          The step log to record the intermediate sorting states in.
+     */
+    @Override
+    public void sortLabWithSteps(Integer[] arrayOfNumbers, StepLog steps) {
+        // Add the initial state of the array to the steps
+        steps.record(arrayOfNumbers);
+
+        metrics.start();
+        try {
+            // Find the minimum and maximum values in the array
+            Integer min = arrayOfNumbers[0], max = arrayOfNumbers[0];
+            for (int i = 0; i < arrayOfNumbers.length; i++) {
+                if (arrayOfNumbers[i] < min) {
+                    min = arrayOfNumbers[i];
+                }
+                if (arrayOfNumbers[i] > max) {
+                    max = arrayOfNumbers[i];
+                }
+            }
 
-        // Calculate the frequencies of each value
-        for (int i = 0; i < arrayOfNumbers.length; i++) {
-            frequencies[arrayOfNumbers[i] - min]++;
-        }
+            // A sparse range has no frequency array to show, so only the sorted array is added
+            if (chooseStrategy(min, max, arrayOfNumbers.length) != Strategy.DENSE) {
+                Integer[] sorted = sortLab(Arrays.copyOf(arrayOfNumbers, arrayOfNumbers.length));
+                steps.record(sorted);
+                return;
+            }
 
-        // Add the frequencies to steps
-        steps.add(Arrays.copyOf(frequencies, frequencies.length));
+            // Calculate the range of values in the array
+            int length = max - min;
 
-        // Create the sorted array
-        Integer[] sorted = new Integer[arrayOfNumbers.length];
+            // Initialize an array to store the frequencies of each value
+            Integer[] frequencies = new Integer[length + 1];
+            Arrays.fill(frequencies, 0);
 
-        int j = 0;
-        for (int i = 0; i < frequencies.length; i++) {
-            for (int k = 0; k < frequencies[i]; k++) {
-                sorted[j] = i + min;
-                j++;
+            // Calculate the frequencies of each value
+            for (int i = 0; i < arrayOfNumbers.length; i++) {
+                frequencies[arrayOfNumbers[i] - min]++;
             }
-        }
 
-        // Add the final sorted state to steps
-        steps.add(Arrays.copyOf(sorted, sorted.length));
+            // Add the frequencies to steps
+            steps.record(frequencies);
+
+            // Create the sorted array
+            Integer[] sorted = new Integer[arrayOfNumbers.length];
+
+            int j = 0;
+            for (int i = 0; i < frequencies.length; i++) {
+                for (int k = 0; k < frequencies[i]; k++) {
+                    sorted[j] = i + min;
+                    j++;
+                }
+            }
 
-        endOfSorting = LocalTime.now();
+            // Add the final sorted state to steps
+            steps.record(sorted);
 
-        return steps;
+            metrics.countComparisons(2L * arrayOfNumbers.length);
+            metrics.countMoves(sorted.length);
+        } finally {
+            metrics.stop();
+        }
     }
 
+    /**
+     * The ways CountingSort counts the values.
+     */
+    public enum Strategy {
+        /**
+         * A frequency array with an element for every value of the range.
+         */
+        DENSE,
+
+        /**
+         * A hash table with an entry for every distinct value.
+         */
+        HASHED,
+
+        /**
+         * No frequencies of whole values: the values are sorted by their digits with Radix Sort.
+         */
+        RADIX
+    }
 }
@@ -0,0 +1,403 @@
+package com.mhorak.dsa.sort;
+
+import com.mhorak.dsa.tools.ArrayFiles;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sorts arrays in the files of {@link ArrayFiles} that do not fit into the heap.
+ * <p>
+ * The input is read in chunks that fit into the heap budget, every chunk is sorted by an in-memory engine and
+ * written to a temporary file as a sorted run, and the runs are merged with a {@link LoserTree}. When there are
+ * more runs than read buffers fit into the budget, groups of runs are merged into longer runs first.
+ * <p>
+ * All element types are sorted as long keys: int values as they are, and double values by the bits of
+ * {@link RadixSort#sortableBits(double)}, so the engine sorts them with {@link Sort#sortLab(long[])}.
+ */
+public class ExternalSort {
+    /**
+     * The size of the buffer of a run that is read or written.
+     */
+    static final int RUN_BUFFER_BYTES = 1 << 20;
+
+    /**
+     * The smallest number of elements in a chunk, so that a tiny budget does not produce millions of runs.
+     */
+    static final int MIN_CHUNK_LENGTH = 1 << 10;
+
+    private final Sort engine;
+    private final long heapBudgetBytes;
+    private final Path tempDirectory;
+    private final SortMetrics metrics = new SortMetrics();
+
+    /**
+     * Constructs an external sort that sorts the chunks with the introsort mode of {@link QuickSort}, uses a
+     * quarter of the maximum heap size and writes the runs to the default temporary directory.
+     */
+    public ExternalSort() {
+        this(new QuickSort(QuickSort.Mode.INTROSORT), Runtime.getRuntime().maxMemory() / 4,
+                Path.of(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * Constructs an external sort.
+     *
+     * @param engine          The sort for the chunks, e.g. {@link QuickSort} or {@link MergeSort}.
+     * @param heapBudgetBytes The number of bytes of the heap that a chunk and the read buffers may take.
+     * @param tempDirectory   The directory of the temporary files of the runs.
+     */
+    public ExternalSort(Sort engine, long heapBudgetBytes, Path tempDirectory) {
+        if (heapBudgetBytes < 4L * RUN_BUFFER_BYTES) {
+            throw new IllegalArgumentException("The heap budget must be at least " + 4 * RUN_BUFFER_BYTES + " bytes");
+        }
+        this.engine = engine;
+        this.heapBudgetBytes = heapBudgetBytes;
+        this.tempDirectory = tempDirectory;
+    }
+
+    /**
+     * Gets the measurements of the last sorting process, with the phases "runs" and "merge".
+     *
+     * @return The metrics of the last sorting process.
+     */
+    public SortMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sorts the first array of a file into a new file.
+     *
+     * @param input    The file with the array; a matrix is sorted as one array of its elements.
+     * @param output   The file to write the sorted array to.
+     * @param byGrowth If set to true, the array is sorted in ascending order; otherwise in descending order.
+     * @throws IOException If a file cannot be read or written.
+     */
+    public void sort(Path input, Path output, boolean byGrowth) throws IOException {
+        metrics.start();
+        List<Run> runs = new ArrayList<>();
+        List<Path> temporaryFiles = new ArrayList<>();
+        Throwable failure = null;
+        try {
+            ArrayFiles.Header header = ArrayFiles.readHeader(input, 0);
+            // Every element of a chunk takes a long key and, for MergeSort, a long of the buffer
+            long chunkLength = Math.max(MIN_CHUNK_LENGTH, Math.min(heapBudgetBytes / (2 * Long.BYTES),
+                    Integer.MAX_VALUE - 8));
+            long phaseStart = System.nanoTime();
+            if (header.elementCount() <= chunkLength) {
+                // The whole array fits into the budget, so there is nothing to merge
+                long[] keys = readChunk(input, header, 0, (int) header.elementCount());
+                sortChunk(keys, byGrowth);
+                try (RunWriter writer = new RunWriter(output, header, RUN_BUFFER_BYTES)) {
+                    for (long key : keys) {
+                        writer.write(key);
+                    }
+                }
+                metrics.recordPhase("runs", phaseStart);
+                return;
+            }
+
+            for (long from = 0; from < header.elementCount(); from += chunkLength) {
+                int length = (int) Math.min(chunkLength, header.elementCount() - from);
+                long[] keys = readChunk(input, header, from, length);
+                sortChunk(keys, byGrowth);
+                runs.add(writeRun(keys));
+                temporaryFiles.add(runs.get(runs.size() - 1).file());
+            }
+            metrics.recordPhase("runs", phaseStart);
+
+            phaseStart = System.nanoTime();
+            int fanIn = (int) Math.max(2, Math.min(heapBudgetBytes / RUN_BUFFER_BYTES - 1, 1024));
+            while (runs.size() > fanIn) {
+                // Merge groups of runs until the read buffers of all runs fit into the budget
+                List<Run> merged = new ArrayList<>();
+                for (int first = 0; first < runs.size(); first += fanIn) {
+                    List<Run> group = runs.subList(first, Math.min(first + fanIn, runs.size()));
+                    Path file = Files.createTempFile(tempDirectory, "run", ".bin");
+                    temporaryFiles.add(file);
+                    long length = 0;
+                    for (Run run : group) {
+                        length += run.length();
+                    }
+                    try (RunWriter writer = new RunWriter(file, RUN_BUFFER_BYTES)) {
+                        merge(group, writer, byGrowth);
+                    }
+                    for (Run run : group) {
+                        Files.deleteIfExists(run.file());
+                    }
+                    merged.add(new Run(file, length));
+                }
+                runs = merged;
+            }
+            try (RunWriter writer = new RunWriter(output, header, RUN_BUFFER_BYTES)) {
+                merge(runs, writer, byGrowth);
+            }
+            metrics.recordPhase("merge", phaseStart);
+        } catch (UncheckedIOException exception) {
+            IOException cause = exception.getCause();
+            failure = cause;
+            throw cause;
+        } catch (Throwable exception) {
+            failure = exception;
+            throw exception;
+        } finally {
+            metrics.stop();
+            deleteAll(temporaryFiles, failure);
+        }
+    }
+
+    /**
+     * Deletes the temporary files, going on with the others when one cannot be deleted. If the sort failed,
+     * the failures to delete are added to its exception as suppressed, so it is the one that is thrown.
+     *
+     * @param files   The files to delete.
+     * @param failure The exception the sort failed with, or null if it succeeded.
+     * @throws IOException If the sort succeeded but a file cannot be deleted.
+     */
+    private static void deleteAll(List<Path> files, Throwable failure) throws IOException {
+        IOException deleteFailure = null;
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException exception) {
+                if (failure != null) {
+                    failure.addSuppressed(exception);
+                } else if (deleteFailure == null) {
+                    deleteFailure = exception;
+                } else {
+                    deleteFailure.addSuppressed(exception);
+                }
+            }
+        }
+        if (deleteFailure != null) {
+            throw deleteFailure;
+        }
+    }
+
+    /**
+     * Sorts the keys of a chunk with the engine and counts its operations.
+     */
+    private void sortChunk(long[] keys, boolean byGrowth) {
+        engine.sortLab(keys);
+        metrics.countComparisons(engine.getMetrics().getComparisons());
+        metrics.countMoves(engine.getMetrics().getMoves());
+        if (!byGrowth) {
+            for (int i = 0, j = keys.length - 1; i < j; i++, j--) {
+                long key = keys[i];
+                keys[i] = keys[j];
+                keys[j] = key;
+            }
+        }
+    }
+
+    /**
+     * Merges runs into a writer with a loser tree, reading every run through its own buffer.
+     */
+    private void merge(List<Run> runs, RunWriter writer, boolean byGrowth) throws IOException {
+        int bufferBytes = (int) Math.min(RUN_BUFFER_BYTES, heapBudgetBytes / (runs.size() + 1)) & -Long.BYTES;
+        RunReader[] readers = new RunReader[runs.size()];
+        try {
+            for (int i = 0; i < readers.length; i++) {
+                readers[i] = new RunReader(runs.get(i), bufferBytes);
+            }
+            LoserTree tree = new LoserTree(readers, byGrowth);
+            while (tree.hasNext()) {
+                writer.write(tree.next());
+            }
+            metrics.countComparisons(tree.comparisons());
+        } finally {
+            for (RunReader reader : readers) {
+                if (reader != null) {
+                    reader.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a chunk of an array as long keys.
+     *
+     * @param file   The file with the array.
+     * @param header The header of the array.
+     * @param from   The index of the first element of the chunk.
+     * @param length The number of elements of the chunk.
+     * @return The keys of the elements.
+     */
+    private static long[] readChunk(Path file, ArrayFiles.Header header, long from, int length) throws IOException {
+        long[] keys = new long[length];
+        ByteBuffer buffer = ByteBuffer.allocateDirect(RUN_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        int elementBytes = header.type().bytes();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = header.dataPosition() + from * elementBytes;
+            for (int i = 0; i < length; ) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), (long) (length - i) * elementBytes));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, position + buffer.position()) < 0) {
+                        throw new IOException("Unexpected end of " + file);
+                    }
+                }
+                position += buffer.position();
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    keys[i++] = switch (header.type()) {
+                        case INT -> buffer.getInt();
+                        case LONG -> buffer.getLong();
+                        case DOUBLE -> RadixSort.sortableBits(buffer.getDouble());
+                    };
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Writes sorted keys to a new temporary file.
+     *
+     * @param keys The sorted keys.
+     * @return The run.
+     */
+    private Run writeRun(long[] keys) throws IOException {
+        Path file = Files.createTempFile(tempDirectory, "run", ".bin");
+        try (RunWriter writer = new RunWriter(file, RUN_BUFFER_BYTES)) {
+            for (long key : keys) {
+                writer.write(key);
+            }
+        }
+        return new Run(file, keys.length);
+    }
+
+    /**
+     * A temporary file of sorted long keys.
+     *
+     * @param file   The file.
+     * @param length The number of keys.
+     */
+    private record Run(Path file, long length) {
+    }
+
+    /**
+     * Reads the keys of a run through a buffer.
+     */
+    private static final class RunReader implements LoserTree.LongCursor, Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private long remaining;
+
+        RunReader(Run run, int bufferBytes) throws IOException {
+            this.channel = FileChannel.open(run.file(), StandardOpenOption.READ);
+            this.buffer = ByteBuffer.allocateDirect(bufferBytes).order(ByteOrder.LITTLE_ENDIAN);
+            this.buffer.limit(0);
+            this.remaining = run.length();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public long next() {
+            if (!buffer.hasRemaining()) {
+                // Fill the buffer with whole keys, as many as are left
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), remaining * Long.BYTES));
+                try {
+                    while (buffer.hasRemaining()) {
+                        if (channel.read(buffer) < 0) {
+                            throw new IOException("Unexpected end of a run");
+                        }
+                    }
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+                buffer.flip();
+            }
+            remaining--;
+            return buffer.getLong();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Writes keys through a buffer, either as the raw long keys of a run or as the elements of an array file.
+     */
+    private static final class RunWriter implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+
+        /**
+         * The type of the elements of the array file, or null for a run.
+         */
+        private final ArrayFiles.ElementType type;
+
+        /**
+         * Opens a run for writing.
+         */
+        RunWriter(Path file, int bufferBytes) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.buffer = ByteBuffer.allocateDirect(bufferBytes).order(ByteOrder.LITTLE_ENDIAN);
+            this.type = null;
+        }
+
+        /**
+         * Opens an array file for writing the elements of an array of the same type and shape as the input.
+         */
+        RunWriter(Path file, ArrayFiles.Header header, int bufferBytes) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.buffer = ByteBuffer.allocateDirect(bufferBytes).order(ByteOrder.LITTLE_ENDIAN);
+            this.type = header.type();
+            ArrayFiles.writeHeader(channel, type, header.dimensions(), header.rows(), header.columns());
+        }
+
+        /**
+         * Writes a key.
+         */
+        void write(long key) throws IOException {
+            if (buffer.remaining() < Long.BYTES) {
+                flush();
+            }
+            if (type == null || type == ArrayFiles.ElementType.LONG) {
+                buffer.putLong(key);
+            } else if (type == ArrayFiles.ElementType.INT) {
+                buffer.putInt((int) key);
+            } else {
+                buffer.putDouble(RadixSort.fromSortableBits(key));
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+
+        /**
+         * Writes the buffered bytes to the file.
+         */
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
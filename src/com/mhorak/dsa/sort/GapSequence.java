@@ -0,0 +1,121 @@
+package com.mhorak.dsa.sort;
+
+import java.util.Arrays;
+
+/**
+ * The gap sequences of Shell Sort. Every sequence ends with the gap 1, which is a plain insertion sort,
+ * so all of them sort correctly; they differ in how much the earlier passes leave for the later ones.
+ */
+public enum GapSequence {
+    /**
+     * Shell's original sequence n/2, n/4, ..., 1. Even and odd positions are not compared until the last
+     * pass, so it needs quadratic time on unlucky inputs.
+     */
+    HALVING,
+    /**
+     * Ciura's experimentally found gaps 1, 4, 10, 23, 57, 132, 301, 701, 1750, extended by a factor of 2.25.
+     * It needs the fewest comparisons of these sequences.
+     */
+    CIURA,
+    /**
+     * Tokuda's gaps ceil(h), where h = 2.25 * h + 1 starting at h = 1: 1, 4, 9, 20, 46, 103, ...
+     */
+    TOKUDA,
+    /**
+     * Sedgewick's gaps 1 and 4^k + 3 * 2^(k-1) + 1: 1, 8, 23, 77, 281, ..., with O(n^(4/3)) time
+     * in the worst case.
+     */
+    SEDGEWICK,
+    /**
+     * Pratt's gaps 2^p * 3^q: 1, 2, 3, 4, 6, 8, 9, 12, ..., with O(n log^2 n) time in the worst case,
+     * but many passes.
+     */
+    PRATT;
+
+    /**
+     * The sequence used when none is given. Sedgewick's gaps make about a quarter more comparisons than
+     * Ciura's, but take fewer passes over the array, which makes them the fastest for random int values
+     * from 10^5 to 10^7 elements.
+     */
+    public static final GapSequence DEFAULT = SEDGEWICK;
+
+    /**
+     * Ciura's measured gaps, which are extended by a factor of 2.25 beyond the last one.
+     */
+    private static final int[] CIURA_GAPS = {1, 4, 10, 23, 57, 132, 301, 701, 1750};
+
+    /**
+     * Calculates the gaps for an array of the given length, from the largest gap that is smaller than the length
+     * down to 1. Arrays of at most one element get no gaps.
+     *
+     * @param length The length of the array to be sorted.
+     * @return The gaps in the order of the passes.
+     */
+    public int[] gaps(int length) {
+        if (length < 2) {
+            return new int[0];
+        }
+
+        // Collect the gaps below the length in ascending order
+        long[] ascending = new long[64];
+        int count = 0;
+        switch (this) {
+            case HALVING -> {
+                for (long gap = length / 2; gap > 0; gap /= 2) {
+                    ascending[count++] = gap;
+                }
+                reverse(ascending, count);
+            }
+            case CIURA -> {
+                long gap = 1;
+                for (int k = 0; gap < length; k++) {
+                    ascending[count++] = gap;
+                    gap = k + 1 < CIURA_GAPS.length ? CIURA_GAPS[k + 1] : (long) (gap * 2.25);
+                }
+            }
+            case TOKUDA -> {
+                for (double h = 1; Math.ceil(h) < length; h = 2.25 * h + 1) {
+                    ascending[count++] = (long) Math.ceil(h);
+                }
+            }
+            case SEDGEWICK -> {
+                ascending[count++] = 1;
+                for (int k = 1; (1L << 2 * k) + 3L * (1L << k - 1) + 1 < length; k++) {
+                    ascending[count++] = (1L << 2 * k) + 3L * (1L << k - 1) + 1;
+                }
+            }
+            case PRATT -> {
+                for (long powerOfThree = 1; powerOfThree < length; powerOfThree *= 3) {
+                    for (long gap = powerOfThree; gap < length; gap *= 2) {
+                        if (count == ascending.length) {
+                            ascending = Arrays.copyOf(ascending, count * 2);
+                        }
+                        ascending[count++] = gap;
+                    }
+                }
+                Arrays.sort(ascending, 0, count);
+            }
+        }
+
+        // The passes go from the largest gap to the smallest
+        int[] gaps = new int[count];
+        for (int i = 0; i < count; i++) {
+            gaps[i] = (int) ascending[count - 1 - i];
+        }
+        return gaps;
+    }
+
+    /**
+     * Reverses the first elements of an array.
+     *
+     * @param values The array.
+     * @param count  The number of elements to reverse.
+     */
+    private static void reverse(long[] values, int count) {
+        for (int i = 0, j = count - 1; i < j; i++, j--) {
+            long temp = values[i];
+            values[i] = values[j];
+            values[j] = temp;
+        }
+    }
+}
@@ -13,6 +13,15 @@ public interface IndividualSorting {
      */
     Double[] sortIndividual(Double[] arrayOfNumbers);
 
+    /**
+     * Sorts a one-dimensional array of double values in the order of {@link Double#compare(double, double)}:
+     * -0.0 before 0.0 and NaN after all other values (before them in descending order).
+     *
+     * @param arrayOfNumbers The array of double values to be sorted.
+     * @return The sorted array of double values.
+     */
+    double[] sortIndividual(double[] arrayOfNumbers);
+
     /**
      * Sorts a two-dimensional array of Double elements.
      *
@@ -0,0 +1,337 @@
+package com.mhorak.dsa.sort;
+
+import static com.mhorak.dsa.sort.IntroSort.INSERTION_SORT_THRESHOLD;
+import static com.mhorak.dsa.sort.IntroSort.greaterStart;
+import static com.mhorak.dsa.sort.IntroSort.lessEnd;
+
+/**
+ * The introselect kernels of {@link QuickSort} for primitive arrays, which find order statistics without sorting.
+ * <p>
+ * A range is partitioned with the three-way partitioning of {@link IntroSort}, but only the part that holds the
+ * wanted rank is partitioned further, so the expected time is linear. Ranks that fall among the elements equal to
+ * the pivot are found without going deeper. Several ranks are found in one pass by splitting them between the
+ * parts at every partition and following only the parts that hold some of them. Like introsort, a range that
+ * is still unresolved after {@link IntroSort#depthLimit(int)} levels is heapsorted, which bounds the time by
+ * O(n log n) even for inputs that defeat the pivot choice.
+ * <p>
+ * The counters advance by the number of elements that are ruled out, so the total work of a selection is the
+ * length of the array. Double values are compared by the kernels of {@link IntroSort}, in the order of
+ * {@link Double#compare(double, double)}, so selections agree with sorting.
+ */
+final class IntroSelect {
+
+    private IntroSelect() {
+    }
+
+    /**
+     * Finds the first of sorted ranks that is at least a given index.
+     *
+     * @param ranks The ranks in ascending order.
+     * @param from  The first rank to search.
+     * @param to    The end of the ranks to search.
+     * @param index The index.
+     * @return The position of the first rank that is at least the index, or {@code to} if there is none.
+     */
+    private static int firstRankFrom(int[] ranks, int from, int to, int index) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (ranks[mid] < index) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Rearranges the range [first, last] of an array of int values so that the element at index k is the one that
+     * would be there if the range were sorted, with no greater element before it and no smaller element after it.
+     *
+     * @param array      The array.
+     * @param first      The index of the first element to be considered.
+     * @param last       The index of the last element to be considered.
+     * @param k          The index to be found, between first and last.
+     * @param depthLimit The number of partitioning levels left before the range is heapsorted.
+     * @param counter    The counter of comparisons and moves.
+     * @return Whether the depth limit was reached and a range was heapsorted.
+     */
+    static boolean select(int[] array, int first, int last, int k, int depthLimit, OperationCounter counter) {
+        boolean heapsorted = false;
+        while (last - first >= INSERTION_SORT_THRESHOLD) {
+            if (depthLimit == 0) {
+                IntroSort.heapSort(array, first, last, counter);
+                heapsorted = true;
+                break;
+            }
+            depthLimit--;
+
+            long bounds = IntroSort.partition(array, first, last, counter);
+            int lessEnd = lessEnd(bounds), greaterStart = greaterStart(bounds);
+            // Continue with the part that holds k; the other parts are ruled out
+            if (k <= lessEnd) {
+                counter.advance(last - lessEnd);
+                last = lessEnd;
+            } else if (k >= greaterStart) {
+                counter.advance(greaterStart - first);
+                first = greaterStart;
+            } else {
+                // k is among the elements equal to the pivot
+                counter.advance(last - first + 1);
+                return false;
+            }
+        }
+        if (!heapsorted) {
+            IntroSort.insertionSort(array, first, last, counter);
+        }
+        counter.advance(last - first + 1);
+        return heapsorted;
+    }
+
+    /**
+     * Rearranges the range [first, last] of an array of int values so that every one of several indices holds the
+     * element that would be there if the range were sorted, like {@link #select(int[], int, int, int, int,
+     * OperationCounter)} for each of them, with one partitioning shared by all indices it separates.
+     *
+     * @param array      The array.
+     * @param first      The index of the first element to be considered.
+     * @param last       The index of the last element to be considered.
+     * @param ranks      The indices to be found in ascending order.
+     * @param rankFrom   The position of the first index of the range.
+     * @param rankTo     The end of the indices of the range, which are all between first and last.
+     * @param depthLimit The number of partitioning levels left before a range is heapsorted.
+     * @param counter    The counter of comparisons and moves.
+     * @return Whether the depth limit was reached and a range was heapsorted.
+     */
+    static boolean selectAll(int[] array, int first, int last, int[] ranks, int rankFrom, int rankTo, int depthLimit,
+                             OperationCounter counter) {
+        boolean heapsorted = false;
+        while (rankFrom < rankTo) {
+            if (last - first < INSERTION_SORT_THRESHOLD) {
+                IntroSort.insertionSort(array, first, last, counter);
+                counter.advance(last - first + 1);
+                return heapsorted;
+            }
+            if (depthLimit == 0) {
+                IntroSort.heapSort(array, first, last, counter);
+                counter.advance(last - first + 1);
+                return true;
+            }
+            depthLimit--;
+
+            long bounds = IntroSort.partition(array, first, last, counter);
+            int lessEnd = lessEnd(bounds), greaterStart = greaterStart(bounds);
+            // Split the ranks between the parts; those among the elements equal to the pivot are found
+            int lessTo = firstRankFrom(ranks, rankFrom, rankTo, lessEnd + 1);
+            int greaterFrom = firstRankFrom(ranks, lessTo, rankTo, greaterStart);
+            counter.advance(greaterStart - lessEnd - 1);
+            if (lessTo == rankFrom) {
+                counter.advance(lessEnd - first + 1);
+            } else {
+                heapsorted |= selectAll(array, first, lessEnd, ranks, rankFrom, lessTo, depthLimit, counter);
+            }
+
+            // Continue the loop with the "greater" part
+            if (greaterFrom == rankTo) {
+                counter.advance(last - greaterStart + 1);
+            }
+            first = greaterStart;
+            rankFrom = greaterFrom;
+        }
+        return heapsorted;
+    }
+
+    /**
+     * Rearranges the range [first, last] of an array of long values so that the element at index k is the one that
+     * would be there if the range were sorted, with no greater element before it and no smaller element after it.
+     *
+     * @param array      The array.
+     * @param first      The index of the first element to be considered.
+     * @param last       The index of the last element to be considered.
+     * @param k          The index to be found, between first and last.
+     * @param depthLimit The number of partitioning levels left before the range is heapsorted.
+     * @param counter    The counter of comparisons and moves.
+     * @return Whether the depth limit was reached and a range was heapsorted.
+     */
+    static boolean select(long[] array, int first, int last, int k, int depthLimit, OperationCounter counter) {
+        boolean heapsorted = false;
+        while (last - first >= INSERTION_SORT_THRESHOLD) {
+            if (depthLimit == 0) {
+                IntroSort.heapSort(array, first, last, counter);
+                heapsorted = true;
+                break;
+            }
+            depthLimit--;
+
+            long bounds = IntroSort.partition(array, first, last, counter);
+            int lessEnd = lessEnd(bounds), greaterStart = greaterStart(bounds);
+            // Continue with the part that holds k; the other parts are ruled out
+            if (k <= lessEnd) {
+                counter.advance(last - lessEnd);
+                last = lessEnd;
+            } else if (k >= greaterStart) {
+                counter.advance(greaterStart - first);
+                first = greaterStart;
+            } else {
+                // k is among the elements equal to the pivot
+                counter.advance(last - first + 1);
+                return false;
+            }
+        }
+        if (!heapsorted) {
+            IntroSort.insertionSort(array, first, last, counter);
+        }
+        counter.advance(last - first + 1);
+        return heapsorted;
+    }
+
+    /**
+     * Rearranges the range [first, last] of an array of long values so that every one of several indices holds the
+     * element that would be there if the range were sorted, like {@link #select(long[], int, int, int, int,
+     * OperationCounter)} for each of them, with one partitioning shared by all indices it separates.
+     *
+     * @param array      The array.
+     * @param first      The index of the first element to be considered.
+     * @param last       The index of the last element to be considered.
+     * @param ranks      The indices to be found in ascending order.
+     * @param rankFrom   The position of the first index of the range.
+     * @param rankTo     The end of the indices of the range, which are all between first and last.
+     * @param depthLimit The number of partitioning levels left before a range is heapsorted.
+     * @param counter    The counter of comparisons and moves.
+     * @return Whether the depth limit was reached and a range was heapsorted.
+     */
+    static boolean selectAll(long[] array, int first, int last, int[] ranks, int rankFrom, int rankTo, int depthLimit,
+                             OperationCounter counter) {
+        boolean heapsorted = false;
+        while (rankFrom < rankTo) {
+            if (last - first < INSERTION_SORT_THRESHOLD) {
+                IntroSort.insertionSort(array, first, last, counter);
+                counter.advance(last - first + 1);
+                return heapsorted;
+            }
+            if (depthLimit == 0) {
+                IntroSort.heapSort(array, first, last, counter);
+                counter.advance(last - first + 1);
+                return true;
+            }
+            depthLimit--;
+
+            long bounds = IntroSort.partition(array, first, last, counter);
+            int lessEnd = lessEnd(bounds), greaterStart = greaterStart(bounds);
+            // Split the ranks between the parts; those among the elements equal to the pivot are found
+            int lessTo = firstRankFrom(ranks, rankFrom, rankTo, lessEnd + 1);
+            int greaterFrom = firstRankFrom(ranks, lessTo, rankTo, greaterStart);
+            counter.advance(greaterStart - lessEnd - 1);
+            if (lessTo == rankFrom) {
+                counter.advance(lessEnd - first + 1);
+            } else {
+                heapsorted |= selectAll(array, first, lessEnd, ranks, rankFrom, lessTo, depthLimit, counter);
+            }
+
+            // Continue the loop with the "greater" part
+            if (greaterFrom == rankTo) {
+                counter.advance(last - greaterStart + 1);
+            }
+            first = greaterStart;
+            rankFrom = greaterFrom;
+        }
+        return heapsorted;
+    }
+
+    /**
+     * Rearranges the range [first, last] of an array of double values so that the element at index k is the one that
+     * would be there if the range were sorted, with no greater element before it and no smaller element after it.
+     *
+     * @param array      The array.
+     * @param first      The index of the first element to be considered.
+     * @param last       The index of the last element to be considered.
+     * @param k          The index to be found, between first and last.
+     * @param depthLimit The number of partitioning levels left before the range is heapsorted.
+     * @param counter    The counter of comparisons and moves.
+     * @return Whether the depth limit was reached and a range was heapsorted.
+     */
+    static boolean select(double[] array, int first, int last, int k, int depthLimit, OperationCounter counter) {
+        boolean heapsorted = false;
+        while (last - first >= INSERTION_SORT_THRESHOLD) {
+            if (depthLimit == 0) {
+                IntroSort.heapSort(array, first, last, counter);
+                heapsorted = true;
+                break;
+            }
+            depthLimit--;
+
+            long bounds = IntroSort.partition(array, first, last, counter);
+            int lessEnd = lessEnd(bounds), greaterStart = greaterStart(bounds);
+            // Continue with the part that holds k; the other parts are ruled out
+            if (k <= lessEnd) {
+                counter.advance(last - lessEnd);
+                last = lessEnd;
+            } else if (k >= greaterStart) {
+                counter.advance(greaterStart - first);
+                first = greaterStart;
+            } else {
+                // k is among the elements equal to the pivot
+                counter.advance(last - first + 1);
+                return false;
+            }
+        }
+        if (!heapsorted) {
+            IntroSort.insertionSort(array, first, last, counter);
+        }
+        counter.advance(last - first + 1);
+        return heapsorted;
+    }
+
+    /**
+     * Rearranges the range [first, last] of an array of double values so that every one of several indices holds the
+     * element that would be there if the range were sorted, like {@link #select(double[], int, int, int, int,
+     * OperationCounter)} for each of them, with one partitioning shared by all indices it separates.
+     *
+     * @param array      The array.
+     * @param first      The index of the first element to be considered.
+     * @param last       The index of the last element to be considered.
+     * @param ranks      The indices to be found in ascending order.
+     * @param rankFrom   The position of the first index of the range.
+     * @param rankTo     The end of the indices of the range, which are all between first and last.
+     * @param depthLimit The number of partitioning levels left before a range is heapsorted.
+     * @param counter    The counter of comparisons and moves.
+     * @return Whether the depth limit was reached and a range was heapsorted.
+     */
+    static boolean selectAll(double[] array, int first, int last, int[] ranks, int rankFrom, int rankTo, int depthLimit,
+                             OperationCounter counter) {
+        boolean heapsorted = false;
+        while (rankFrom < rankTo) {
+            if (last - first < INSERTION_SORT_THRESHOLD) {
+                IntroSort.insertionSort(array, first, last, counter);
+                counter.advance(last - first + 1);
+                return heapsorted;
+            }
+            if (depthLimit == 0) {
+                IntroSort.heapSort(array, first, last, counter);
+                counter.advance(last - first + 1);
+                return true;
+            }
+            depthLimit--;
+
+            long bounds = IntroSort.partition(array, first, last, counter);
+            int lessEnd = lessEnd(bounds), greaterStart = greaterStart(bounds);
+            // Split the ranks between the parts; those among the elements equal to the pivot are found
+            int lessTo = firstRankFrom(ranks, rankFrom, rankTo, lessEnd + 1);
+            int greaterFrom = firstRankFrom(ranks, lessTo, rankTo, greaterStart);
+            counter.advance(greaterStart - lessEnd - 1);
+            if (lessTo == rankFrom) {
+                counter.advance(lessEnd - first + 1);
+            } else {
+                heapsorted |= selectAll(array, first, lessEnd, ranks, rankFrom, lessTo, depthLimit, counter);
+            }
+
+            // Continue the loop with the "greater" part
+            if (greaterFrom == rankTo) {
+                counter.advance(last - greaterStart + 1);
+            }
+            first = greaterStart;
+            rankFrom = greaterFrom;
+        }
+        return heapsorted;
+    }
+}
@@ -0,0 +1,725 @@
+package com.mhorak.dsa.sort;
+
+/**
+ * The introsort kernels of {@link QuickSort} for primitive arrays.
+ * <p>
+ * A range is partitioned three ways around a median-of-three (or ninther) pivot with the Bentley-McIlroy scheme, which
+ * leaves already partitioned elements in place and gathers the elements equal to the pivot in the middle. The
+ * smaller part is sorted recursively and the larger one in a loop, so the stack depth stays logarithmic.
+ * Ranges shorter than {@link #INSERTION_SORT_THRESHOLD} are insertion sorted, and ranges that are still unsorted
+ * after {@link #depthLimit(int)} levels of partitioning are heapsorted, which bounds the running time by
+ * O(n log n). Double values are sorted in the order of {@link Double#compare(double, double)}.
+ */
+final class IntroSort {
+    /**
+     * Ranges with fewer elements than this are sorted with insertion sort.
+     */
+    static final int INSERTION_SORT_THRESHOLD = 24;
+
+    /**
+     * Ranges with at least this many elements take the ninther as the pivot instead of the median of three.
+     */
+    static final int NINTHER_THRESHOLD = 128;
+
+    private IntroSort() {
+    }
+
+    /**
+     * Gets the number of partitioning levels allowed before falling back to heapsort.
+     *
+     * @param length The number of elements to be sorted.
+     * @return Twice the binary logarithm of the length.
+     */
+    static int depthLimit(int length) {
+        return 2 * (31 - Integer.numberOfLeadingZeros(Math.max(length, 1)));
+    }
+
+    /**
+     * Packs the bounds of the "less" and "greater" parts of a partition into one value.
+     *
+     * @param lessEnd      The last index of the "less" part.
+     * @param greaterStart The first index of the "greater" part.
+     * @return The packed bounds.
+     */
+    static long bounds(int lessEnd, int greaterStart) {
+        return ((long) lessEnd << 32) | (greaterStart & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Gets the last index of the "less" part from packed bounds.
+     */
+    static int lessEnd(long bounds) {
+        return (int) (bounds >> 32);
+    }
+
+    /**
+     * Gets the first index of the "greater" part from packed bounds.
+     */
+    static int greaterStart(long bounds) {
+        return (int) bounds;
+    }
+
+
+    /**
+     * Sorts an array of int values.
+     *
+     * @param array   The array to be sorted.
+     * @param counter The counter of comparisons and moves.
+     */
+    static void sort(int[] array, OperationCounter counter) {
+        sort(array, 0, array.length - 1, depthLimit(array.length), counter);
+    }
+
+    /**
+     * Sorts the range [first, last] of an array of int values.
+     *
+     * @param array      The array to be sorted.
+     * @param first      The index of the first element to be considered.
+     * @param last       The index of the last element to be considered.
+     * @param depthLimit The number of partitioning levels left before the range is heapsorted.
+     * @param counter    The counter of comparisons and moves.
+     */
+    static void sort(int[] array, int first, int last, int depthLimit, OperationCounter counter) {
+        while (last - first >= INSERTION_SORT_THRESHOLD) {
+            if (depthLimit == 0) {
+                heapSort(array, first, last, counter);
+                counter.advance(last - first + 1);
+                return;
+            }
+            depthLimit--;
+
+            long bounds = partition(array, first, last, counter);
+            int lessEnd = lessEnd(bounds), greaterStart = greaterStart(bounds);
+            // The elements equal to the pivot are in their final place
+            counter.advance(greaterStart - lessEnd - 1);
+
+            // Recurse into the smaller part and continue the loop with the larger one
+            if (lessEnd - first < last - greaterStart) {
+                sort(array, first, lessEnd, depthLimit, counter);
+                first = greaterStart;
+            } else {
+                sort(array, greaterStart, last, depthLimit, counter);
+                last = lessEnd;
+            }
+        }
+        insertionSort(array, first, last, counter);
+        counter.advance(last - first + 1);
+    }
+
+    /**
+     * Partitions the range [first, last] into elements less than, equal to and greater than a median-of-three
+     * pivot. The elements equal to the pivot end up in their final place, which makes inputs with few distinct
+     * values cheap to sort.
+     *
+     * @param array   The array to be partitioned.
+     * @param first   The index of the first element to be considered.
+     * @param last    The index of the last element to be considered.
+     * @param counter The counter of comparisons and moves.
+     * @return The last index of the "less" part and the first index of the "greater" part, packed by {@link #bounds}.
+     */
+    static long partition(int[] array, int first, int last, OperationCounter counter) {
+        // Move the pivot to the front of the range
+        swap(array, first, choosePivot(array, first, last, counter));
+        int pivot = array[first];
+        long comparisons = 0, moves = 2;
+
+        // Bentley-McIlroy partitioning: elements equal to the pivot are parked at both ends of the range
+        // while the rest is partitioned in the middle, and then they are swapped into the center
+        int i = first, j = last + 1;
+        int equalLeft = first, equalRight = last + 1;
+        while (true) {
+            while (i < last && array[++i] < pivot) {
+                comparisons++;
+            }
+            while (j > first && pivot < array[--j]) {
+                comparisons++;
+            }
+            comparisons += 2;
+
+            if (i == j && array[i] == pivot) {
+                swap(array, ++equalLeft, i);
+                moves += 2;
+            }
+            if (i >= j) {
+                break;
+            }
+
+            swap(array, i, j);
+            comparisons += 2;
+            moves += 2;
+            if (array[i] == pivot) {
+                swap(array, ++equalLeft, i);
+                moves += 2;
+            }
+            if (array[j] == pivot) {
+                swap(array, --equalRight, j);
+                moves += 2;
+            }
+        }
+
+        i = j + 1;
+        for (int k = first; k <= equalLeft; k++) {
+            swap(array, k, j--);
+            moves += 2;
+        }
+        for (int k = last; k >= equalRight; k--) {
+            swap(array, k, i++);
+            moves += 2;
+        }
+
+        counter.comparisons += comparisons;
+        counter.moves += moves;
+        return bounds(j, i);
+    }
+
+    /**
+     * Sorts the range [first, last] with insertion sort, which is the fastest way for small ranges.
+     */
+    static void insertionSort(int[] array, int first, int last, OperationCounter counter) {
+        long comparisons = 0, moves = 0;
+        for (int i = first + 1; i <= last; i++) {
+            int temp = array[i];
+            int current = i - 1;
+            while (current >= first && temp < array[current]) {
+                array[current + 1] = array[current];
+                current--;
+                comparisons++;
+                moves++;
+            }
+            array[current + 1] = temp;
+            moves++;
+            if (current >= first) {
+                comparisons++;
+            }
+        }
+        counter.comparisons += comparisons;
+        counter.moves += moves;
+    }
+
+    /**
+     * Sorts the range [first, last] with heapsort, which bounds the running time by O(n log n).
+     */
+    static void heapSort(int[] array, int first, int last, OperationCounter counter) {
+        int length = last - first + 1;
+        for (int i = length / 2 - 1; i >= 0; i--) {
+            siftDown(array, first, i, length, counter);
+        }
+        for (int end = length - 1; end > 0; end--) {
+            swap(array, first, first + end);
+            counter.moves += 2;
+            siftDown(array, first, 0, end, counter);
+        }
+    }
+
+    /**
+     * Moves an element of a max-heap stored at array[offset..offset + length) down to its place.
+     */
+    private static void siftDown(int[] array, int offset, int index, int length, OperationCounter counter) {
+        int value = array[offset + index];
+        int child;
+        while ((child = 2 * index + 1) < length) {
+            if (child + 1 < length) {
+                counter.comparisons++;
+                if (array[offset + child] < array[offset + child + 1]) {
+                    child++;
+                }
+            }
+            counter.comparisons++;
+            if (value >= array[offset + child]) {
+                break;
+            }
+            array[offset + index] = array[offset + child];
+            counter.moves++;
+            index = child;
+        }
+        array[offset + index] = value;
+        counter.moves++;
+    }
+
+    /**
+     * Chooses the pivot of a range: the median of three elements, or for large ranges Tukey's ninther, the median
+     * of the medians of three groups of three, which guards against patterns like reversed runs.
+     *
+     * @return The index of the pivot.
+     */
+    private static int choosePivot(int[] array, int first, int last, OperationCounter counter) {
+        int mid = (first + last) >>> 1;
+        if (last - first < NINTHER_THRESHOLD) {
+            counter.comparisons += 3;
+            return medianOfThree(array, first, mid, last);
+        }
+
+        int step = (last - first) / 8;
+        counter.comparisons += 12;
+        return medianOfThree(array,
+                medianOfThree(array, first, first + step, first + 2 * step),
+                medianOfThree(array, mid - step, mid, mid + step),
+                medianOfThree(array, last - 2 * step, last - step, last));
+    }
+
+    /**
+     * Gets the index of the middle one of three elements.
+     */
+    private static int medianOfThree(int[] array, int a, int b, int c) {
+        if (array[a] < array[b]) {
+            return array[b] < array[c] ? b : (array[a] < array[c] ? c : a);
+        }
+        return array[a] < array[c] ? a : (array[b] < array[c] ? c : b);
+    }
+
+    /**
+     * Swaps two elements of an array of int values.
+     */
+    static void swap(int[] array, int first, int second) {
+        int temp = array[first];
+        array[first] = array[second];
+        array[second] = temp;
+    }
+
+    /**
+     * Sorts an array of long values.
+     *
+     * @param array   The array to be sorted.
+     * @param counter The counter of comparisons and moves.
+     */
+    static void sort(long[] array, OperationCounter counter) {
+        sort(array, 0, array.length - 1, depthLimit(array.length), counter);
+    }
+
+    /**
+     * Sorts the range [first, last] of an array of long values.
+     *
+     * @param array      The array to be sorted.
+     * @param first      The index of the first element to be considered.
+     * @param last       The index of the last element to be considered.
+     * @param depthLimit The number of partitioning levels left before the range is heapsorted.
+     * @param counter    The counter of comparisons and moves.
+     */
+    static void sort(long[] array, int first, int last, int depthLimit, OperationCounter counter) {
+        while (last - first >= INSERTION_SORT_THRESHOLD) {
+            if (depthLimit == 0) {
+                heapSort(array, first, last, counter);
+                counter.advance(last - first + 1);
+                return;
+            }
+            depthLimit--;
+
+            long bounds = partition(array, first, last, counter);
+            int lessEnd = lessEnd(bounds), greaterStart = greaterStart(bounds);
+            // The elements equal to the pivot are in their final place
+            counter.advance(greaterStart - lessEnd - 1);
+
+            // Recurse into the smaller part and continue the loop with the larger one
+            if (lessEnd - first < last - greaterStart) {
+                sort(array, first, lessEnd, depthLimit, counter);
+                first = greaterStart;
+            } else {
+                sort(array, greaterStart, last, depthLimit, counter);
+                last = lessEnd;
+            }
+        }
+        insertionSort(array, first, last, counter);
+        counter.advance(last - first + 1);
+    }
+
+    /**
+     * Partitions the range [first, last] into elements less than, equal to and greater than a median-of-three
+     * pivot. The elements equal to the pivot end up in their final place, which makes inputs with few distinct
+     * values cheap to sort.
+     *
+     * @param array   The array to be partitioned.
+     * @param first   The index of the first element to be considered.
+     * @param last    The index of the last element to be considered.
+     * @param counter The counter of comparisons and moves.
+     * @return The last index of the "less" part and the first index of the "greater" part, packed by {@link #bounds}.
+     */
+    static long partition(long[] array, int first, int last, OperationCounter counter) {
+        // Move the pivot to the front of the range
+        swap(array, first, choosePivot(array, first, last, counter));
+        long pivot = array[first];
+        long comparisons = 0, moves = 2;
+
+        // Bentley-McIlroy partitioning: elements equal to the pivot are parked at both ends of the range
+        // while the rest is partitioned in the middle, and then they are swapped into the center
+        int i = first, j = last + 1;
+        int equalLeft = first, equalRight = last + 1;
+        while (true) {
+            while (i < last && array[++i] < pivot) {
+                comparisons++;
+            }
+            while (j > first && pivot < array[--j]) {
+                comparisons++;
+            }
+            comparisons += 2;
+
+            if (i == j && array[i] == pivot) {
+                swap(array, ++equalLeft, i);
+                moves += 2;
+            }
+            if (i >= j) {
+                break;
+            }
+
+            swap(array, i, j);
+            comparisons += 2;
+            moves += 2;
+            if (array[i] == pivot) {
+                swap(array, ++equalLeft, i);
+                moves += 2;
+            }
+            if (array[j] == pivot) {
+                swap(array, --equalRight, j);
+                moves += 2;
+            }
+        }
+
+        i = j + 1;
+        for (int k = first; k <= equalLeft; k++) {
+            swap(array, k, j--);
+            moves += 2;
+        }
+        for (int k = last; k >= equalRight; k--) {
+            swap(array, k, i++);
+            moves += 2;
+        }
+
+        counter.comparisons += comparisons;
+        counter.moves += moves;
+        return bounds(j, i);
+    }
+
+    /**
+     * Sorts the range [first, last] with insertion sort, which is the fastest way for small ranges.
+     */
+    static void insertionSort(long[] array, int first, int last, OperationCounter counter) {
+        long comparisons = 0, moves = 0;
+        for (int i = first + 1; i <= last; i++) {
+            long temp = array[i];
+            int current = i - 1;
+            while (current >= first && temp < array[current]) {
+                array[current + 1] = array[current];
+                current--;
+                comparisons++;
+                moves++;
+            }
+            array[current + 1] = temp;
+            moves++;
+            if (current >= first) {
+                comparisons++;
+            }
+        }
+        counter.comparisons += comparisons;
+        counter.moves += moves;
+    }
+
+    /**
+     * Sorts the range [first, last] with heapsort, which bounds the running time by O(n log n).
+     */
+    static void heapSort(long[] array, int first, int last, OperationCounter counter) {
+        int length = last - first + 1;
+        for (int i = length / 2 - 1; i >= 0; i--) {
+            siftDown(array, first, i, length, counter);
+        }
+        for (int end = length - 1; end > 0; end--) {
+            swap(array, first, first + end);
+            counter.moves += 2;
+            siftDown(array, first, 0, end, counter);
+        }
+    }
+
+    /**
+     * Moves an element of a max-heap stored at array[offset..offset + length) down to its place.
+     */
+    private static void siftDown(long[] array, int offset, int index, int length, OperationCounter counter) {
+        long value = array[offset + index];
+        int child;
+        while ((child = 2 * index + 1) < length) {
+            if (child + 1 < length) {
+                counter.comparisons++;
+                if (array[offset + child] < array[offset + child + 1]) {
+                    child++;
+                }
+            }
+            counter.comparisons++;
+            if (value >= array[offset + child]) {
+                break;
+            }
+            array[offset + index] = array[offset + child];
+            counter.moves++;
+            index = child;
+        }
+        array[offset + index] = value;
+        counter.moves++;
+    }
+
+    /**
+     * Chooses the pivot of a range: the median of three elements, or for large ranges Tukey's ninther, the median
+     * of the medians of three groups of three, which guards against patterns like reversed runs.
+     *
+     * @return The index of the pivot.
+     */
+    private static int choosePivot(long[] array, int first, int last, OperationCounter counter) {
+        int mid = (first + last) >>> 1;
+        if (last - first < NINTHER_THRESHOLD) {
+            counter.comparisons += 3;
+            return medianOfThree(array, first, mid, last);
+        }
+
+        int step = (last - first) / 8;
+        counter.comparisons += 12;
+        return medianOfThree(array,
+                medianOfThree(array, first, first + step, first + 2 * step),
+                medianOfThree(array, mid - step, mid, mid + step),
+                medianOfThree(array, last - 2 * step, last - step, last));
+    }
+
+    /**
+     * Gets the index of the middle one of three elements.
+     */
+    private static int medianOfThree(long[] array, int a, int b, int c) {
+        if (array[a] < array[b]) {
+            return array[b] < array[c] ? b : (array[a] < array[c] ? c : a);
+        }
+        return array[a] < array[c] ? a : (array[b] < array[c] ? c : b);
+    }
+
+    /**
+     * Swaps two elements of an array of long values.
+     */
+    static void swap(long[] array, int first, int second) {
+        long temp = array[first];
+        array[first] = array[second];
+        array[second] = temp;
+    }
+
+    /**
+     * Sorts an array of double values.
+     *
+     * @param array   The array to be sorted.
+     * @param counter The counter of comparisons and moves.
+     */
+    static void sort(double[] array, OperationCounter counter) {
+        sort(array, 0, array.length - 1, depthLimit(array.length), counter);
+    }
+
+    /**
+     * Sorts the range [first, last] of an array of double values.
+     *
+     * @param array      The array to be sorted.
+     * @param first      The index of the first element to be considered.
+     * @param last       The index of the last element to be considered.
+     * @param depthLimit The number of partitioning levels left before the range is heapsorted.
+     * @param counter    The counter of comparisons and moves.
+     */
+    static void sort(double[] array, int first, int last, int depthLimit, OperationCounter counter) {
+        while (last - first >= INSERTION_SORT_THRESHOLD) {
+            if (depthLimit == 0) {
+                heapSort(array, first, last, counter);
+                counter.advance(last - first + 1);
+                return;
+            }
+            depthLimit--;
+
+            long bounds = partition(array, first, last, counter);
+            int lessEnd = lessEnd(bounds), greaterStart = greaterStart(bounds);
+            // The elements equal to the pivot are in their final place
+            counter.advance(greaterStart - lessEnd - 1);
+
+            // Recurse into the smaller part and continue the loop with the larger one
+            if (lessEnd - first < last - greaterStart) {
+                sort(array, first, lessEnd, depthLimit, counter);
+                first = greaterStart;
+            } else {
+                sort(array, greaterStart, last, depthLimit, counter);
+                last = lessEnd;
+            }
+        }
+        insertionSort(array, first, last, counter);
+        counter.advance(last - first + 1);
+    }
+
+    /**
+     * Partitions the range [first, last] into elements less than, equal to and greater than a median-of-three
+     * pivot. The elements equal to the pivot end up in their final place, which makes inputs with few distinct
+     * values cheap to sort.
+     *
+     * @param array   The array to be partitioned.
+     * @param first   The index of the first element to be considered.
+     * @param last    The index of the last element to be considered.
+     * @param counter The counter of comparisons and moves.
+     * @return The last index of the "less" part and the first index of the "greater" part, packed by {@link #bounds}.
+     */
+    static long partition(double[] array, int first, int last, OperationCounter counter) {
+        // Move the pivot to the front of the range
+        swap(array, first, choosePivot(array, first, last, counter));
+        double pivot = array[first];
+        long comparisons = 0, moves = 2;
+
+        // Bentley-McIlroy partitioning: elements equal to the pivot are parked at both ends of the range
+        // while the rest is partitioned in the middle, and then they are swapped into the center
+        int i = first, j = last + 1;
+        int equalLeft = first, equalRight = last + 1;
+        while (true) {
+            while (i < last && less(array[++i], pivot)) {
+                comparisons++;
+            }
+            while (j > first && less(pivot, array[--j])) {
+                comparisons++;
+            }
+            comparisons += 2;
+
+            if (i == j && equal(array[i], pivot)) {
+                swap(array, ++equalLeft, i);
+                moves += 2;
+            }
+            if (i >= j) {
+                break;
+            }
+
+            swap(array, i, j);
+            comparisons += 2;
+            moves += 2;
+            if (equal(array[i], pivot)) {
+                swap(array, ++equalLeft, i);
+                moves += 2;
+            }
+            if (equal(array[j], pivot)) {
+                swap(array, --equalRight, j);
+                moves += 2;
+            }
+        }
+
+        i = j + 1;
+        for (int k = first; k <= equalLeft; k++) {
+            swap(array, k, j--);
+            moves += 2;
+        }
+        for (int k = last; k >= equalRight; k--) {
+            swap(array, k, i++);
+            moves += 2;
+        }
+
+        counter.comparisons += comparisons;
+        counter.moves += moves;
+        return bounds(j, i);
+    }
+
+    /**
+     * Sorts the range [first, last] with insertion sort, which is the fastest way for small ranges.
+     */
+    static void insertionSort(double[] array, int first, int last, OperationCounter counter) {
+        long comparisons = 0, moves = 0;
+        for (int i = first + 1; i <= last; i++) {
+            double temp = array[i];
+            int current = i - 1;
+            while (current >= first && less(temp, array[current])) {
+                array[current + 1] = array[current];
+                current--;
+                comparisons++;
+                moves++;
+            }
+            array[current + 1] = temp;
+            moves++;
+            if (current >= first) {
+                comparisons++;
+            }
+        }
+        counter.comparisons += comparisons;
+        counter.moves += moves;
+    }
+
+    /**
+     * Sorts the range [first, last] with heapsort, which bounds the running time by O(n log n).
+     */
+    static void heapSort(double[] array, int first, int last, OperationCounter counter) {
+        int length = last - first + 1;
+        for (int i = length / 2 - 1; i >= 0; i--) {
+            siftDown(array, first, i, length, counter);
+        }
+        for (int end = length - 1; end > 0; end--) {
+            swap(array, first, first + end);
+            counter.moves += 2;
+            siftDown(array, first, 0, end, counter);
+        }
+    }
+
+    /**
+     * Moves an element of a max-heap stored at array[offset..offset + length) down to its place.
+     */
+    private static void siftDown(double[] array, int offset, int index, int length, OperationCounter counter) {
+        double value = array[offset + index];
+        int child;
+        while ((child = 2 * index + 1) < length) {
+            if (child + 1 < length) {
+                counter.comparisons++;
+                if (less(array[offset + child], array[offset + child + 1])) {
+                    child++;
+                }
+            }
+            counter.comparisons++;
+            if (!less(value, array[offset + child])) {
+                break;
+            }
+            array[offset + index] = array[offset + child];
+            counter.moves++;
+            index = child;
+        }
+        array[offset + index] = value;
+        counter.moves++;
+    }
+
+    /**
+     * Chooses the pivot of a range: the median of three elements, or for large ranges Tukey's ninther, the median
+     * of the medians of three groups of three, which guards against patterns like reversed runs.
+     *
+     * @return The index of the pivot.
+     */
+    private static int choosePivot(double[] array, int first, int last, OperationCounter counter) {
+        int mid = (first + last) >>> 1;
+        if (last - first < NINTHER_THRESHOLD) {
+            counter.comparisons += 3;
+            return medianOfThree(array, first, mid, last);
+        }
+
+        int step = (last - first) / 8;
+        counter.comparisons += 12;
+        return medianOfThree(array,
+                medianOfThree(array, first, first + step, first + 2 * step),
+                medianOfThree(array, mid - step, mid, mid + step),
+                medianOfThree(array, last - 2 * step, last - step, last));
+    }
+
+    /**
+     * Gets the index of the middle one of three elements.
+     */
+    private static int medianOfThree(double[] array, int a, int b, int c) {
+        if (less(array[a], array[b])) {
+            return less(array[b], array[c]) ? b : (less(array[a], array[c]) ? c : a);
+        }
+        return less(array[a], array[c]) ? a : (less(array[b], array[c]) ? c : b);
+    }
+
+    /**
+     * Swaps two elements of an array of double values.
+     */
+    static void swap(double[] array, int first, int second) {
+        double temp = array[first];
+        array[first] = array[second];
+        array[second] = temp;
+    }
+
+    /**
+     * Compares double values in the order of {@link Double#compare(double, double)}, which puts NaN after all
+     * other values and -0.0 before 0.0, instead of with the operators, for which NaN is neither smaller nor greater.
+     */
+    static boolean less(double value, double other) {
+        return Double.compare(value, other) < 0;
+    }
+
+    /**
+     * Checks whether double values are equal in the order of {@link Double#compare(double, double)}.
+     */
+    static boolean equal(double value, double other) {
+        return Double.compare(value, other) == 0;
+    }
+}
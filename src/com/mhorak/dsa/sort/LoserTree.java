@@ -0,0 +1,149 @@
+package com.mhorak.dsa.sort;
+
+import java.util.Arrays;
+
+/**
+ * A tournament tree of losers that merges k sorted sequences of long keys.
+ * <p>
+ * Every inner node keeps the source that lost the match played there, and the root keeps the overall winner,
+ * so taking the next key replays only the matches on the path of the winner: about log2(k) comparisons
+ * per key instead of the k - 1 of a linear scan. Equal keys are taken from the source with the smaller index
+ * first, which makes the merge stable.
+ */
+final class LoserTree {
+    private final LongCursor[] sources;
+    private final boolean byGrowth;
+
+    /**
+     * The current key of every source.
+     */
+    private final long[] keys;
+
+    /**
+     * Whether a source has no keys left.
+     */
+    private final boolean[] exhausted;
+
+    /**
+     * The losers of the matches at the inner nodes 1 to k - 1, and the winner at index 0.
+     */
+    private final int[] tree;
+
+    private long comparisons;
+
+    /**
+     * Constructs a tree over the sources and takes the first key of every source.
+     *
+     * @param sources  The sorted sources.
+     * @param byGrowth If set to true, the sources are sorted in ascending order; otherwise in descending order.
+     */
+    LoserTree(LongCursor[] sources, boolean byGrowth) {
+        this.sources = sources;
+        this.byGrowth = byGrowth;
+        int k = sources.length;
+        keys = new long[k];
+        exhausted = new boolean[k];
+        tree = new int[Math.max(k, 1)];
+
+        Arrays.fill(tree, -1);
+        for (int source = k - 1; source >= 0; source--) {
+            if (sources[source].hasNext()) {
+                keys[source] = sources[source].next();
+            } else {
+                exhausted[source] = true;
+            }
+            replay(source);
+        }
+    }
+
+    /**
+     * Checks whether any source has keys left.
+     *
+     * @return True if there is a next key, otherwise false.
+     */
+    boolean hasNext() {
+        return sources.length > 0 && !exhausted[tree[0]];
+    }
+
+    /**
+     * Takes the next key of the merged sequence.
+     *
+     * @return The smallest key of the sources in ascending order, or the largest one in descending order.
+     */
+    long next() {
+        int winner = tree[0];
+        long key = keys[winner];
+        if (sources[winner].hasNext()) {
+            keys[winner] = sources[winner].next();
+        } else {
+            exhausted[winner] = true;
+        }
+        replay(winner);
+        return key;
+    }
+
+    /**
+     * Gets the number of comparisons of keys made so far.
+     *
+     * @return The number of comparisons.
+     */
+    long comparisons() {
+        return comparisons;
+    }
+
+    /**
+     * Plays the matches on the path from a source to the root. While the tree is built, the first source
+     * that reaches an empty node waits there for its opponent from the other subtree.
+     *
+     * @param source The source whose key changed.
+     */
+    private void replay(int source) {
+        int winner = source;
+        for (int node = (source + sources.length) / 2; node > 0; node /= 2) {
+            if (tree[node] == -1) {
+                tree[node] = winner;
+                return;
+            }
+            if (beats(tree[node], winner)) {
+                int loser = winner;
+                winner = tree[node];
+                tree[node] = loser;
+            }
+        }
+        tree[0] = winner;
+    }
+
+    /**
+     * Checks whether the current key of one source comes before the current key of another one.
+     */
+    private boolean beats(int source, int other) {
+        if (exhausted[source] || exhausted[other]) {
+            return !exhausted[source] || (exhausted[other] && source < other);
+        }
+        comparisons++;
+        long key = keys[source], otherKey = keys[other];
+        if (key == otherKey) {
+            return source < other;
+        }
+        return byGrowth == (key < otherKey);
+    }
+
+    /**
+     * A sorted sequence of long keys that is read once.
+     */
+    interface LongCursor {
+        /**
+         * Checks whether the sequence has keys left.
+         *
+         * @return True if there is a next key, otherwise false.
+         */
+        boolean hasNext();
+
+        /**
+         * Takes the next key of the sequence.
+         *
+         * @return The next key.
+         */
+        long next();
+    }
+}
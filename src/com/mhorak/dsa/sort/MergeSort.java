@@ -1,10 +1,36 @@
 package com.mhorak.dsa.sort;
 
-import java.time.LocalTime;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
 public class MergeSort extends Sort {
+    /**
+     * The smallest primitive array that is sorted in parallel when the instance has a pool.
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    /**
+     * The pool that sorts primitive arrays in parallel, or null to sort them on the calling thread.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a MergeSort instance that sorts on the calling thread.
+     */
+    public MergeSort() {
+        this(null);
+    }
+
+    /**
+     * Constructs a MergeSort instance that sorts large primitive arrays in parallel on the given pool.
+     * The sort uses one auxiliary buffer of the size of the array, and the sorting order stays the same as
+     * for the sequential sort.
+     *
+     * @param pool The pool to run the sort on, or null to sort on the calling thread.
+     */
+    public MergeSort(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
     /**
      * Sorts a one-dimensional array of Double elements.
      *
@@ -13,10 +39,32 @@ public class MergeSort extends Sort {
      */
     @Override
     public Double[] sortIndividual(Double[] arrayOfNumbers) {
-        startOfSorting = LocalTime.now();
-        mergeSort(arrayOfNumbers, false);
-        endOfSorting = LocalTime.now();
-        return arrayOfNumbers;
+        metrics.start();
+        try {
+            double[] values = unbox(arrayOfNumbers);
+            sortIndividual(values);
+            box(values, arrayOfNumbers);
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Sorts a one-dimensional array of double values in descending order.
+     *
+     * @param arrayOfNumbers The array of double values to be sorted.
+     * @return The sorted array of double values.
+     */
+    @Override
+    public double[] sortIndividual(double[] arrayOfNumbers) {
+        metrics.start();
+        try {
+            mergeSort(arrayOfNumbers, false);
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
     }
 
     /**
@@ -38,40 +86,76 @@ public class MergeSort extends Sort {
      */
     @Override
     public Integer[] sortLab(Integer[] arrayOfNumbers) {
-        startOfSorting = LocalTime.now();
-        mergeSort(arrayOfNumbers, true);
-        endOfSorting = LocalTime.now();
-        return arrayOfNumbers;
+        metrics.start();
+        try {
+            int[] values = unbox(arrayOfNumbers);
+            sortLab(values);
+            box(values, arrayOfNumbers);
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
     }
 
     /**
-     * Sorts the array with intermediate steps and returns a list of intermediate sorting states.
+     * Sorts the array of int values in ascending order and returns the sorted array.
      *
      * @param arrayOfNumbers The array to be sorted.
-     * @return An ArrayList of arrays representing intermediate sorting states.
+     * @return The sorted array.
      */
     @Override
-    public ArrayList<Integer[]> sortLabWithSteps(Integer[] arrayOfNumbers) {
-        ArrayList<Integer[]> steps = new ArrayList<>();
-
-        startOfSorting = LocalTime.now();
-
-        steps.add(Arrays.copyOf(arrayOfNumbers, arrayOfNumbers.length));
+    public int[] sortLab(int[] arrayOfNumbers) {
+        metrics.start();
+        try {
+            mergeSort(arrayOfNumbers, true);
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
+    }
 
-        mergeSortWithSteps(arrayOfNumbers, steps);
+    /**
+     * Sorts the array of long values in ascending order and returns the sorted array.
+     *
+     * @param arrayOfNumbers The array to be sorted.
+     * @return The sorted array.
+     */
+    @Override
+    public long[] sortLab(long[] arrayOfNumbers) {
+        metrics.start();
+        try {
+            mergeSort(arrayOfNumbers, true);
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
+    }
 
-        endOfSorting = LocalTime.now();
+    /**
+     * Sorts the array and records the initial state and every merged part in a step log.
+     *
+     * @param arrayOfNumbers The array to be sorted.
+     * @param steps          The step log to record the intermediate sorting states in.
+     */
+    @Override
+    public void sortLabWithSteps(Integer[] arrayOfNumbers, StepLog steps) {
+        metrics.start();
+        try {
+            steps.record(arrayOfNumbers);
 
-        return steps;
+            mergeSortWithSteps(arrayOfNumbers, steps);
+        } finally {
+            metrics.stop();
+        }
     }
 
     /**
      * Recursively performs Merge Sort on an array of Integers while recording intermediate sorting steps.
      *
      * @param array The array of Integers to be sorted.
-     * @param steps An ArrayList to store intermediate sorting states.
+     * @param steps The step log to record intermediate sorting states in.
      */
-    private void mergeSortWithSteps(Integer[] array, ArrayList<Integer[]> steps) {
+    private void mergeSortWithSteps(Integer[] array, StepLog steps) {
         // Base case: if the array has only one element, it's considered sorted.
         if (array.length == 1) {
             return;
@@ -90,39 +174,9 @@ public class MergeSort extends Sort {
             mergeSortWithSteps(left, steps);
             mergeSortWithSteps(right, steps);
 
-            // Merge the sorted subarrays and store the current state in the steps ArrayList.
+            // Merge the sorted subarrays and record the merged part as a step.
             merge(left, right, array, true);
-            steps.add(Arrays.copyOf(array, array.length));
-        }
-    }
-
-    /**
-     * Recursively performs Merge Sort on an array of Comparables.
-     *
-     * @param array    The array of Comparables to be sorted.
-     * @param byGrowth A flag indicating whether to sort in ascending or descending order.
-     */
-    private void mergeSort(Comparable[] array, boolean byGrowth) {
-        // Base case: if the array has only one element, it's considered sorted.
-        if (array.length == 1) {
-            return;
-        } else {
-            // Divide the array into two halves.
-            int midIndex = array.length / 2;
-            Comparable[] left = new Comparable[midIndex];
-            Comparable[] right = new Comparable[array.length - midIndex];
-
-            // Copy elements into the left and right subarrays.
-            System.arraycopy(array, 0, left, 0, left.length);
-            if (array.length - midIndex >= 0)
-                System.arraycopy(array, midIndex, right, 0, array.length - midIndex);
-
-            // Recursively sort the left and right subarrays.
-            mergeSort(left, byGrowth);
-            mergeSort(right, byGrowth);
-
-            // Merge the sorted subarrays.
-            merge(left, right, array, byGrowth);
+            steps.record(array);
         }
     }
 
@@ -136,6 +190,7 @@ public class MergeSort extends Sort {
      */
     private void merge(Comparable[] left, Comparable[] right, Comparable[] array, boolean byGrowth) {
         int leftInd = 0, rightInd = 0;
+        long comparisons = 0;
 
         for (int i = 0; i < array.length; i++) {
             if (leftInd == left.length) {
@@ -148,6 +203,7 @@ public class MergeSort extends Sort {
                 leftInd++;
                 continue;
             }
+            comparisons++;
             if (byGrowth) {
                 if (left[leftInd].compareTo(right[rightInd]) < 0) {
                     array[i] = left[leftInd];
@@ -166,6 +222,345 @@ public class MergeSort extends Sort {
                 }
             }
         }
+
+        // Every element was copied into a half and then merged back
+        metrics.countComparisons(comparisons);
+        metrics.countMoves(2L * array.length);
+    }
+
+    /**
+     * Performs Merge Sort on an array of int values, in parallel if the instance has a pool.
+     *
+     * @param array    The array of int values to be sorted.
+     * @param byGrowth A flag indicating whether to sort in ascending or descending order.
+     */
+    private void mergeSort(int[] array, boolean byGrowth) {
+        OperationCounter counter;
+
+        if (pool != null && array.length > PARALLEL_THRESHOLD) {
+            counter = new OperationCounter();
+            ParallelMergeSort.sort(array, byGrowth, pool, counter);
+        } else {
+            // The progress is the number of merged elements, which is n for each of the log2(n) levels
+            int levels = 32 - Integer.numberOfLeadingZeros(Math.max(array.length - 1, 0));
+            counter = progressCounter((long) array.length * levels);
+            mergeSort(array, new int[array.length], 0, array.length, byGrowth, counter);
+        }
+
+        metrics.count(counter);
+    }
+
+    /**
+     * Recursively sorts the range [from, to) of an array of int values.
+     *
+     * @param array    The array of int values to be sorted.
+     * @param buffer   The scratch buffer; only its range [from, to) is used.
+     * @param from     The index of the first element of the range (inclusive).
+     * @param to       The index of the last element of the range (exclusive).
+     * @param byGrowth A flag indicating whether to sort in ascending or descending order.
+     * @param counter  The counter of comparisons and moves.
+     */
+    static void mergeSort(int[] array, int[] buffer, int from, int to, boolean byGrowth, OperationCounter counter) {
+        // Base case: a range of one element is considered sorted.
+        if (to - from < 2) {
+            return;
+        }
+
+        int midIndex = (from + to) >>> 1;
+        mergeSort(array, buffer, from, midIndex, byGrowth, counter);
+        mergeSort(array, buffer, midIndex, to, byGrowth, counter);
+
+        // Copy the sorted halves into the buffer and merge them back.
+        System.arraycopy(array, from, buffer, from, to - from);
+        counter.moves += to - from;
+        merge(buffer, from, midIndex, midIndex, to, array, from, byGrowth, counter);
+        counter.advance(to - from);
+    }
+
+    /**
+     * Merges the sorted ranges [leftFrom, leftTo) and [rightFrom, rightTo) of the source into the target.
+     * On equal elements the left one goes first, so the merge is stable.
+     *
+     * @param source     The array holding both sorted ranges.
+     * @param leftFrom   The index of the first element of the left range.
+     * @param leftTo     The index after the last element of the left range.
+     * @param rightFrom  The index of the first element of the right range.
+     * @param rightTo    The index after the last element of the right range.
+     * @param target     The array to store the merged result.
+     * @param targetFrom The index in the target where the merged result starts.
+     * @param byGrowth   A flag indicating whether to merge in ascending or descending order.
+     * @param counter    The counter of comparisons and moves.
+     */
+    static void merge(int[] source, int leftFrom, int leftTo, int rightFrom, int rightTo,
+                      int[] target, int targetFrom, boolean byGrowth, OperationCounter counter) {
+        int leftInd = leftFrom, rightInd = rightFrom;
+        int to = targetFrom + (leftTo - leftFrom) + (rightTo - rightFrom);
+        long comparisons = 0;
+
+        for (int i = targetFrom; i < to; i++) {
+            if (leftInd == leftTo) {
+                target[i] = source[rightInd];
+                rightInd++;
+            } else if (rightInd == rightTo) {
+                target[i] = source[leftInd];
+                leftInd++;
+            } else if (byGrowth ? source[leftInd] <= source[rightInd] : source[leftInd] >= source[rightInd]) {
+                target[i] = source[leftInd];
+                leftInd++;
+                comparisons++;
+            } else {
+                target[i] = source[rightInd];
+                rightInd++;
+                comparisons++;
+            }
+        }
+
+        counter.comparisons += comparisons;
+        counter.moves += to - targetFrom;
+    }
+
+    /**
+     * Performs Merge Sort on an array of long values, in parallel if the instance has a pool.
+     *
+     * @param array    The array of long values to be sorted.
+     * @param byGrowth A flag indicating whether to sort in ascending or descending order.
+     */
+    private void mergeSort(long[] array, boolean byGrowth) {
+        OperationCounter counter;
+
+        if (pool != null && array.length > PARALLEL_THRESHOLD) {
+            counter = new OperationCounter();
+            ParallelMergeSort.sort(array, byGrowth, pool, counter);
+        } else {
+            // The progress is the number of merged elements, which is n for each of the log2(n) levels
+            int levels = 32 - Integer.numberOfLeadingZeros(Math.max(array.length - 1, 0));
+            counter = progressCounter((long) array.length * levels);
+            mergeSort(array, new long[array.length], 0, array.length, byGrowth, counter);
+        }
+
+        metrics.count(counter);
     }
 
-}
+    /**
+     * Recursively sorts the range [from, to) of an array of long values.
+     *
+     * @param array    The array of long values to be sorted.
+     * @param buffer   The scratch buffer; only its range [from, to) is used.
+     * @param from     The index of the first element of the range (inclusive).
+     * @param to       The index of the last element of the range (exclusive).
+     * @param byGrowth A flag indicating whether to sort in ascending or descending order.
+     * @param counter  The counter of comparisons and moves.
+     */
+    static void mergeSort(long[] array, long[] buffer, int from, int to, boolean byGrowth, OperationCounter counter) {
+        // Base case: a range of one element is considered sorted.
+        if (to - from < 2) {
+            return;
+        }
+
+        int midIndex = (from + to) >>> 1;
+        mergeSort(array, buffer, from, midIndex, byGrowth, counter);
+        mergeSort(array, buffer, midIndex, to, byGrowth, counter);
+
+        // Copy the sorted halves into the buffer and merge them back.
+        System.arraycopy(array, from, buffer, from, to - from);
+        counter.moves += to - from;
+        merge(buffer, from, midIndex, midIndex, to, array, from, byGrowth, counter);
+        counter.advance(to - from);
+    }
+
+    /**
+     * Merges the sorted ranges [leftFrom, leftTo) and [rightFrom, rightTo) of the source into the target.
+     * On equal elements the left one goes first, so the merge is stable.
+     *
+     * @param source     The array holding both sorted ranges.
+     * @param leftFrom   The index of the first element of the left range.
+     * @param leftTo     The index after the last element of the left range.
+     * @param rightFrom  The index of the first element of the right range.
+     * @param rightTo    The index after the last element of the right range.
+     * @param target     The array to store the merged result.
+     * @param targetFrom The index in the target where the merged result starts.
+     * @param byGrowth   A flag indicating whether to merge in ascending or descending order.
+     * @param counter    The counter of comparisons and moves.
+     */
+    static void merge(long[] source, int leftFrom, int leftTo, int rightFrom, int rightTo,
+                      long[] target, int targetFrom, boolean byGrowth, OperationCounter counter) {
+        int leftInd = leftFrom, rightInd = rightFrom;
+        int to = targetFrom + (leftTo - leftFrom) + (rightTo - rightFrom);
+        long comparisons = 0;
+
+        for (int i = targetFrom; i < to; i++) {
+            if (leftInd == leftTo) {
+                target[i] = source[rightInd];
+                rightInd++;
+            } else if (rightInd == rightTo) {
+                target[i] = source[leftInd];
+                leftInd++;
+            } else if (byGrowth ? source[leftInd] <= source[rightInd] : source[leftInd] >= source[rightInd]) {
+                target[i] = source[leftInd];
+                leftInd++;
+                comparisons++;
+            } else {
+                target[i] = source[rightInd];
+                rightInd++;
+                comparisons++;
+            }
+        }
+
+        counter.comparisons += comparisons;
+        counter.moves += to - targetFrom;
+    }
+
+    /**
+     * Performs Merge Sort on an array of double values, in parallel if the instance has a pool.
+     *
+     * @param array    The array of double values to be sorted.
+     * @param byGrowth A flag indicating whether to sort in ascending or descending order.
+     */
+    private void mergeSort(double[] array, boolean byGrowth) {
+        OperationCounter counter;
+
+        if (pool != null && array.length > PARALLEL_THRESHOLD) {
+            counter = new OperationCounter();
+            ParallelMergeSort.sort(array, byGrowth, pool, counter);
+        } else {
+            // The progress is the number of merged elements, which is n for each of the log2(n) levels
+            int levels = 32 - Integer.numberOfLeadingZeros(Math.max(array.length - 1, 0));
+            counter = progressCounter((long) array.length * levels);
+            mergeSort(array, new double[array.length], 0, array.length, byGrowth, counter);
+        }
+
+        metrics.count(counter);
+    }
+
+    /**
+     * Recursively sorts the range [from, to) of an array of double values.
+     *
+     * @param array    The array of double values to be sorted.
+     * @param buffer   The scratch buffer; only its range [from, to) is used.
+     * @param from     The index of the first element of the range (inclusive).
+     * @param to       The index of the last element of the range (exclusive).
+     * @param byGrowth A flag indicating whether to sort in ascending or descending order.
+     * @param counter  The counter of comparisons and moves.
+     */
+    static void mergeSort(double[] array, double[] buffer, int from, int to, boolean byGrowth, OperationCounter counter) {
+        // Base case: a range of one element is considered sorted.
+        if (to - from < 2) {
+            return;
+        }
+
+        int midIndex = (from + to) >>> 1;
+        mergeSort(array, buffer, from, midIndex, byGrowth, counter);
+        mergeSort(array, buffer, midIndex, to, byGrowth, counter);
+
+        // Copy the sorted halves into the buffer and merge them back.
+        System.arraycopy(array, from, buffer, from, to - from);
+        counter.moves += to - from;
+        merge(buffer, from, midIndex, midIndex, to, array, from, byGrowth, counter);
+        counter.advance(to - from);
+    }
+
+    /**
+     * Merges the sorted ranges [leftFrom, leftTo) and [rightFrom, rightTo) of the source into the target.
+     * On equal elements the left one goes first, so the merge is stable.
+     *
+     * @param source     The array holding both sorted ranges.
+     * @param leftFrom   The index of the first element of the left range.
+     * @param leftTo     The index after the last element of the left range.
+     * @param rightFrom  The index of the first element of the right range.
+     * @param rightTo    The index after the last element of the right range.
+     * @param target     The array to store the merged result.
+     * @param targetFrom The index in the target where the merged result starts.
+     * @param byGrowth   A flag indicating whether to merge in ascending or descending order.
+     * @param counter    The counter of comparisons and moves.
+     */
+    static void merge(double[] source, int leftFrom, int leftTo, int rightFrom, int rightTo,
+                      double[] target, int targetFrom, boolean byGrowth, OperationCounter counter) {
+        int leftInd = leftFrom, rightInd = rightFrom;
+        int to = targetFrom + (leftTo - leftFrom) + (rightTo - rightFrom);
+        long comparisons = 0;
+
+        for (int i = targetFrom; i < to; i++) {
+            if (leftInd == leftTo) {
+                target[i] = source[rightInd];
+                rightInd++;
+            } else if (rightInd == rightTo) {
+                target[i] = source[leftInd];
+                leftInd++;
+            } else if (byGrowth ? Double.compare(source[leftInd], source[rightInd]) <= 0
+                    : Double.compare(source[leftInd], source[rightInd]) >= 0) {
+                target[i] = source[leftInd];
+                leftInd++;
+                comparisons++;
+            } else {
+                target[i] = source[rightInd];
+                rightInd++;
+                comparisons++;
+            }
+        }
+
+        counter.comparisons += comparisons;
+        counter.moves += to - targetFrom;
+    }
+
+    /**
+     * Recursively sorts the range [from, to) of an array of long keys in ascending order and moves the
+     * elements of a second array along with them. Equal keys keep their order, so a sort of the keys of
+     * items with the indices 0 to n - 1 in the second array yields the stable sorted order of the items.
+     *
+     * @param keys         The array of long keys to be sorted.
+     * @param order        The array whose elements move along with the keys.
+     * @param keyBuffer    The scratch buffer for the keys; only its range [from, to) is used.
+     * @param orderBuffer  The scratch buffer for the second array; only its range [from, to) is used.
+     * @param from         The index of the first element of the range (inclusive).
+     * @param to           The index of the last element of the range (exclusive).
+     * @param counter      The counter of comparisons and moves.
+     */
+    static void mergeSort(long[] keys, int[] order, long[] keyBuffer, int[] orderBuffer, int from, int to,
+                          OperationCounter counter) {
+        // Base case: a range of one element is considered sorted.
+        if (to - from < 2) {
+            return;
+        }
+
+        int midIndex = (from + to) >>> 1;
+        mergeSort(keys, order, keyBuffer, orderBuffer, from, midIndex, counter);
+        mergeSort(keys, order, keyBuffer, orderBuffer, midIndex, to, counter);
+
+        // The halves are already in order when the last key of the left one is not greater than the first of the right one
+        counter.comparisons++;
+        if (keys[midIndex - 1] <= keys[midIndex]) {
+            counter.advance(to - from);
+            return;
+        }
+
+        // Copy the sorted halves into the buffers and merge them back.
+        System.arraycopy(keys, from, keyBuffer, from, to - from);
+        System.arraycopy(order, from, orderBuffer, from, to - from);
+        int leftInd = from, rightInd = midIndex;
+        long comparisons = 0;
+        for (int i = from; i < to; i++) {
+            boolean takeLeft;
+            if (leftInd == midIndex) {
+                takeLeft = false;
+            } else if (rightInd == to) {
+                takeLeft = true;
+            } else {
+                takeLeft = keyBuffer[leftInd] <= keyBuffer[rightInd];
+                comparisons++;
+            }
+
+            if (takeLeft) {
+                keys[i] = keyBuffer[leftInd];
+                order[i] = orderBuffer[leftInd];
+                leftInd++;
+            } else {
+                keys[i] = keyBuffer[rightInd];
+                order[i] = orderBuffer[rightInd];
+                rightInd++;
+            }
+        }
+        counter.comparisons += comparisons;
+        counter.moves += 2L * (to - from);
+        counter.advance(to - from);
+    }
+}
\ No newline at end of file
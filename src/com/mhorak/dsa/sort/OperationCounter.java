@@ -0,0 +1,70 @@
+package com.mhorak.dsa.sort;
+
+/**
+ * Counts the comparisons and moves of one part of a sorting process.
+ * <p>
+ * {@link SortMetrics} is not thread-safe, so the tasks of a parallel sort count into their own counters,
+ * add them up when they are joined, and the thread that started the sort passes the total to the metrics.
+ * A counter created for a sort with {@link Sort#progressCounter(long)} also passes the progress of the static
+ * kernels to {@link Sort#checkpoint(long, long)}, which reports it and stops the sort if it was cancelled.
+ */
+final class OperationCounter {
+    long comparisons;
+    long moves;
+
+    /**
+     * The sort to report the progress to, or null.
+     */
+    private final Sort sort;
+
+    /**
+     * The total amount of work, the amount done so far, and the amount after which the next checkpoint is made.
+     * Checkpoints are made about every thousandth of the work, so that cheap steps of a kernel can advance the
+     * counter without slowing it down.
+     */
+    private final long total;
+    private long done;
+    private long nextCheckpoint;
+
+    /**
+     * Constructs a counter that does not report progress.
+     */
+    OperationCounter() {
+        this(null, 0);
+    }
+
+    /**
+     * Constructs a counter that reports progress to a sort.
+     *
+     * @param sort  The sort to report the progress to, or null.
+     * @param total The total amount of work.
+     */
+    OperationCounter(Sort sort, long total) {
+        this.sort = sort;
+        this.total = total;
+        this.nextCheckpoint = sort == null ? Long.MAX_VALUE : 0;
+    }
+
+    /**
+     * Adds to the amount of work done and reports the progress, if the counter has a sort.
+     *
+     * @param work The amount of work done since the last call.
+     */
+    void advance(long work) {
+        done += work;
+        if (done >= nextCheckpoint) {
+            nextCheckpoint = done + Math.max(total / 1024, 1);
+            sort.checkpoint(done, total);
+        }
+    }
+
+    /**
+     * Adds the counts of another counter to this one.
+     *
+     * @param other The counter to add.
+     */
+    void add(OperationCounter other) {
+        comparisons += other.comparisons;
+        moves += other.moves;
+    }
+}
@@ -0,0 +1,492 @@
+package com.mhorak.dsa.sort;
+
+import java.io.Serial;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The parallel mode of {@link MergeSort} for primitive arrays.
+ * <p>
+ * The sort uses a single auxiliary buffer and ping-pongs between the array and the buffer: the halves of a range
+ * are sorted into one of them and merged into the other, so no level of the recursion allocates. The halves are
+ * sorted as independent fork-join tasks, large merges are split into independent halves as well, and small
+ * ranges are sorted and merged sequentially.
+ */
+final class ParallelMergeSort {
+    /**
+     * The largest range that is sorted sequentially.
+     */
+    static final int SORT_CUTOFF = 1 << 13;
+
+    /**
+     * The largest merge that is done sequentially.
+     */
+    static final int MERGE_CUTOFF = 1 << 13;
+
+    private ParallelMergeSort() {
+    }
+
+    /**
+     * Sorts an array of int values in parallel.
+     *
+     * @param array    The array to be sorted.
+     * @param byGrowth A flag indicating whether to sort in ascending or descending order.
+     * @param pool     The pool to run the sort on.
+     * @param counter  The counter of comparisons and moves.
+     */
+    static void sort(int[] array, boolean byGrowth, ForkJoinPool pool, OperationCounter counter) {
+        // The buffer starts as a copy, so both arrays hold the unsorted data of every range
+        int[] buffer = array.clone();
+        counter.moves += array.length;
+
+        IntSortTask task = new IntSortTask(buffer, array, 0, array.length, byGrowth);
+        pool.invoke(task);
+        counter.add(task.counter);
+    }
+
+    /**
+     * Sorts the range of the source and writes the result into the same range of the target.
+     * Both arrays hold the same data in the range when the task starts, and the source is used as scratch space.
+     */
+    private static final class IntSortTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final int[] source;
+        private final int[] target;
+        private final int from;
+        private final int to;
+        private final boolean byGrowth;
+        private final OperationCounter counter = new OperationCounter();
+
+        IntSortTask(int[] source, int[] target, int from, int to, boolean byGrowth) {
+            this.source = source;
+            this.target = target;
+            this.from = from;
+            this.to = to;
+            this.byGrowth = byGrowth;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SORT_CUTOFF) {
+                MergeSort.mergeSort(target, source, from, to, byGrowth, counter);
+                return;
+            }
+
+            // The halves are sorted into the source, then merged into the target
+            int mid = (from + to) >>> 1;
+            IntSortTask left = new IntSortTask(target, source, from, mid, byGrowth);
+            IntSortTask right = new IntSortTask(target, source, mid, to, byGrowth);
+            invokeAll(left, right);
+
+            IntMergeTask merge = new IntMergeTask(source, from, mid, mid, to, target, from, byGrowth);
+            merge.compute();
+
+            counter.add(left.counter);
+            counter.add(right.counter);
+            counter.add(merge.counter);
+        }
+    }
+
+    /**
+     * Merges two sorted ranges of the source into the target, splitting large merges into independent halves.
+     */
+    private static final class IntMergeTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final int[] source;
+        private final int leftFrom;
+        private final int leftTo;
+        private final int rightFrom;
+        private final int rightTo;
+        private final int[] target;
+        private final int targetFrom;
+        private final boolean byGrowth;
+        private final OperationCounter counter = new OperationCounter();
+
+        IntMergeTask(int[] source, int leftFrom, int leftTo, int rightFrom, int rightTo,
+                  int[] target, int targetFrom, boolean byGrowth) {
+            this.source = source;
+            this.leftFrom = leftFrom;
+            this.leftTo = leftTo;
+            this.rightFrom = rightFrom;
+            this.rightTo = rightTo;
+            this.target = target;
+            this.targetFrom = targetFrom;
+            this.byGrowth = byGrowth;
+        }
+
+        @Override
+        protected void compute() {
+            int leftLength = leftTo - leftFrom;
+            int rightLength = rightTo - rightFrom;
+            if (leftLength + rightLength <= MERGE_CUTOFF) {
+                MergeSort.merge(source, leftFrom, leftTo, rightFrom, rightTo, target, targetFrom, byGrowth, counter);
+                return;
+            }
+
+            // Split the larger range in the middle and the other one at the matching position. Elements of the
+            // right range go after equal elements of the left range, which keeps the merge stable.
+            int leftMid, rightMid;
+            if (leftLength >= rightLength) {
+                leftMid = (leftFrom + leftTo) >>> 1;
+                rightMid = firstNotBefore(source, rightFrom, rightTo, source[leftMid]);
+            } else {
+                rightMid = (rightFrom + rightTo) >>> 1;
+                leftMid = firstAfter(source, leftFrom, leftTo, source[rightMid]);
+            }
+            int targetMid = targetFrom + (leftMid - leftFrom) + (rightMid - rightFrom);
+
+            IntMergeTask first = new IntMergeTask(source, leftFrom, leftMid, rightFrom, rightMid, target, targetFrom, byGrowth);
+            IntMergeTask second = new IntMergeTask(source, leftMid, leftTo, rightMid, rightTo, target, targetMid, byGrowth);
+            invokeAll(first, second);
+
+            counter.add(first.counter);
+            counter.add(second.counter);
+        }
+
+        /**
+         * Finds the first element of a sorted range that does not go strictly before the value.
+         */
+        private int firstNotBefore(int[] array, int from, int to, int value) {
+            while (from < to) {
+                int mid = (from + to) >>> 1;
+                counter.comparisons++;
+                if (byGrowth ? array[mid] < value : array[mid] > value) {
+                    from = mid + 1;
+                } else {
+                    to = mid;
+                }
+            }
+            return from;
+        }
+
+        /**
+         * Finds the first element of a sorted range that goes strictly after the value.
+         */
+        private int firstAfter(int[] array, int from, int to, int value) {
+            while (from < to) {
+                int mid = (from + to) >>> 1;
+                counter.comparisons++;
+                if (byGrowth ? array[mid] <= value : array[mid] >= value) {
+                    from = mid + 1;
+                } else {
+                    to = mid;
+                }
+            }
+            return from;
+        }
+    }
+
+    /**
+     * Sorts an array of long values in parallel.
+     *
+     * @param array    The array to be sorted.
+     * @param byGrowth A flag indicating whether to sort in ascending or descending order.
+     * @param pool     The pool to run the sort on.
+     * @param counter  The counter of comparisons and moves.
+     */
+    static void sort(long[] array, boolean byGrowth, ForkJoinPool pool, OperationCounter counter) {
+        // The buffer starts as a copy, so both arrays hold the unsorted data of every range
+        long[] buffer = array.clone();
+        counter.moves += array.length;
+
+        LongSortTask task = new LongSortTask(buffer, array, 0, array.length, byGrowth);
+        pool.invoke(task);
+        counter.add(task.counter);
+    }
+
+    /**
+     * Sorts the range of the source and writes the result into the same range of the target.
+     * Both arrays hold the same data in the range when the task starts, and the source is used as scratch space.
+     */
+    private static final class LongSortTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final long[] source;
+        private final long[] target;
+        private final int from;
+        private final int to;
+        private final boolean byGrowth;
+        private final OperationCounter counter = new OperationCounter();
+
+        LongSortTask(long[] source, long[] target, int from, int to, boolean byGrowth) {
+            this.source = source;
+            this.target = target;
+            this.from = from;
+            this.to = to;
+            this.byGrowth = byGrowth;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SORT_CUTOFF) {
+                MergeSort.mergeSort(target, source, from, to, byGrowth, counter);
+                return;
+            }
+
+            // The halves are sorted into the source, then merged into the target
+            int mid = (from + to) >>> 1;
+            LongSortTask left = new LongSortTask(target, source, from, mid, byGrowth);
+            LongSortTask right = new LongSortTask(target, source, mid, to, byGrowth);
+            invokeAll(left, right);
+
+            LongMergeTask merge = new LongMergeTask(source, from, mid, mid, to, target, from, byGrowth);
+            merge.compute();
+
+            counter.add(left.counter);
+            counter.add(right.counter);
+            counter.add(merge.counter);
+        }
+    }
+
+    /**
+     * Merges two sorted ranges of the source into the target, splitting large merges into independent halves.
+     */
+    private static final class LongMergeTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final long[] source;
+        private final int leftFrom;
+        private final int leftTo;
+        private final int rightFrom;
+        private final int rightTo;
+        private final long[] target;
+        private final int targetFrom;
+        private final boolean byGrowth;
+        private final OperationCounter counter = new OperationCounter();
+
+        LongMergeTask(long[] source, int leftFrom, int leftTo, int rightFrom, int rightTo,
+                  long[] target, int targetFrom, boolean byGrowth) {
+            this.source = source;
+            this.leftFrom = leftFrom;
+            this.leftTo = leftTo;
+            this.rightFrom = rightFrom;
+            this.rightTo = rightTo;
+            this.target = target;
+            this.targetFrom = targetFrom;
+            this.byGrowth = byGrowth;
+        }
+
+        @Override
+        protected void compute() {
+            int leftLength = leftTo - leftFrom;
+            int rightLength = rightTo - rightFrom;
+            if (leftLength + rightLength <= MERGE_CUTOFF) {
+                MergeSort.merge(source, leftFrom, leftTo, rightFrom, rightTo, target, targetFrom, byGrowth, counter);
+                return;
+            }
+
+            // Split the larger range in the middle and the other one at the matching position. Elements of the
+            // right range go after equal elements of the left range, which keeps the merge stable.
+            int leftMid, rightMid;
+            if (leftLength >= rightLength) {
+                leftMid = (leftFrom + leftTo) >>> 1;
+                rightMid = firstNotBefore(source, rightFrom, rightTo, source[leftMid]);
+            } else {
+                rightMid = (rightFrom + rightTo) >>> 1;
+                leftMid = firstAfter(source, leftFrom, leftTo, source[rightMid]);
+            }
+            int targetMid = targetFrom + (leftMid - leftFrom) + (rightMid - rightFrom);
+
+            LongMergeTask first = new LongMergeTask(source, leftFrom, leftMid, rightFrom, rightMid, target, targetFrom, byGrowth);
+            LongMergeTask second = new LongMergeTask(source, leftMid, leftTo, rightMid, rightTo, target, targetMid, byGrowth);
+            invokeAll(first, second);
+
+            counter.add(first.counter);
+            counter.add(second.counter);
+        }
+
+        /**
+         * Finds the first element of a sorted range that does not go strictly before the value.
+         */
+        private int firstNotBefore(long[] array, int from, int to, long value) {
+            while (from < to) {
+                int mid = (from + to) >>> 1;
+                counter.comparisons++;
+                if (byGrowth ? array[mid] < value : array[mid] > value) {
+                    from = mid + 1;
+                } else {
+                    to = mid;
+                }
+            }
+            return from;
+        }
+
+        /**
+         * Finds the first element of a sorted range that goes strictly after the value.
+         */
+        private int firstAfter(long[] array, int from, int to, long value) {
+            while (from < to) {
+                int mid = (from + to) >>> 1;
+                counter.comparisons++;
+                if (byGrowth ? array[mid] <= value : array[mid] >= value) {
+                    from = mid + 1;
+                } else {
+                    to = mid;
+                }
+            }
+            return from;
+        }
+    }
+
+    /**
+     * Sorts an array of double values in parallel.
+     *
+     * @param array    The array to be sorted.
+     * @param byGrowth A flag indicating whether to sort in ascending or descending order.
+     * @param pool     The pool to run the sort on.
+     * @param counter  The counter of comparisons and moves.
+     */
+    static void sort(double[] array, boolean byGrowth, ForkJoinPool pool, OperationCounter counter) {
+        // The buffer starts as a copy, so both arrays hold the unsorted data of every range
+        double[] buffer = array.clone();
+        counter.moves += array.length;
+
+        DoubleSortTask task = new DoubleSortTask(buffer, array, 0, array.length, byGrowth);
+        pool.invoke(task);
+        counter.add(task.counter);
+    }
+
+    /**
+     * Sorts the range of the source and writes the result into the same range of the target.
+     * Both arrays hold the same data in the range when the task starts, and the source is used as scratch space.
+     */
+    private static final class DoubleSortTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final double[] source;
+        private final double[] target;
+        private final int from;
+        private final int to;
+        private final boolean byGrowth;
+        private final OperationCounter counter = new OperationCounter();
+
+        DoubleSortTask(double[] source, double[] target, int from, int to, boolean byGrowth) {
+            this.source = source;
+            this.target = target;
+            this.from = from;
+            this.to = to;
+            this.byGrowth = byGrowth;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SORT_CUTOFF) {
+                MergeSort.mergeSort(target, source, from, to, byGrowth, counter);
+                return;
+            }
+
+            // The halves are sorted into the source, then merged into the target
+            int mid = (from + to) >>> 1;
+            DoubleSortTask left = new DoubleSortTask(target, source, from, mid, byGrowth);
+            DoubleSortTask right = new DoubleSortTask(target, source, mid, to, byGrowth);
+            invokeAll(left, right);
+
+            DoubleMergeTask merge = new DoubleMergeTask(source, from, mid, mid, to, target, from, byGrowth);
+            merge.compute();
+
+            counter.add(left.counter);
+            counter.add(right.counter);
+            counter.add(merge.counter);
+        }
+    }
+
+    /**
+     * Merges two sorted ranges of the source into the target, splitting large merges into independent halves.
+     */
+    private static final class DoubleMergeTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final double[] source;
+        private final int leftFrom;
+        private final int leftTo;
+        private final int rightFrom;
+        private final int rightTo;
+        private final double[] target;
+        private final int targetFrom;
+        private final boolean byGrowth;
+        private final OperationCounter counter = new OperationCounter();
+
+        DoubleMergeTask(double[] source, int leftFrom, int leftTo, int rightFrom, int rightTo,
+                  double[] target, int targetFrom, boolean byGrowth) {
+            this.source = source;
+            this.leftFrom = leftFrom;
+            this.leftTo = leftTo;
+            this.rightFrom = rightFrom;
+            this.rightTo = rightTo;
+            this.target = target;
+            this.targetFrom = targetFrom;
+            this.byGrowth = byGrowth;
+        }
+
+        @Override
+        protected void compute() {
+            int leftLength = leftTo - leftFrom;
+            int rightLength = rightTo - rightFrom;
+            if (leftLength + rightLength <= MERGE_CUTOFF) {
+                MergeSort.merge(source, leftFrom, leftTo, rightFrom, rightTo, target, targetFrom, byGrowth, counter);
+                return;
+            }
+
+            // Split the larger range in the middle and the other one at the matching position. Elements of the
+            // right range go after equal elements of the left range, which keeps the merge stable.
+            int leftMid, rightMid;
+            if (leftLength >= rightLength) {
+                leftMid = (leftFrom + leftTo) >>> 1;
+                rightMid = firstNotBefore(source, rightFrom, rightTo, source[leftMid]);
+            } else {
+                rightMid = (rightFrom + rightTo) >>> 1;
+                leftMid = firstAfter(source, leftFrom, leftTo, source[rightMid]);
+            }
+            int targetMid = targetFrom + (leftMid - leftFrom) + (rightMid - rightFrom);
+
+            DoubleMergeTask first = new DoubleMergeTask(source, leftFrom, leftMid, rightFrom, rightMid, target, targetFrom, byGrowth);
+            DoubleMergeTask second = new DoubleMergeTask(source, leftMid, leftTo, rightMid, rightTo, target, targetMid, byGrowth);
+            invokeAll(first, second);
+
+            counter.add(first.counter);
+            counter.add(second.counter);
+        }
+
+        /**
+         * Finds the first element of a sorted range that does not go strictly before the value.
+         */
+        private int firstNotBefore(double[] array, int from, int to, double value) {
+            while (from < to) {
+                int mid = (from + to) >>> 1;
+                counter.comparisons++;
+                int comparison = Double.compare(array[mid], value);
+                if (byGrowth ? comparison < 0 : comparison > 0) {
+                    from = mid + 1;
+                } else {
+                    to = mid;
+                }
+            }
+            return from;
+        }
+
+        /**
+         * Finds the first element of a sorted range that goes strictly after the value.
+         */
+        private int firstAfter(double[] array, int from, int to, double value) {
+            while (from < to) {
+                int mid = (from + to) >>> 1;
+                counter.comparisons++;
+                int comparison = Double.compare(array[mid], value);
+                if (byGrowth ? comparison <= 0 : comparison >= 0) {
+                    from = mid + 1;
+                } else {
+                    to = mid;
+                }
+            }
+            return from;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.mhorak.dsa.sort;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The parallel mode of {@link QuickSort} for primitive arrays.
+ * <p>
+ * A task partitions its range with the introsort partitioning, forks the smaller part as a new task and keeps
+ * partitioning the larger one, until the range is small enough to be sorted by {@link IntroSort} on the current
+ * thread. The parts of a partition are disjoint, so the tasks need no synchronization, and the depth limit is
+ * passed down to the tasks, so the worst case stays O(n log n) in total work.
+ */
+final class ParallelQuickSort {
+    /**
+     * The largest range that is sorted sequentially.
+     */
+    static final int SORT_CUTOFF = 1 << 13;
+
+    private ParallelQuickSort() {
+    }
+
+    /**
+     * Sorts an array of int values in parallel.
+     *
+     * @param array   The array to be sorted.
+     * @param pool    The pool to run the sort on.
+     * @param counter The counter of comparisons and moves.
+     */
+    static void sort(int[] array, ForkJoinPool pool, OperationCounter counter) {
+        IntSortTask task = new IntSortTask(array, 0, array.length - 1, IntroSort.depthLimit(array.length));
+        pool.invoke(task);
+        counter.add(task.counter);
+    }
+
+    /**
+     * Sorts the range [first, last] of an array of int values.
+     */
+    private static final class IntSortTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final int[] array;
+        private final int first;
+        private final int last;
+        private final int depthLimit;
+        private final OperationCounter counter = new OperationCounter();
+
+        IntSortTask(int[] array, int first, int last, int depthLimit) {
+            this.array = array;
+            this.first = first;
+            this.last = last;
+            this.depthLimit = depthLimit;
+        }
+
+        @Override
+        protected void compute() {
+            int first = this.first, last = this.last, depthLimit = this.depthLimit;
+            List<IntSortTask> forked = new ArrayList<>();
+
+            while (last - first >= SORT_CUTOFF && depthLimit > 0) {
+                depthLimit--;
+                long bounds = IntroSort.partition(array, first, last, counter);
+                int lessEnd = IntroSort.lessEnd(bounds), greaterStart = IntroSort.greaterStart(bounds);
+
+                // Fork the smaller part and continue the loop with the larger one
+                IntSortTask task;
+                if (lessEnd - first < last - greaterStart) {
+                    task = new IntSortTask(array, first, lessEnd, depthLimit);
+                    first = greaterStart;
+                } else {
+                    task = new IntSortTask(array, greaterStart, last, depthLimit);
+                    last = lessEnd;
+                }
+                task.fork();
+                forked.add(task);
+            }
+            IntroSort.sort(array, first, last, depthLimit, counter);
+
+            // Join in reverse order, so the tasks nobody has stolen yet are run directly by this thread
+            for (int i = forked.size() - 1; i >= 0; i--) {
+                IntSortTask task = forked.get(i);
+                task.join();
+                counter.add(task.counter);
+            }
+        }
+    }
+
+    /**
+     * Sorts an array of long values in parallel.
+     *
+     * @param array   The array to be sorted.
+     * @param pool    The pool to run the sort on.
+     * @param counter The counter of comparisons and moves.
+     */
+    static void sort(long[] array, ForkJoinPool pool, OperationCounter counter) {
+        LongSortTask task = new LongSortTask(array, 0, array.length - 1, IntroSort.depthLimit(array.length));
+        pool.invoke(task);
+        counter.add(task.counter);
+    }
+
+    /**
+     * Sorts the range [first, last] of an array of long values.
+     */
+    private static final class LongSortTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final long[] array;
+        private final int first;
+        private final int last;
+        private final int depthLimit;
+        private final OperationCounter counter = new OperationCounter();
+
+        LongSortTask(long[] array, int first, int last, int depthLimit) {
+            this.array = array;
+            this.first = first;
+            this.last = last;
+            this.depthLimit = depthLimit;
+        }
+
+        @Override
+        protected void compute() {
+            int first = this.first, last = this.last, depthLimit = this.depthLimit;
+            List<LongSortTask> forked = new ArrayList<>();
+
+            while (last - first >= SORT_CUTOFF && depthLimit > 0) {
+                depthLimit--;
+                long bounds = IntroSort.partition(array, first, last, counter);
+                int lessEnd = IntroSort.lessEnd(bounds), greaterStart = IntroSort.greaterStart(bounds);
+
+                // Fork the smaller part and continue the loop with the larger one
+                LongSortTask task;
+                if (lessEnd - first < last - greaterStart) {
+                    task = new LongSortTask(array, first, lessEnd, depthLimit);
+                    first = greaterStart;
+                } else {
+                    task = new LongSortTask(array, greaterStart, last, depthLimit);
+                    last = lessEnd;
+                }
+                task.fork();
+                forked.add(task);
+            }
+            IntroSort.sort(array, first, last, depthLimit, counter);
+
+            // Join in reverse order, so the tasks nobody has stolen yet are run directly by this thread
+            for (int i = forked.size() - 1; i >= 0; i--) {
+                LongSortTask task = forked.get(i);
+                task.join();
+                counter.add(task.counter);
+            }
+        }
+    }
+
+    /**
+     * Sorts an array of double values in parallel.
+     *
+     * @param array   The array to be sorted.
+     * @param pool    The pool to run the sort on.
+     * @param counter The counter of comparisons and moves.
+     */
+    static void sort(double[] array, ForkJoinPool pool, OperationCounter counter) {
+        DoubleSortTask task = new DoubleSortTask(array, 0, array.length - 1, IntroSort.depthLimit(array.length));
+        pool.invoke(task);
+        counter.add(task.counter);
+    }
+
+    /**
+     * Sorts the range [first, last] of an array of double values.
+     */
+    private static final class DoubleSortTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final double[] array;
+        private final int first;
+        private final int last;
+        private final int depthLimit;
+        private final OperationCounter counter = new OperationCounter();
+
+        DoubleSortTask(double[] array, int first, int last, int depthLimit) {
+            this.array = array;
+            this.first = first;
+            this.last = last;
+            this.depthLimit = depthLimit;
+        }
+
+        @Override
+        protected void compute() {
+            int first = this.first, last = this.last, depthLimit = this.depthLimit;
+            List<DoubleSortTask> forked = new ArrayList<>();
+
+            while (last - first >= SORT_CUTOFF && depthLimit > 0) {
+                depthLimit--;
+                long bounds = IntroSort.partition(array, first, last, counter);
+                int lessEnd = IntroSort.lessEnd(bounds), greaterStart = IntroSort.greaterStart(bounds);
+
+                // Fork the smaller part and continue the loop with the larger one
+                DoubleSortTask task;
+                if (lessEnd - first < last - greaterStart) {
+                    task = new DoubleSortTask(array, first, lessEnd, depthLimit);
+                    first = greaterStart;
+                } else {
+                    task = new DoubleSortTask(array, greaterStart, last, depthLimit);
+                    last = lessEnd;
+                }
+                task.fork();
+                forked.add(task);
+            }
+            IntroSort.sort(array, first, last, depthLimit, counter);
+
+            // Join in reverse order, so the tasks nobody has stolen yet are run directly by this thread
+            for (int i = forked.size() - 1; i >= 0; i--) {
+                DoubleSortTask task = forked.get(i);
+                task.join();
+                counter.add(task.counter);
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.mhorak.dsa.sort;
+
+/**
+ * A listener of the progress of a sorting process.
+ * <p>
+ * The listener is called on the sorting thread, so a listener that updates a user interface should hand the
+ * values over to the thread of the interface instead of updating it directly.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+    /**
+     * Reports how much of the sorting process is done. The units of the values depend on the algorithm,
+     * e.g. passes or merged elements, so only their ratio is meaningful.
+     *
+     * @param done  The amount of work done.
+     * @param total The total amount of work.
+     */
+    void progress(long done, long total);
+}
@@ -1,14 +1,67 @@
 package com.mhorak.dsa.sort;
 
-import java.time.LocalTime;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Random;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * This class implements the Quick Sort algorithm for sorting arrays of comparable elements.
+ * <p>
+ * It also finds order statistics of primitive arrays without sorting them: the k-th smallest value, the k smallest
+ * or largest values and quantiles. These always use introselect, whatever the algorithm of the instance.
  */
 public class QuickSort extends Sort {
+    /**
+     * The smallest primitive array that is sorted in parallel when the instance has a pool.
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    /**
+     * The algorithm used for primitive arrays and the boxed arrays that delegate to them.
+     */
+    private final Mode mode;
+
+    /**
+     * The pool that sorts primitive arrays in parallel, or null to sort them on the calling thread.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The number of elements the classic algorithm has put in their final place, for the progress reports.
+     */
+    private long placed;
+
+    /**
+     * Constructs a QuickSort instance that uses the classic lab algorithm.
+     */
+    public QuickSort() {
+        this(Mode.CLASSIC);
+    }
+
+    /**
+     * Constructs a QuickSort instance that uses the given algorithm.
+     *
+     * @param mode The algorithm for primitive arrays and the boxed arrays that delegate to them.
+     */
+    public QuickSort(Mode mode) {
+        this.mode = mode;
+        this.pool = null;
+    }
+
+    /**
+     * Constructs a QuickSort instance that sorts large primitive arrays in parallel on the given pool.
+     * The parallel sort uses the introsort partitioning, and the parts of every partition are sorted as
+     * independent tasks.
+     *
+     * @param pool The pool to run the sort on, or null to sort on the calling thread. The pool belongs to the
+     *             caller, which shuts it down if it is not the common pool.
+     */
+    public QuickSort(ForkJoinPool pool) {
+        this.mode = Mode.INTROSORT;
+        this.pool = pool;
+    }
+
     /**
      * Sorts a one-dimensional array of Double elements.
      *
@@ -17,12 +70,33 @@ public class QuickSort extends Sort {
      */
     @Override
     public Double[] sortIndividual(Double[] arrayOfNumbers) {
-        startOfSorting = LocalTime.now();
+        metrics.start();
+        try {
+            double[] values = unbox(arrayOfNumbers);
+            sortIndividual(values);
+            box(values, arrayOfNumbers);
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
+    }
 
-        quickSort(arrayOfNumbers, 0, arrayOfNumbers.length - 1);
+    /**
+     * Sorts a one-dimensional array of double values in-place using the Quick Sort algorithm.
+     *
+     * @param arrayOfNumbers The array of double values to be sorted.
+     * @return The sorted array of double values.
+     */
+    @Override
+    public double[] sortIndividual(double[] arrayOfNumbers) {
+        metrics.start();
+        try {
+            sort(arrayOfNumbers);
 
-        endOfSorting = LocalTime.now();
-        return arrayOfNumbers;
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
     }
 
     /**
@@ -44,45 +118,431 @@ public class QuickSort extends Sort {
      */
     @Override
     public Integer[] sortLab(Integer[] arrayOfNumbers) {
-        startOfSorting = LocalTime.now();
+        metrics.start();
+        try {
+            int[] values = unbox(arrayOfNumbers);
+            sortLab(values);
+            box(values, arrayOfNumbers);
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
+    }
 
-        quickSort(arrayOfNumbers, 0, arrayOfNumbers.length - 1);
+    /**
+     * Sorts a one-dimensional array of int values in-place using the Quick Sort algorithm.
+     *
+     * @param arrayOfNumbers The array of int values to be sorted.
+     * @return The sorted array of int values.
+     */
+    @Override
+    public int[] sortLab(int[] arrayOfNumbers) {
+        metrics.start();
+        try {
+            sort(arrayOfNumbers);
 
-        endOfSorting = LocalTime.now();
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
+    }
 
-        return arrayOfNumbers;
+    /**
+     * Sorts a one-dimensional array of long values in-place using the Quick Sort algorithm.
+     *
+     * @param arrayOfNumbers The array of long values to be sorted.
+     * @return The sorted array of long values.
+     */
+    @Override
+    public long[] sortLab(long[] arrayOfNumbers) {
+        metrics.start();
+        try {
+            sort(arrayOfNumbers);
+
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
     }
 
     /**
-     * Performs the Quick Sort algorithm on an array of comparable elements.
+     * Finds the k-th smallest of an array of int values without sorting it, in expected linear time.
+     * The array is rearranged so that index k holds the value that would be there if the array were sorted,
+     * with no greater value before it and no smaller value after it.
      *
-     * @param arrayOfNumbers The array to be sorted.
-     * @param first          The index of the first element to be considered.
-     * @param last           The index of the last element to be considered.
+     * @param arrayOfNumbers The array of int values, which is rearranged.
+     * @param k              The index of the value in sorted order, from 0 for the smallest.
+     * @return The k-th smallest value.
      */
-    private void quickSort(Comparable[] arrayOfNumbers, int first, int last) {
-        // Check if there is more than one element to sort
-        if (first < last) {
-            // Partition the array and get the pivot index
-            int i = sortThePart(arrayOfNumbers, first, last);
+    public int select(int[] arrayOfNumbers, int k) {
+        Objects.checkIndex(k, arrayOfNumbers.length);
+        metrics.start();
+        try {
+            OperationCounter counter = progressCounter(arrayOfNumbers.length);
+            boolean heapsorted = IntroSelect.select(arrayOfNumbers, 0, arrayOfNumbers.length - 1, k,
+                    IntroSort.depthLimit(arrayOfNumbers.length), counter);
+            countSelection(counter, heapsorted);
 
-            // Recursively sort the subarrays before and after the pivot
-            quickSort(arrayOfNumbers, first, i - 1);
-            quickSort(arrayOfNumbers, i + 1, last);
+            return arrayOfNumbers[k];
+        } finally {
+            metrics.stop();
         }
     }
 
     /**
-     * Partitions a portion of the array for the Quick Sort algorithm.
+     * Finds the k smallest or the k largest of an array of int values with a partial sort: the k-th value is
+     * selected first, and only the k values on its side are sorted, which takes O(n + k log k) time.
+     *
+     * @param arrayOfNumbers The array of int values, which is rearranged.
+     * @param k              The number of values.
+     * @param ascending      True for the k smallest values in ascending order, false for the k largest ones
+     *                       in descending order.
+     * @return A new array of the k values.
+     */
+    public int[] topK(int[] arrayOfNumbers, int k, boolean ascending) {
+        int n = arrayOfNumbers.length;
+        Objects.checkFromToIndex(0, k, n);
+        if (k == 0) {
+            return new int[0];
+        }
+        metrics.start();
+        try {
+            // The k values end up at the front for the smallest ones and at the back for the largest ones
+            int from = ascending ? 0 : n - k;
+            OperationCounter counter = progressCounter((long) n + k);
+            boolean heapsorted = IntroSelect.select(arrayOfNumbers, 0, n - 1, ascending ? k - 1 : n - k,
+                    IntroSort.depthLimit(n), counter);
+            IntroSort.sort(arrayOfNumbers, from, from + k - 1, IntroSort.depthLimit(k), counter);
+            countSelection(counter, heapsorted);
+
+            int[] top = new int[k];
+            for (int i = 0; i < k; i++) {
+                top[i] = arrayOfNumbers[ascending ? i : n - 1 - i];
+            }
+            metrics.countMoves(k);
+
+            return top;
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Finds several order statistics of an array of int values in one pass, like {@link #select(int[], int)}
+     * for each of them, but with every partitioning shared by all the ranks it separates.
+     *
+     * @param arrayOfNumbers The array of int values, which is rearranged.
+     * @param ranks          The indices of the values in sorted order, in any order and possibly repeated.
+     * @return The values at the ranks, in the order of the ranks.
+     */
+    public int[] selectAll(int[] arrayOfNumbers, int... ranks) {
+        int[] sortedRanks = sortedDistinct(ranks, arrayOfNumbers.length);
+        metrics.start();
+        try {
+            OperationCounter counter = progressCounter(arrayOfNumbers.length);
+            boolean heapsorted = IntroSelect.selectAll(arrayOfNumbers, 0, arrayOfNumbers.length - 1, sortedRanks, 0,
+                    sortedRanks.length, IntroSort.depthLimit(arrayOfNumbers.length), counter);
+            countSelection(counter, heapsorted);
+
+            int[] values = new int[ranks.length];
+            for (int i = 0; i < ranks.length; i++) {
+                values[i] = arrayOfNumbers[ranks[i]];
+            }
+
+            return values;
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Finds quantiles of an array of int values, e.g. the median and the 95th and 99th percentiles, in one pass
+     * with {@link #selectAll(int[], int...)}. The quantile p is the value at the nearest rank ceil(p * n) - 1,
+     * i.e. the smallest value that at least the fraction p of the values is not greater than.
+     *
+     * @param arrayOfNumbers The array of int values, which is rearranged.
+     * @param probabilities  The probabilities of the quantiles, from 0 to 1.
+     * @return The quantiles, in the order of the probabilities.
+     */
+    public int[] quantiles(int[] arrayOfNumbers, double... probabilities) {
+        return selectAll(arrayOfNumbers, nearestRanks(probabilities, arrayOfNumbers.length));
+    }
+
+    /**
+     * Finds the k-th smallest of an array of long values without sorting it, in expected linear time.
+     * The array is rearranged so that index k holds the value that would be there if the array were sorted,
+     * with no greater value before it and no smaller value after it.
+     *
+     * @param arrayOfNumbers The array of long values, which is rearranged.
+     * @param k              The index of the value in sorted order, from 0 for the smallest.
+     * @return The k-th smallest value.
+     */
+    public long select(long[] arrayOfNumbers, int k) {
+        Objects.checkIndex(k, arrayOfNumbers.length);
+        metrics.start();
+        try {
+            OperationCounter counter = progressCounter(arrayOfNumbers.length);
+            boolean heapsorted = IntroSelect.select(arrayOfNumbers, 0, arrayOfNumbers.length - 1, k,
+                    IntroSort.depthLimit(arrayOfNumbers.length), counter);
+            countSelection(counter, heapsorted);
+
+            return arrayOfNumbers[k];
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Finds the k smallest or the k largest of an array of long values with a partial sort: the k-th value is
+     * selected first, and only the k values on its side are sorted, which takes O(n + k log k) time.
+     *
+     * @param arrayOfNumbers The array of long values, which is rearranged.
+     * @param k              The number of values.
+     * @param ascending      True for the k smallest values in ascending order, false for the k largest ones
+     *                       in descending order.
+     * @return A new array of the k values.
+     */
+    public long[] topK(long[] arrayOfNumbers, int k, boolean ascending) {
+        int n = arrayOfNumbers.length;
+        Objects.checkFromToIndex(0, k, n);
+        if (k == 0) {
+            return new long[0];
+        }
+        metrics.start();
+        try {
+            // The k values end up at the front for the smallest ones and at the back for the largest ones
+            int from = ascending ? 0 : n - k;
+            OperationCounter counter = progressCounter((long) n + k);
+            boolean heapsorted = IntroSelect.select(arrayOfNumbers, 0, n - 1, ascending ? k - 1 : n - k,
+                    IntroSort.depthLimit(n), counter);
+            IntroSort.sort(arrayOfNumbers, from, from + k - 1, IntroSort.depthLimit(k), counter);
+            countSelection(counter, heapsorted);
+
+            long[] top = new long[k];
+            for (int i = 0; i < k; i++) {
+                top[i] = arrayOfNumbers[ascending ? i : n - 1 - i];
+            }
+            metrics.countMoves(k);
+
+            return top;
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Finds several order statistics of an array of long values in one pass, like {@link #select(long[], int)}
+     * for each of them, but with every partitioning shared by all the ranks it separates.
+     *
+     * @param arrayOfNumbers The array of long values, which is rearranged.
+     * @param ranks          The indices of the values in sorted order, in any order and possibly repeated.
+     * @return The values at the ranks, in the order of the ranks.
+     */
+    public long[] selectAll(long[] arrayOfNumbers, int... ranks) {
+        int[] sortedRanks = sortedDistinct(ranks, arrayOfNumbers.length);
+        metrics.start();
+        try {
+            OperationCounter counter = progressCounter(arrayOfNumbers.length);
+            boolean heapsorted = IntroSelect.selectAll(arrayOfNumbers, 0, arrayOfNumbers.length - 1, sortedRanks, 0,
+                    sortedRanks.length, IntroSort.depthLimit(arrayOfNumbers.length), counter);
+            countSelection(counter, heapsorted);
+
+            long[] values = new long[ranks.length];
+            for (int i = 0; i < ranks.length; i++) {
+                values[i] = arrayOfNumbers[ranks[i]];
+            }
+
+            return values;
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Finds quantiles of an array of long values, e.g. the median and the 95th and 99th percentiles, in one pass
+     * with {@link #selectAll(long[], int...)}. The quantile p is the value at the nearest rank ceil(p * n) - 1,
+     * i.e. the smallest value that at least the fraction p of the values is not greater than.
+     *
+     * @param arrayOfNumbers The array of long values, which is rearranged.
+     * @param probabilities  The probabilities of the quantiles, from 0 to 1.
+     * @return The quantiles, in the order of the probabilities.
+     */
+    public long[] quantiles(long[] arrayOfNumbers, double... probabilities) {
+        return selectAll(arrayOfNumbers, nearestRanks(probabilities, arrayOfNumbers.length));
+    }
+
+    /**
+     * Finds the k-th smallest of an array of double values without sorting it, in expected linear time.
+     * The array is rearranged so that index k holds the value that would be there if the array were sorted,
+     * with no greater value before it and no smaller value after it.
+     * The values are ordered like {@link #sortIndividual(double[])}, by {@link Double#compare(double, double)},
+     * so NaN values are the largest.
+     *
+     * @param arrayOfNumbers The array of double values, which is rearranged.
+     * @param k              The index of the value in sorted order, from 0 for the smallest.
+     * @return The k-th smallest value.
+     */
+    public double select(double[] arrayOfNumbers, int k) {
+        Objects.checkIndex(k, arrayOfNumbers.length);
+        metrics.start();
+        try {
+            OperationCounter counter = progressCounter(arrayOfNumbers.length);
+            boolean heapsorted = IntroSelect.select(arrayOfNumbers, 0, arrayOfNumbers.length - 1, k,
+                    IntroSort.depthLimit(arrayOfNumbers.length), counter);
+            countSelection(counter, heapsorted);
+
+            return arrayOfNumbers[k];
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Finds the k smallest or the k largest of an array of double values with a partial sort: the k-th value is
+     * selected first, and only the k values on its side are sorted, which takes O(n + k log k) time.
+     *
+     * @param arrayOfNumbers The array of double values, which is rearranged.
+     * @param k              The number of values.
+     * @param ascending      True for the k smallest values in ascending order, false for the k largest ones
+     *                       in descending order.
+     * @return A new array of the k values.
+     */
+    public double[] topK(double[] arrayOfNumbers, int k, boolean ascending) {
+        int n = arrayOfNumbers.length;
+        Objects.checkFromToIndex(0, k, n);
+        if (k == 0) {
+            return new double[0];
+        }
+        metrics.start();
+        try {
+            // The k values end up at the front for the smallest ones and at the back for the largest ones
+            int from = ascending ? 0 : n - k;
+            OperationCounter counter = progressCounter((long) n + k);
+            boolean heapsorted = IntroSelect.select(arrayOfNumbers, 0, n - 1, ascending ? k - 1 : n - k,
+                    IntroSort.depthLimit(n), counter);
+            IntroSort.sort(arrayOfNumbers, from, from + k - 1, IntroSort.depthLimit(k), counter);
+            countSelection(counter, heapsorted);
+
+            double[] top = new double[k];
+            for (int i = 0; i < k; i++) {
+                top[i] = arrayOfNumbers[ascending ? i : n - 1 - i];
+            }
+            metrics.countMoves(k);
+
+            return top;
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Finds several order statistics of an array of double values in one pass, like {@link #select(double[], int)}
+     * for each of them, but with every partitioning shared by all the ranks it separates.
+     *
+     * @param arrayOfNumbers The array of double values, which is rearranged.
+     * @param ranks          The indices of the values in sorted order, in any order and possibly repeated.
+     * @return The values at the ranks, in the order of the ranks.
+     */
+    public double[] selectAll(double[] arrayOfNumbers, int... ranks) {
+        int[] sortedRanks = sortedDistinct(ranks, arrayOfNumbers.length);
+        metrics.start();
+        try {
+            OperationCounter counter = progressCounter(arrayOfNumbers.length);
+            boolean heapsorted = IntroSelect.selectAll(arrayOfNumbers, 0, arrayOfNumbers.length - 1, sortedRanks, 0,
+                    sortedRanks.length, IntroSort.depthLimit(arrayOfNumbers.length), counter);
+            countSelection(counter, heapsorted);
+
+            double[] values = new double[ranks.length];
+            for (int i = 0; i < ranks.length; i++) {
+                values[i] = arrayOfNumbers[ranks[i]];
+            }
+
+            return values;
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Finds quantiles of an array of double values, e.g. the median and the 95th and 99th percentiles, in one pass
+     * with {@link #selectAll(double[], int...)}. The quantile p is the value at the nearest rank ceil(p * n) - 1,
+     * i.e. the smallest value that at least the fraction p of the values is not greater than.
+     *
+     * @param arrayOfNumbers The array of double values, which is rearranged.
+     * @param probabilities  The probabilities of the quantiles, from 0 to 1.
+     * @return The quantiles, in the order of the probabilities.
+     */
+    public double[] quantiles(double[] arrayOfNumbers, double... probabilities) {
+        return selectAll(arrayOfNumbers, nearestRanks(probabilities, arrayOfNumbers.length));
+    }
+
+    /**
+     * Validates ranks and sorts them, without the repeated ones.
+     *
+     * @param ranks  The ranks.
+     * @param length The length of the array.
+     * @return The distinct ranks in ascending order.
+     */
+    private static int[] sortedDistinct(int[] ranks, int length) {
+        int[] sorted = ranks.clone();
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int rank : sorted) {
+            Objects.checkIndex(rank, length);
+            if (count == 0 || sorted[count - 1] != rank) {
+                sorted[count++] = rank;
+            }
+        }
+        return Arrays.copyOf(sorted, count);
+    }
+
+    /**
+     * Converts the probabilities of quantiles to their nearest ranks.
+     *
+     * @param probabilities The probabilities, from 0 to 1.
+     * @param length        The length of the array.
+     * @return The ranks, in the order of the probabilities.
+     */
+    private static int[] nearestRanks(double[] probabilities, int length) {
+        if (length == 0 && probabilities.length > 0) {
+            throw new IllegalArgumentException("An empty array has no quantiles");
+        }
+        int[] ranks = new int[probabilities.length];
+        for (int i = 0; i < ranks.length; i++) {
+            double probability = probabilities[i];
+            if (!(probability >= 0 && probability <= 1)) {
+                throw new IllegalArgumentException("The probability of a quantile must be from 0 to 1, not " + probability);
+            }
+            ranks[i] = Math.max((int) Math.ceil(probability * length) - 1, 0);
+        }
+        return ranks;
+    }
+
+    /**
+     * Passes the counts of a selection to the metrics and records whether it had to fall back to heapsort.
+     *
+     * @param counter    The counter of the selection.
+     * @param heapsorted Whether the depth limit was reached and a range was heapsorted.
+     */
+    private void countSelection(OperationCounter counter, boolean heapsorted) {
+        metrics.count(counter);
+        metrics.setStrategy(heapsorted ? "HEAPSORT" : "INTROSELECT");
+    }
+
+    /**
+     * Partitions a portion of the array of Integer elements for the Quick Sort algorithm.
      *
      * @param arrayOfNumbers The array to be partitioned.
      * @param first          The index of the first element to be considered.
      * @param last           The index of the last element to be considered.
      * @return The pivot index after partitioning.
      */
-    private int sortThePart(Comparable[] arrayOfNumbers, int first, int last) {
+    private int sortThePart(Integer[] arrayOfNumbers, int first, int last) {
+        // Every element of the range except the pivot is compared with the pivot once
+        metrics.countComparisons(last - first);
+
         // Choose a random pivot index within the specified range
-        int pivotIndex = new Random().nextInt(first, last + 1);
+        int pivotIndex = ThreadLocalRandom.current().nextInt(first, last + 1);
 
         // Swap the pivot element with the last element in the range
         swap(arrayOfNumbers, pivotIndex, last);
@@ -107,22 +567,280 @@ public class QuickSort extends Sort {
         return i;
     }
 
+    /**
+     * Sorts an array of int values with the algorithm of this instance, in parallel if the instance has a pool.
+     *
+     * @param arrayOfNumbers The array to be sorted.
+     */
+    private void sort(int[] arrayOfNumbers) {
+        if (pool != null && arrayOfNumbers.length > PARALLEL_THRESHOLD) {
+            OperationCounter counter = new OperationCounter();
+            ParallelQuickSort.sort(arrayOfNumbers, pool, counter);
+            metrics.count(counter);
+        } else if (mode == Mode.INTROSORT) {
+            // The progress is the number of elements in their final place
+            OperationCounter counter = progressCounter(arrayOfNumbers.length);
+            IntroSort.sort(arrayOfNumbers, counter);
+            metrics.count(counter);
+        } else {
+            placed = 0;
+            quickSort(arrayOfNumbers, 0, arrayOfNumbers.length - 1);
+        }
+    }
+
+    /**
+     * Sorts an array of long values with the algorithm of this instance, in parallel if the instance has a pool.
+     *
+     * @param arrayOfNumbers The array to be sorted.
+     */
+    private void sort(long[] arrayOfNumbers) {
+        if (pool != null && arrayOfNumbers.length > PARALLEL_THRESHOLD) {
+            OperationCounter counter = new OperationCounter();
+            ParallelQuickSort.sort(arrayOfNumbers, pool, counter);
+            metrics.count(counter);
+        } else if (mode == Mode.INTROSORT) {
+            // The progress is the number of elements in their final place
+            OperationCounter counter = progressCounter(arrayOfNumbers.length);
+            IntroSort.sort(arrayOfNumbers, counter);
+            metrics.count(counter);
+        } else {
+            placed = 0;
+            quickSort(arrayOfNumbers, 0, arrayOfNumbers.length - 1);
+        }
+    }
+
+    /**
+     * Sorts an array of double values with the algorithm of this instance, in parallel if the instance has a pool.
+     *
+     * @param arrayOfNumbers The array to be sorted.
+     */
+    private void sort(double[] arrayOfNumbers) {
+        if (pool != null && arrayOfNumbers.length > PARALLEL_THRESHOLD) {
+            OperationCounter counter = new OperationCounter();
+            ParallelQuickSort.sort(arrayOfNumbers, pool, counter);
+            metrics.count(counter);
+        } else if (mode == Mode.INTROSORT) {
+            // The progress is the number of elements in their final place
+            OperationCounter counter = progressCounter(arrayOfNumbers.length);
+            IntroSort.sort(arrayOfNumbers, counter);
+            metrics.count(counter);
+        } else {
+            placed = 0;
+            quickSort(arrayOfNumbers, 0, arrayOfNumbers.length - 1);
+        }
+    }
+
+    /**
+     * Performs the Quick Sort algorithm on an array of int values.
+     *
+     * @param arrayOfNumbers The array to be sorted.
+     * @param first          The index of the first element to be considered.
+     * @param last           The index of the last element to be considered.
+     */
+    private void quickSort(int[] arrayOfNumbers, int first, int last) {
+        if (first < last) {
+            int i = sortThePart(arrayOfNumbers, first, last);
+
+            // The pivot is in its final place
+            checkpoint(++placed, arrayOfNumbers.length);
+
+            quickSort(arrayOfNumbers, first, i - 1);
+            quickSort(arrayOfNumbers, i + 1, last);
+        } else if (first == last) {
+            placed++;
+        }
+    }
+
+    /**
+     * Partitions a portion of the array of int values for the Quick Sort algorithm.
+     *
+     * @param arrayOfNumbers The array to be partitioned.
+     * @param first          The index of the first element to be considered.
+     * @param last           The index of the last element to be considered.
+     * @return The pivot index after partitioning.
+     */
+    private int sortThePart(int[] arrayOfNumbers, int first, int last) {
+        // Every element of the range except the pivot is compared with the pivot once
+        metrics.countComparisons(last - first);
+
+        int pivotIndex = ThreadLocalRandom.current().nextInt(first, last + 1);
+        swap(arrayOfNumbers, pivotIndex, last);
+
+        int pivot = arrayOfNumbers[last];
+        int i = first - 1;
+
+        for (int j = first; j < last; j++) {
+            if (arrayOfNumbers[j] < pivot) {
+                i++;
+                swap(arrayOfNumbers, i, j);
+            }
+        }
+
+        i++;
+        swap(arrayOfNumbers, i, last);
+        return i;
+    }
+
+    /**
+     * Swaps two elements in an array of int values.
+     *
+     * @param arrayOfNumbers The array in which elements are swapped.
+     * @param first          The index of the first element to be swapped.
+     * @param second         The index of the second element to be swapped.
+     */
+    private void swap(int[] arrayOfNumbers, int first, int second) {
+        int temp = arrayOfNumbers[first];
+        arrayOfNumbers[first] = arrayOfNumbers[second];
+        arrayOfNumbers[second] = temp;
+        metrics.countMoves(2);
+    }
+
+    /**
+     * Performs the Quick Sort algorithm on an array of long values.
+     *
+     * @param arrayOfNumbers The array to be sorted.
+     * @param first          The index of the first element to be considered.
+     * @param last           The index of the last element to be considered.
+     */
+    private void quickSort(long[] arrayOfNumbers, int first, int last) {
+        if (first < last) {
+            int i = sortThePart(arrayOfNumbers, first, last);
+
+            // The pivot is in its final place
+            checkpoint(++placed, arrayOfNumbers.length);
+
+            quickSort(arrayOfNumbers, first, i - 1);
+            quickSort(arrayOfNumbers, i + 1, last);
+        } else if (first == last) {
+            placed++;
+        }
+    }
+
+    /**
+     * Partitions a portion of the array of long values for the Quick Sort algorithm.
+     *
+     * @param arrayOfNumbers The array to be partitioned.
+     * @param first          The index of the first element to be considered.
+     * @param last           The index of the last element to be considered.
+     * @return The pivot index after partitioning.
+     */
+    private int sortThePart(long[] arrayOfNumbers, int first, int last) {
+        // Every element of the range except the pivot is compared with the pivot once
+        metrics.countComparisons(last - first);
+
+        int pivotIndex = ThreadLocalRandom.current().nextInt(first, last + 1);
+        swap(arrayOfNumbers, pivotIndex, last);
+
+        long pivot = arrayOfNumbers[last];
+        int i = first - 1;
+
+        for (int j = first; j < last; j++) {
+            if (arrayOfNumbers[j] < pivot) {
+                i++;
+                swap(arrayOfNumbers, i, j);
+            }
+        }
+
+        i++;
+        swap(arrayOfNumbers, i, last);
+        return i;
+    }
+
+    /**
+     * Swaps two elements in an array of long values.
+     *
+     * @param arrayOfNumbers The array in which elements are swapped.
+     * @param first          The index of the first element to be swapped.
+     * @param second         The index of the second element to be swapped.
+     */
+    private void swap(long[] arrayOfNumbers, int first, int second) {
+        long temp = arrayOfNumbers[first];
+        arrayOfNumbers[first] = arrayOfNumbers[second];
+        arrayOfNumbers[second] = temp;
+        metrics.countMoves(2);
+    }
+
+    /**
+     * Performs the Quick Sort algorithm on an array of double values.
+     *
+     * @param arrayOfNumbers The array to be sorted.
+     * @param first          The index of the first element to be considered.
+     * @param last           The index of the last element to be considered.
+     */
+    private void quickSort(double[] arrayOfNumbers, int first, int last) {
+        if (first < last) {
+            int i = sortThePart(arrayOfNumbers, first, last);
+
+            // The pivot is in its final place
+            checkpoint(++placed, arrayOfNumbers.length);
+
+            quickSort(arrayOfNumbers, first, i - 1);
+            quickSort(arrayOfNumbers, i + 1, last);
+        } else if (first == last) {
+            placed++;
+        }
+    }
+
+    /**
+     * Partitions a portion of the array of double values for the Quick Sort algorithm.
+     *
+     * @param arrayOfNumbers The array to be partitioned.
+     * @param first          The index of the first element to be considered.
+     * @param last           The index of the last element to be considered.
+     * @return The pivot index after partitioning.
+     */
+    private int sortThePart(double[] arrayOfNumbers, int first, int last) {
+        // Every element of the range except the pivot is compared with the pivot once
+        metrics.countComparisons(last - first);
+
+        int pivotIndex = ThreadLocalRandom.current().nextInt(first, last + 1);
+        swap(arrayOfNumbers, pivotIndex, last);
+
+        double pivot = arrayOfNumbers[last];
+        int i = first - 1;
+
+        for (int j = first; j < last; j++) {
+            if (Double.compare(arrayOfNumbers[j], pivot) < 0) {
+                i++;
+                swap(arrayOfNumbers, i, j);
+            }
+        }
+
+        i++;
+        swap(arrayOfNumbers, i, last);
+        return i;
+    }
+
+    /**
+     * Swaps two elements in an array of double values.
+     *
+     * @param arrayOfNumbers The array in which elements are swapped.
+     * @param first          The index of the first element to be swapped.
+     * @param second         The index of the second element to be swapped.
+     */
+    private void swap(double[] arrayOfNumbers, int first, int second) {
+        double temp = arrayOfNumbers[first];
+        arrayOfNumbers[first] = arrayOfNumbers[second];
+        arrayOfNumbers[second] = temp;
+        metrics.countMoves(2);
+    }
+
     /**
      * Performs the Quick Sort algorithm with intermediate steps on a one-dimensional array of Integer elements.
      *
      * @param arrayOfNumbers The array to be sorted.
      * @param first          The index of the first element to be considered.
      * @param last           The index of the last element to be considered.
-     * @param steps          An ArrayList to store intermediate sorting states.
+     * @param steps          The step log to record intermediate sorting states in.
      */
-    private void quickSortWithSteps(Integer[] arrayOfNumbers, int first, int last, ArrayList<Integer[]> steps) {
+    private void quickSortWithSteps(Integer[] arrayOfNumbers, int first, int last, StepLog steps) {
 
         if (first < last) {
             // Partition the array and get the pivot index
             int i = sortThePart(arrayOfNumbers, first, last);
 
-            // Store the current state of the array in the steps ArrayList
-            steps.add(Arrays.copyOf(arrayOfNumbers, arrayOfNumbers.length));
+            // Record the current state of the array; the partitioning changed only the range [first, last]
+            steps.record(arrayOfNumbers, first, last + 1);
 
             // Recursively sort the subarrays before and after the pivot
             quickSortWithSteps(arrayOfNumbers, first, i - 1, steps);
@@ -131,33 +849,51 @@ public class QuickSort extends Sort {
     }
 
     /**
-     * Swaps two elements in an array.
+     * Swaps two elements in an array of Integer elements.
      *
      * @param arrayOfNumbers The array in which elements are swapped.
      * @param first          The index of the first element to be swapped.
      * @param second         The index of the second element to be swapped.
      */
-    private void swap(Comparable[] arrayOfNumbers, int first, int second) {
-        Comparable temp = arrayOfNumbers[first];
+    private void swap(Integer[] arrayOfNumbers, int first, int second) {
+        Integer temp = arrayOfNumbers[first];
         arrayOfNumbers[first] = arrayOfNumbers[second];
         arrayOfNumbers[second] = temp;
+        metrics.countMoves(2);
     }
 
     /**
-     * Sorts a one-dimensional array of Integer elements with intermediate steps and returns a list of intermediate sorting states.
+     * Sorts a one-dimensional array of Integer elements and records the state after every partitioning
+     * in a step log.
      *
      * @param arrayOfNumbers The array of Integer elements to be sorted.
-     * @return An ArrayList of arrays representing intermediate sorting states.
+     * @param steps          The step log to record the intermediate sorting states in.
      */
     @Override
-    public ArrayList<Integer[]> sortLabWithSteps(Integer[] arrayOfNumbers) {
-        ArrayList<Integer[]> steps = new ArrayList<>();
-
-        startOfSorting = LocalTime.now();
+    public void sortLabWithSteps(Integer[] arrayOfNumbers, StepLog steps) {
+        metrics.start();
+        try {
+            steps.setInitialState(arrayOfNumbers);
+            quickSortWithSteps(arrayOfNumbers, 0, arrayOfNumbers.length - 1, steps);
+        } finally {
+            metrics.stop();
+        }
+    }
 
-        quickSortWithSteps(arrayOfNumbers, 0, arrayOfNumbers.length - 1, steps);
+    /**
+     * The algorithms that QuickSort can use.
+     */
+    public enum Mode {
+        /**
+         * The lab algorithm: a random pivot, two-way partitioning and recursion into both parts.
+         * It degrades to quadratic time and deep recursion on inputs with few distinct values.
+         */
+        CLASSIC,
 
-        endOfSorting = LocalTime.now();
-        return steps;
+        /**
+         * Introsort: three-way partitioning around a median-of-three pivot, insertion sort for small ranges,
+         * heapsort when the partitioning gets too deep, and recursion only into the smaller part.
+         */
+        INTROSORT
     }
 }
@@ -0,0 +1,423 @@
+package com.mhorak.dsa.sort;
+
+/**
+ * This class implements the least significant digit Radix Sort algorithm for int, long and double keys.
+ * <p>
+ * Every pass distributes the keys by one digit of {@code bitsPerPass} bits, from the lowest digit to the highest,
+ * so the running time is linear in the number of keys for any range of values. Signed keys are sorted by their
+ * bits with the sign bit flipped, and double keys by the IEEE-754 bits transformed by {@link #sortableBits(double)}.
+ * The histograms of all digits are counted in one pass over the keys, and the passes in which all keys share
+ * the same digit are skipped.
+ */
+public class RadixSort extends Sort {
+    /**
+     * The number of bits of a digit, which makes 3 passes for int keys and 6 for long keys.
+     */
+    public static final int DEFAULT_BITS_PER_PASS = 11;
+
+    /**
+     * The number of bits of the digit of one pass.
+     */
+    private final int bitsPerPass;
+
+    /**
+     * Constructs a RadixSort instance that sorts by digits of {@link #DEFAULT_BITS_PER_PASS} bits.
+     */
+    public RadixSort() {
+        this(DEFAULT_BITS_PER_PASS);
+    }
+
+    /**
+     * Constructs a RadixSort instance that sorts by digits of the given size. Wider digits make fewer passes
+     * over the keys, but larger histograms.
+     *
+     * @param bitsPerPass The number of bits of a digit: 8, 11 or 16.
+     * @throws IllegalArgumentException If the number of bits is not supported.
+     */
+    public RadixSort(int bitsPerPass) {
+        if (bitsPerPass != 8 && bitsPerPass != 11 && bitsPerPass != 16) {
+            throw new IllegalArgumentException("Radix Sort supports digits of 8, 11 or 16 bits, not " + bitsPerPass);
+        }
+        this.bitsPerPass = bitsPerPass;
+    }
+
+    /**
+     * Maps a double value to a long value with the same order: the bits of a negative value are inverted
+     * except for the sign bit, so that comparing the results as signed longs orders the values like
+     * {@link Double#compare(double, double)}.
+     *
+     * @param value The double value.
+     * @return The long value with the same order.
+     */
+    static long sortableBits(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * Maps a value of {@link #sortableBits(double)} back to the double value.
+     *
+     * @param bits The long value with the order of the double value.
+     * @return The double value.
+     */
+    static double fromSortableBits(long bits) {
+        return Double.longBitsToDouble(bits ^ ((bits >> 63) & Long.MAX_VALUE));
+    }
+
+    /**
+     * Sorts a one-dimensional array of Double elements.
+     *
+     * @param arrayOfNumbers The array of Double elements to be sorted.
+     * @return The sorted array of Double elements.
+     */
+    @Override
+    public Double[] sortIndividual(Double[] arrayOfNumbers) {
+        metrics.start();
+        try {
+            double[] values = unbox(arrayOfNumbers);
+            sortIndividual(values);
+            box(values, arrayOfNumbers);
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Sorts a one-dimensional array of double values in-place using Radix Sort.
+     *
+     * @param arrayOfNumbers The array of double values to be sorted.
+     * @return The sorted array of double values.
+     */
+    @Override
+    public double[] sortIndividual(double[] arrayOfNumbers) {
+        metrics.start();
+        try {
+            long phaseStart = System.nanoTime();
+            long[] keys = new long[arrayOfNumbers.length];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = sortableBits(arrayOfNumbers[i]);
+            }
+            metrics.recordPhase("keys", phaseStart);
+
+            radixSort(keys, null, bitsPerPass, this);
+
+            phaseStart = System.nanoTime();
+            for (int i = 0; i < keys.length; i++) {
+                arrayOfNumbers[i] = fromSortableBits(keys[i]);
+            }
+            metrics.countMoves(2L * keys.length);
+            metrics.recordPhase("keys", phaseStart);
+
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Sorts the columns of a two-dimensional array of Double elements by the values in the first row,
+     * like {@link CountingSort#sortIndividual(Double[][])}, and returns the sorted array.
+     * The columns are not transposed: the keys are sorted together with the indices of their columns,
+     * and the rows are then permuted one by one.
+     *
+     * @param arrayOfNumbers The array of Double elements to be sorted.
+     * @return A new array with the sorted columns.
+     */
+    @Override
+    public Double[][] sortIndividual(Double[][] arrayOfNumbers) {
+        if (arrayOfNumbers.length == 0) {
+            return arrayOfNumbers;
+        }
+
+        metrics.start();
+        try {
+            int rows = arrayOfNumbers.length;
+            int cols = arrayOfNumbers[0].length;
+
+            // The first row holds the keys of the columns
+            long phaseStart = System.nanoTime();
+            long[] keys = new long[cols];
+            int[] order = new int[cols];
+            for (int i = 0; i < cols; i++) {
+                keys[i] = sortableBits(arrayOfNumbers[0][i]);
+                order[i] = i;
+            }
+            metrics.recordPhase("keys", phaseStart);
+
+            radixSort(keys, order, bitsPerPass, this);
+
+            // Move the columns to their sorted positions
+            phaseStart = System.nanoTime();
+            Double[][] sorted = new Double[rows][cols];
+            for (int i = 0; i < rows; i++) {
+                Double[] source = arrayOfNumbers[i];
+                Double[] target = sorted[i];
+                for (int j = 0; j < cols; j++) {
+                    target[j] = source[order[j]];
+                }
+            }
+            metrics.countMoves((long) rows * cols);
+            metrics.recordPhase("permute", phaseStart);
+
+            return sorted;
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Calculates the stable sorted order of long keys by sorting the keys with their indices as the payload,
+     * which is stable for keys of any range.
+     *
+     * @param keys The keys, which are overwritten.
+     * @return The sorted order.
+     */
+    @Override
+    int[] sortedOrder(long[] keys) {
+        metrics.start();
+        try {
+            int[] order = new int[keys.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            radixSort(keys, order, bitsPerPass, this);
+            return order;
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Sorts the array of Integer elements using Radix Sort and returns the sorted array.
+     *
+     * @param arrayOfNumbers The array of Integer elements to be sorted.
+     * @return The sorted array of Integer elements.
+     */
+    @Override
+    public Integer[] sortLab(Integer[] arrayOfNumbers) {
+        metrics.start();
+        try {
+            int[] values = unbox(arrayOfNumbers);
+            sortLab(values);
+            box(values, arrayOfNumbers);
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Sorts the array of int values in-place using Radix Sort and returns the sorted array.
+     *
+     * @param arrayOfNumbers The array of int values to be sorted.
+     * @return The sorted array of int values.
+     */
+    @Override
+    public int[] sortLab(int[] arrayOfNumbers) {
+        metrics.start();
+        try {
+            radixSort(arrayOfNumbers, null, bitsPerPass, this);
+
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Sorts the array of long values in-place using Radix Sort and returns the sorted array.
+     *
+     * @param arrayOfNumbers The array of long values to be sorted.
+     * @return The sorted array of long values.
+     */
+    @Override
+    public long[] sortLab(long[] arrayOfNumbers) {
+        metrics.start();
+        try {
+            radixSort(arrayOfNumbers, null, bitsPerPass, this);
+
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Sorts the array of Integer elements using Radix Sort and records the initial array and the array after
+     * every pass in a step log.
+     *
+     * @param arrayOfNumbers The array of Integer elements to be sorted.
+     * @param steps          The step log to record the intermediate sorting states in.
+     */
+    @Override
+    public void sortLabWithSteps(Integer[] arrayOfNumbers, StepLog steps) {
+        steps.record(arrayOfNumbers);
+
+        metrics.start();
+        try {
+            int[] values = unbox(arrayOfNumbers);
+            radixSort(values, steps, bitsPerPass, this);
+            box(values, arrayOfNumbers);
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Performs Radix Sort on an array of int values.
+     *
+     * @param array       The array to be sorted.
+     * @param steps       The step log to record the state of the array in after every pass, or null.
+     * @param bitsPerPass The number of bits of a digit.
+     * @param sort        The sort to record the metrics of and to report the progress to.
+     */
+    static void radixSort(int[] array, StepLog steps, int bitsPerPass, Sort sort) {
+        SortMetrics metrics = sort.metrics;
+        int n = array.length;
+        if (n < 2) {
+            return;
+        }
+
+        int mask = (1 << bitsPerPass) - 1;
+        int passes = (Integer.SIZE + bitsPerPass - 1) / bitsPerPass;
+
+        // Count the digits of all passes at once; flipping the sign bit orders negative values first
+        long phaseStart = System.nanoTime();
+        int[][] counts = new int[passes][mask + 1];
+        for (int value : array) {
+            int key = value ^ Integer.MIN_VALUE;
+            for (int pass = 0; pass < passes; pass++) {
+                counts[pass][(key >>> (pass * bitsPerPass)) & mask]++;
+            }
+        }
+        metrics.recordPhase("histogram", phaseStart);
+
+        phaseStart = System.nanoTime();
+        int[] source = array, target = new int[n];
+        for (int pass = 0; pass < passes; pass++) {
+            sort.checkpoint(pass, passes);
+            int shift = pass * bitsPerPass;
+            int[] count = counts[pass];
+
+            // A pass in which all keys have the same digit would not move anything
+            if (count[((source[0] ^ Integer.MIN_VALUE) >>> shift) & mask] == n) {
+                continue;
+            }
+
+            // Turn the counts into the first positions of the digits
+            int position = 0;
+            for (int digit = 0; digit <= mask; digit++) {
+                int digitCount = count[digit];
+                count[digit] = position;
+                position += digitCount;
+            }
+
+            for (int i = 0; i < n; i++) {
+                int value = source[i];
+                target[count[((value ^ Integer.MIN_VALUE) >>> shift) & mask]++] = value;
+            }
+            metrics.countMoves(n);
+
+            int[] swap = source;
+            source = target;
+            target = swap;
+
+            if (steps != null) {
+                steps.record(source);
+            }
+        }
+
+        // After an odd number of passes the sorted keys are in the buffer
+        if (source != array) {
+            System.arraycopy(source, 0, array, 0, n);
+            metrics.countMoves(n);
+        }
+        metrics.recordPhase("scatter", phaseStart);
+    }
+
+    /**
+     * Performs Radix Sort on an array of long values, optionally moving a payload of int values along with them.
+     *
+     * @param array       The array to be sorted.
+     * @param payload     The array whose elements are moved together with the elements of the same index, or null.
+     * @param bitsPerPass The number of bits of a digit.
+     * @param sort        The sort to record the metrics of and to report the progress to.
+     */
+    static void radixSort(long[] array, int[] payload, int bitsPerPass, Sort sort) {
+        SortMetrics metrics = sort.metrics;
+        int n = array.length;
+        if (n < 2) {
+            return;
+        }
+
+        int mask = (1 << bitsPerPass) - 1;
+        int passes = (Long.SIZE + bitsPerPass - 1) / bitsPerPass;
+
+        // Count the digits of all passes at once; flipping the sign bit orders negative values first
+        long phaseStart = System.nanoTime();
+        int[][] counts = new int[passes][mask + 1];
+        for (long value : array) {
+            long key = value ^ Long.MIN_VALUE;
+            for (int pass = 0; pass < passes; pass++) {
+                counts[pass][(int) (key >>> (pass * bitsPerPass)) & mask]++;
+            }
+        }
+        metrics.recordPhase("histogram", phaseStart);
+
+        phaseStart = System.nanoTime();
+        long[] source = array, target = new long[n];
+        int[] sourcePayload = payload, targetPayload = payload == null ? null : new int[n];
+        for (int pass = 0; pass < passes; pass++) {
+            sort.checkpoint(pass, passes);
+            int shift = pass * bitsPerPass;
+            int[] count = counts[pass];
+
+            // A pass in which all keys have the same digit would not move anything
+            if (count[(int) ((source[0] ^ Long.MIN_VALUE) >>> shift) & mask] == n) {
+                continue;
+            }
+
+            // Turn the counts into the first positions of the digits
+            int position = 0;
+            for (int digit = 0; digit <= mask; digit++) {
+                int digitCount = count[digit];
+                count[digit] = position;
+                position += digitCount;
+            }
+
+            if (payload == null) {
+                for (int i = 0; i < n; i++) {
+                    long value = source[i];
+                    target[count[(int) ((value ^ Long.MIN_VALUE) >>> shift) & mask]++] = value;
+                }
+            } else {
+                for (int i = 0; i < n; i++) {
+                    long value = source[i];
+                    int index = count[(int) ((value ^ Long.MIN_VALUE) >>> shift) & mask]++;
+                    target[index] = value;
+                    targetPayload[index] = sourcePayload[i];
+                }
+            }
+            metrics.countMoves(n);
+
+            long[] swap = source;
+            source = target;
+            target = swap;
+
+            int[] swapPayload = sourcePayload;
+            sourcePayload = targetPayload;
+            targetPayload = swapPayload;
+        }
+
+        // After an odd number of passes the sorted keys are in the buffer
+        if (source != array) {
+            System.arraycopy(source, 0, array, 0, n);
+            if (payload != null) {
+                System.arraycopy(sourcePayload, 0, payload, 0, n);
+            }
+            metrics.countMoves(n);
+        }
+        metrics.recordPhase("scatter", phaseStart);
+    }
+}
@@ -1,6 +1,5 @@
 package com.mhorak.dsa.sort;
 
-import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 
@@ -10,35 +9,33 @@ import java.util.Arrays;
 public class SelectionSort extends Sort {
 
     /**
-     * Constructs a SelectionSort instance with the given array of numbers.
-     */
-    public SelectionSort() {
-        startOfSorting = LocalTime.now();
-        endOfSorting = LocalTime.now();
-    }
-
-    /**
-     * Sorts the array with steps and returns a list of intermediate sorting states.
+     * Sorts the array and records the state after every swap in a step log.
      *
      * @param arrayOfNumbers The array of Integer elements to be sorted.
-     * @return An ArrayList of arrays representing intermediate sorting states.
+     * @param steps          The step log to record the intermediate sorting states in.
      */
     @Override
-    public ArrayList<Integer[]> sortLabWithSteps(Integer[] arrayOfNumbers) {
-        ArrayList<Integer[]> steps = new ArrayList<>();
+    public void sortLabWithSteps(Integer[] arrayOfNumbers, StepLog steps) {
+        metrics.start();
+        try {
+            steps.setInitialState(arrayOfNumbers);
 
-        startOfSorting = LocalTime.now();
+            for (int i = 0; i < arrayOfNumbers.length; i++) {
+                int indexOfLowest = findMin(i, arrayOfNumbers);
+                swap(i, indexOfLowest, arrayOfNumbers);
 
-        for (int i = 0; i < arrayOfNumbers.length; i++) {
-            int indexOfLowest = findMin(i, arrayOfNumbers);
-            swap(i, indexOfLowest, arrayOfNumbers);
+                // A swap changes only two positions
+                steps.recordChange(i, arrayOfNumbers[i]);
+                steps.recordChange(indexOfLowest, arrayOfNumbers[indexOfLowest]);
+                steps.endStep();
+            }
 
-            steps.add(Arrays.copyOf(arrayOfNumbers, arrayOfNumbers.length));
+            // Every pass compares the rest of the array and swaps once
+            metrics.countComparisons((long) arrayOfNumbers.length * (arrayOfNumbers.length - 1) / 2);
+            metrics.countMoves(2L * arrayOfNumbers.length);
+        } finally {
+            metrics.stop();
         }
-
-        endOfSorting = LocalTime.now();
-
-        return steps;
     }
 
     /**
@@ -50,18 +47,23 @@ public class SelectionSort extends Sort {
     public ArrayList<Double[]> sortIndividualWithSteps(Double[] arrayOfNumbers) {
         ArrayList<Double[]> steps = new ArrayList<>();
 
-        startOfSorting = LocalTime.now();
+        metrics.start();
+        try {
+            for (int i = 0; i < arrayOfNumbers.length; i++) {
+                int indexOfLowest = findMin(i, arrayOfNumbers);
+                swap(i, indexOfLowest, arrayOfNumbers);
 
-        for (int i = 0; i < arrayOfNumbers.length; i++) {
-            int indexOfLowest = findMin(i, arrayOfNumbers);
-            swap(i, indexOfLowest, arrayOfNumbers);
-
-            steps.add(Arrays.copyOf(arrayOfNumbers, arrayOfNumbers.length));
-        }
+                steps.add(Arrays.copyOf(arrayOfNumbers, arrayOfNumbers.length));
+            }
 
-        endOfSorting = LocalTime.now();
+            // Every pass compares the rest of the array and swaps once
+            metrics.countComparisons((long) arrayOfNumbers.length * (arrayOfNumbers.length - 1) / 2);
+            metrics.countMoves(2L * arrayOfNumbers.length);
 
-        return steps;
+            return steps;
+        } finally {
+            metrics.stop();
+        }
     }
 
     /**
@@ -72,16 +74,87 @@ public class SelectionSort extends Sort {
      */
     @Override
     public Integer[] sortLab(Integer[] arrayOfNumbers) {
-        startOfSorting = LocalTime.now();
+        metrics.start();
+        try {
+            int[] values = unbox(arrayOfNumbers);
+            sortLab(values);
+            box(values, arrayOfNumbers);
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Sorts the array of int values in-place and returns the sorted array.
+     *
+     * @param arrayOfNumbers The array of int values to be sorted.
+     * @return The sorted array.
+     */
+    @Override
+    public int[] sortLab(int[] arrayOfNumbers) {
+        metrics.start();
+        try {
+            long totalComparisons = (long) arrayOfNumbers.length * (arrayOfNumbers.length - 1) / 2;
+            for (int i = 0; i < arrayOfNumbers.length; i++) {
+                // The passes before this one made i * (2n - i - 1) / 2 comparisons
+                checkpoint((long) i * (2L * arrayOfNumbers.length - i - 1) / 2, totalComparisons);
+
+                int indexOfLowest = i;
+                for (int j = i + 1; j < arrayOfNumbers.length; j++) {
+                    if (arrayOfNumbers[j] < arrayOfNumbers[indexOfLowest]) {
+                        indexOfLowest = j;
+                    }
+                }
+                int temp = arrayOfNumbers[i];
+                arrayOfNumbers[i] = arrayOfNumbers[indexOfLowest];
+                arrayOfNumbers[indexOfLowest] = temp;
+            }
 
-        for (int i = 0; i < arrayOfNumbers.length; i++) {
-            int indexOfLowest = findMin(i, arrayOfNumbers);
-            swap(i, indexOfLowest, arrayOfNumbers);
+            // Every pass compares the rest of the array and swaps once
+            metrics.countComparisons(totalComparisons);
+            metrics.countMoves(2L * arrayOfNumbers.length);
+
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
         }
+    }
 
-        endOfSorting = LocalTime.now();
+    /**
+     * Sorts the array of long values in-place and returns the sorted array.
+     *
+     * @param arrayOfNumbers The array of long values to be sorted.
+     * @return The sorted array.
+     */
+    @Override
+    public long[] sortLab(long[] arrayOfNumbers) {
+        metrics.start();
+        try {
+            long totalComparisons = (long) arrayOfNumbers.length * (arrayOfNumbers.length - 1) / 2;
+            for (int i = 0; i < arrayOfNumbers.length; i++) {
+                // The passes before this one made i * (2n - i - 1) / 2 comparisons
+                checkpoint((long) i * (2L * arrayOfNumbers.length - i - 1) / 2, totalComparisons);
+
+                int indexOfLowest = i;
+                for (int j = i + 1; j < arrayOfNumbers.length; j++) {
+                    if (arrayOfNumbers[j] < arrayOfNumbers[indexOfLowest]) {
+                        indexOfLowest = j;
+                    }
+                }
+                long temp = arrayOfNumbers[i];
+                arrayOfNumbers[i] = arrayOfNumbers[indexOfLowest];
+                arrayOfNumbers[indexOfLowest] = temp;
+            }
 
-        return arrayOfNumbers;
+            // Every pass compares the rest of the array and swaps once
+            metrics.countComparisons(totalComparisons);
+            metrics.countMoves(2L * arrayOfNumbers.length);
+
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
     }
 
     /**
@@ -91,16 +164,51 @@ public class SelectionSort extends Sort {
      * @return The sorted array.
      */
     public Double[] sortIndividual(Double[] arrayOfNumbers) {
-        startOfSorting = LocalTime.now();
-
-        for (int i = 0; i < arrayOfNumbers.length; i++) {
-            int indexOfLowest = findMin(i, arrayOfNumbers);
-            swap(i, indexOfLowest, arrayOfNumbers);
+        metrics.start();
+        try {
+            double[] values = unbox(arrayOfNumbers);
+            sortIndividual(values);
+            box(values, arrayOfNumbers);
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
         }
+    }
 
-        endOfSorting = LocalTime.now();
+    /**
+     * Sorts the array of double values in-place and returns the sorted array.
+     *
+     * @param arrayOfNumbers The array of double values to be sorted.
+     * @return The sorted array.
+     */
+    @Override
+    public double[] sortIndividual(double[] arrayOfNumbers) {
+        metrics.start();
+        try {
+            long totalComparisons = (long) arrayOfNumbers.length * (arrayOfNumbers.length - 1) / 2;
+            for (int i = 0; i < arrayOfNumbers.length; i++) {
+                // The passes before this one made i * (2n - i - 1) / 2 comparisons
+                checkpoint((long) i * (2L * arrayOfNumbers.length - i - 1) / 2, totalComparisons);
+
+                int indexOfLowest = i;
+                for (int j = i + 1; j < arrayOfNumbers.length; j++) {
+                    if (Double.compare(arrayOfNumbers[j], arrayOfNumbers[indexOfLowest]) < 0) {
+                        indexOfLowest = j;
+                    }
+                }
+                double temp = arrayOfNumbers[i];
+                arrayOfNumbers[i] = arrayOfNumbers[indexOfLowest];
+                arrayOfNumbers[indexOfLowest] = temp;
+            }
 
-        return arrayOfNumbers;
+            // Every pass compares the rest of the array and swaps once
+            metrics.countComparisons(totalComparisons);
+            metrics.countMoves(2L * arrayOfNumbers.length);
+
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
     }
 
     /**
@@ -1,21 +1,33 @@
 package com.mhorak.dsa.sort;
 
-import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 
 /**
  * This class implements the Shell Sort algorithm for sorting an array of comparable elements.
+ * The gaps of the passes come from a {@link GapSequence}, {@link GapSequence#DEFAULT} unless another one is given.
  */
 public class ShellSort extends Sort {
 
     /**
-     * Constructs a ShellSort instance with the given array of numbers.
+     * The gaps of the passes.
+     */
+    private final GapSequence gapSequence;
+
+    /**
+     * Constructs a ShellSort instance that uses the default gap sequence.
      */
     public ShellSort() {
+        this(GapSequence.DEFAULT);
+    }
 
-        startOfSorting = LocalTime.now();
-        endOfSorting = LocalTime.now();
+    /**
+     * Constructs a ShellSort instance that uses the given gap sequence.
+     *
+     * @param gapSequence The gaps of the passes.
+     */
+    public ShellSort(GapSequence gapSequence) {
+        this.gapSequence = gapSequence;
     }
 
     /**
@@ -26,86 +38,255 @@ public class ShellSort extends Sort {
      */
     @Override
     public Integer[] sortLab(Integer[] arrayOfNumbers) {
+        metrics.start();
+        try {
+            int[] values = unbox(arrayOfNumbers);
+            sortLab(values);
+            box(values, arrayOfNumbers);
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
+    }
 
-        startOfSorting = LocalTime.now();
-
-        int step = arrayOfNumbers.length / 2;
-
-        while (step > 0) {
-            for (int j = step; j < arrayOfNumbers.length; j++) {
-                Integer temp = arrayOfNumbers[j];
-                int current = j - step;
-                while (current >= 0 && temp.compareTo(arrayOfNumbers[current]) < 0) {
-                    arrayOfNumbers[current + step] = arrayOfNumbers[current];
-                    current -= step;
+    /**
+     * Sorts the array of int values in-place using the Shell Sort algorithm and returns the sorted array.
+     *
+     * @param arrayOfNumbers The array of int values to be sorted.
+     * @return The sorted array.
+     */
+    @Override
+    public int[] sortLab(int[] arrayOfNumbers) {
+        metrics.start();
+        try {
+            long comparisons = 0, moves = 0;
+            int[] gaps = gapSequence.gaps(arrayOfNumbers.length);
+            metrics.setStrategy(gapSequence.name());
+            // Every gap is a pass over the array; the passes are reported as the progress
+            long totalWork = (long) gaps.length * arrayOfNumbers.length;
+
+            for (int pass = 0; pass < gaps.length; pass++) {
+                int step = gaps[pass];
+                for (int j = step; j < arrayOfNumbers.length; j++) {
+                    if ((j & 0x3FFF) == 0) {
+                        checkpoint((long) pass * arrayOfNumbers.length + j, totalWork);
+                    }
+                    int temp = arrayOfNumbers[j];
+                    int current = j - step;
+                    while (current >= 0 && temp < arrayOfNumbers[current]) {
+                        arrayOfNumbers[current + step] = arrayOfNumbers[current];
+                        current -= step;
+                        comparisons++;
+                        moves++;
+                    }
+                    arrayOfNumbers[current + step] = temp;
+                    moves++;
+                    if (current >= 0) {
+                        // The loop stopped at a failed comparison rather than the start of the array
+                        comparisons++;
+                    }
                 }
-                arrayOfNumbers[current + step] = temp;
             }
 
-            step /= 2;
+            metrics.countComparisons(comparisons);
+            metrics.countMoves(moves);
+
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
         }
+    }
+
+    /**
+     * Sorts the array of long values in-place using the Shell Sort algorithm and returns the sorted array.
+     *
+     * @param arrayOfNumbers The array of long values to be sorted.
+     * @return The sorted array.
+     */
+    @Override
+    public long[] sortLab(long[] arrayOfNumbers) {
+        metrics.start();
+        try {
+            long comparisons = 0, moves = 0;
+            int[] gaps = gapSequence.gaps(arrayOfNumbers.length);
+            metrics.setStrategy(gapSequence.name());
+            // Every gap is a pass over the array; the passes are reported as the progress
+            long totalWork = (long) gaps.length * arrayOfNumbers.length;
+
+            for (int pass = 0; pass < gaps.length; pass++) {
+                int step = gaps[pass];
+                for (int j = step; j < arrayOfNumbers.length; j++) {
+                    if ((j & 0x3FFF) == 0) {
+                        checkpoint((long) pass * arrayOfNumbers.length + j, totalWork);
+                    }
+                    long temp = arrayOfNumbers[j];
+                    int current = j - step;
+                    while (current >= 0 && temp < arrayOfNumbers[current]) {
+                        arrayOfNumbers[current + step] = arrayOfNumbers[current];
+                        current -= step;
+                        comparisons++;
+                        moves++;
+                    }
+                    arrayOfNumbers[current + step] = temp;
+                    moves++;
+                    if (current >= 0) {
+                        // The loop stopped at a failed comparison rather than the start of the array
+                        comparisons++;
+                    }
+                }
+            }
 
-        endOfSorting = LocalTime.now();
+            metrics.countComparisons(comparisons);
+            metrics.countMoves(moves);
 
-        return arrayOfNumbers;
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
     }
 
     /**
-     * Sorts the array of Double elements using the Shell Sort algorithm.
+     * Sorts the array of Double elements in-place using the Shell Sort algorithm.
      *
      * @param arrayOfNumbers The array of Double elements to be sorted.
-     * @return An empty array (not implemented for Double[]).
+     * @return The sorted array.
      */
     @Override
     public Double[] sortIndividual(Double[] arrayOfNumbers) {
-        return new Double[0];
+        metrics.start();
+        try {
+            double[] values = unbox(arrayOfNumbers);
+            sortIndividual(values);
+            box(values, arrayOfNumbers);
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Sorts the array of double values in-place using the Shell Sort algorithm and returns the sorted array.
+     *
+     * @param arrayOfNumbers The array of double values to be sorted.
+     * @return The sorted array.
+     */
+    @Override
+    public double[] sortIndividual(double[] arrayOfNumbers) {
+        metrics.start();
+        try {
+            long comparisons = 0, moves = 0;
+            int[] gaps = gapSequence.gaps(arrayOfNumbers.length);
+            metrics.setStrategy(gapSequence.name());
+            // Every gap is a pass over the array; the passes are reported as the progress
+            long totalWork = (long) gaps.length * arrayOfNumbers.length;
+
+            for (int pass = 0; pass < gaps.length; pass++) {
+                int step = gaps[pass];
+                for (int j = step; j < arrayOfNumbers.length; j++) {
+                    if ((j & 0x3FFF) == 0) {
+                        checkpoint((long) pass * arrayOfNumbers.length + j, totalWork);
+                    }
+                    double temp = arrayOfNumbers[j];
+                    int current = j - step;
+                    while (current >= 0 && Double.compare(temp, arrayOfNumbers[current]) < 0) {
+                        arrayOfNumbers[current + step] = arrayOfNumbers[current];
+                        current -= step;
+                        comparisons++;
+                        moves++;
+                    }
+                    arrayOfNumbers[current + step] = temp;
+                    moves++;
+                    if (current >= 0) {
+                        // The loop stopped at a failed comparison rather than the start of the array
+                        comparisons++;
+                    }
+                }
+            }
+
+            metrics.countComparisons(comparisons);
+            metrics.countMoves(moves);
+
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
     }
 
     /**
      * Sorts a two-dimensional array of Double elements by the first elements of columns using the Shell Sort algorithm.
+     * The matrix is not transposed: the first row is sorted together with the indices of its columns, and the
+     * columns are then moved to their sorted positions in place, row by row.
      *
      * @param arrayOfNumbers The two-dimensional array of Double elements to be sorted.
-     * @return A sorted two-dimensional array of Doubles.
+     * @return The sorted two-dimensional array of Doubles, which is the same array.
      */
     public Double[][] sortIndividual(Double[][] arrayOfNumbers) {
-        startOfSorting = LocalTime.now();
-        int rows = arrayOfNumbers.length;
-        int cols = arrayOfNumbers[0].length;
-
-        // Transpose the array
-        Double[][] transposedArray = new Double[cols][rows];
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                transposedArray[j][i] = arrayOfNumbers[i][j];
-            }
+        if (arrayOfNumbers.length == 0) {
+            return arrayOfNumbers;
         }
 
-        int step = transposedArray.length / 2;
-        // Sort each row (which is equivalent to sorting by columns in the original array)
-        while (step > 0) {
-            for (int j = step; j < transposedArray.length; j++) {
-                Double[] temp = transposedArray[j];
-                int current = j - step;
-                while (current >= 0 && temp[0] < transposedArray[current][0]) {
-                    transposedArray[current + step] = transposedArray[current];
-                    current -= step;
+        metrics.start();
+        try {
+            int rows = arrayOfNumbers.length;
+            int cols = arrayOfNumbers[0].length;
+
+            // The first row holds the keys of the columns
+            long phaseStart = System.nanoTime();
+            double[] keys = new double[cols];
+            int[] order = new int[cols];
+            for (int i = 0; i < cols; i++) {
+                keys[i] = arrayOfNumbers[0][i];
+                order[i] = i;
+            }
+            metrics.recordPhase("keys", phaseStart);
+
+            phaseStart = System.nanoTime();
+            long comparisons = 0, moves = 0;
+            int[] gaps = gapSequence.gaps(cols);
+            metrics.setStrategy(gapSequence.name());
+            // Every gap is a pass over the array; the passes are reported as the progress
+            long totalWork = (long) gaps.length * cols;
+            // Sort the keys and move the indices of the columns along with them
+            for (int pass = 0; pass < gaps.length; pass++) {
+                int step = gaps[pass];
+                for (int j = step; j < cols; j++) {
+                    if ((j & 0x3FFF) == 0) {
+                        checkpoint((long) pass * cols + j, totalWork);
+                    }
+                    double temp = keys[j];
+                    int tempColumn = order[j];
+                    int current = j - step;
+                    while (current >= 0 && Double.compare(temp, keys[current]) < 0) {
+                        keys[current + step] = keys[current];
+                        order[current + step] = order[current];
+                        current -= step;
+                        comparisons++;
+                        moves++;
+                    }
+                    keys[current + step] = temp;
+                    order[current + step] = tempColumn;
+                    moves++;
+                    if (current >= 0) {
+                        // The loop stopped at a failed comparison rather than the start of the array
+                        comparisons++;
+                    }
                 }
-                transposedArray[current + step] = temp;
             }
 
-            step /= 2;
-        }
-
-        // Transpose the sorted array back to its original form
-        for (int i = 0; i < cols; i++) {
-            for (int j = 0; j < rows; j++) {
-                arrayOfNumbers[j][i] = transposedArray[i][j];
-            }
-        }
+            metrics.countComparisons(comparisons);
+            metrics.countMoves(moves);
+            metrics.recordPhase("sort", phaseStart);
 
-        endOfSorting = LocalTime.now();
+            // Move the columns to their sorted positions
+            phaseStart = System.nanoTime();
+            Permutations.applyToColumns(arrayOfNumbers, order);
+            metrics.countMoves((long) rows * cols);
+            metrics.recordPhase("permute", phaseStart);
 
-        return arrayOfNumbers;
+            return arrayOfNumbers;
+        } finally {
+            metrics.stop();
+        }
     }
 
 
@@ -122,65 +303,84 @@ public class ShellSort extends Sort {
 
         steps.add(Arrays.copyOf(arrayOfNumbers, arrayOfNumbers.length));
 
-        startOfSorting = LocalTime.now();
-
-        int step = arrayOfNumbers.length / 2;
-
-        while (step > 0) {
-            for (int j = step; j < arrayOfNumbers.length; j++) {
-                Double[] temp = arrayOfNumbers[j];
-                int current = j - step;
-                while (current >= 0 && temp[0] > arrayOfNumbers[current][0]) {
-                    arrayOfNumbers[current + step] = arrayOfNumbers[current];
-                    current -= step;
+        metrics.start();
+        try {
+            long comparisons = 0, moves = 0;
+            for (int step : gapSequence.gaps(arrayOfNumbers.length)) {
+                for (int j = step; j < arrayOfNumbers.length; j++) {
+                    Double[] temp = arrayOfNumbers[j];
+                    int current = j - step;
+                    while (current >= 0 && temp[0] > arrayOfNumbers[current][0]) {
+                        arrayOfNumbers[current + step] = arrayOfNumbers[current];
+                        current -= step;
+                        comparisons++;
+                        moves++;
+                    }
+                    arrayOfNumbers[current + step] = temp;
+                    moves++;
+                    if (current >= 0) {
+                        // The loop stopped at a failed comparison rather than the start of the array
+                        comparisons++;
+                    }
+
+                    steps.add(Arrays.copyOf(arrayOfNumbers, arrayOfNumbers.length));
                 }
-                arrayOfNumbers[current + step] = temp;
-
-                steps.add(Arrays.copyOf(arrayOfNumbers, arrayOfNumbers.length));
             }
-            step /= 2;
-        }
 
-        endOfSorting = LocalTime.now();
+            metrics.countComparisons(comparisons);
+            metrics.countMoves(moves);
 
-        return steps;
+            return steps;
+        } finally {
+            metrics.stop();
+        }
     }
 
     /**
-     * Sorts the array of Integer elements using the Shell Sort algorithm with intermediate steps.
-     * Returns a list of intermediate sorting states.
+     * Sorts the array of Integer elements using the Shell Sort algorithm and records the initial state and
+     * the state after every insertion in a step log.
      *
      * @param arrayOfNumbers The array of Integer elements to be sorted.
-     * @return An ArrayList of arrays representing intermediate sorting states.
+     * @param steps          The step log to record the intermediate sorting states in.
      */
     @Override
-    public ArrayList<Integer[]> sortLabWithSteps(Integer[] arrayOfNumbers) {
-        ArrayList<Integer[]> steps = new ArrayList<>();
-
-        steps.add(Arrays.copyOf(arrayOfNumbers, arrayOfNumbers.length));
-
-        startOfSorting = LocalTime.now();
-
-        int step = arrayOfNumbers.length / 2;
-
-        while (step > 0) {
-            for (int j = step; j < arrayOfNumbers.length; j++) {
-                Integer temp = arrayOfNumbers[j];
-                int current = j - step;
-                while (current >= 0 && temp.compareTo(arrayOfNumbers[current]) < 0) {
-                    arrayOfNumbers[current + step] = arrayOfNumbers[current];
-                    current -= step;
+    public void sortLabWithSteps(Integer[] arrayOfNumbers, StepLog steps) {
+        steps.record(arrayOfNumbers);
+
+        metrics.start();
+        try {
+            long comparisons = 0, moves = 0;
+            for (int step : gapSequence.gaps(arrayOfNumbers.length)) {
+                for (int j = step; j < arrayOfNumbers.length; j++) {
+                    Integer temp = arrayOfNumbers[j];
+                    int current = j - step;
+                    while (current >= 0 && temp.compareTo(arrayOfNumbers[current]) < 0) {
+                        arrayOfNumbers[current + step] = arrayOfNumbers[current];
+                        current -= step;
+                        comparisons++;
+                        moves++;
+                    }
+                    arrayOfNumbers[current + step] = temp;
+                    moves++;
+                    if (current >= 0) {
+                        // The loop stopped at a failed comparison rather than the start of the array
+                        comparisons++;
+                    }
+
+
+                    // The insertion shifted the elements between its start and j by one step
+                    for (int k = current + step; k <= j; k += step) {
+                        steps.recordChange(k, arrayOfNumbers[k]);
+                    }
+                    steps.endStep();
                 }
-                arrayOfNumbers[current + step] = temp;
-
-                steps.add(Arrays.copyOf(arrayOfNumbers, arrayOfNumbers.length));
             }
-            step /= 2;
-        }
-
-        endOfSorting = LocalTime.now();
 
-        return steps;
+            metrics.countComparisons(comparisons);
+            metrics.countMoves(moves);
+        } finally {
+            metrics.stop();
+        }
     }
 
 }
@@ -1,15 +1,33 @@
 package com.mhorak.dsa.sort;
 
+import com.mhorak.dsa.tools.ArrayKernels;
+
 import java.time.Duration;
-import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
 
 /**
  * An abstract class representing a sorting algorithm for sorting an array of comparable elements.
  */
 public abstract class Sort implements IndividualSorting{
-    protected LocalTime startOfSorting;
-    protected LocalTime endOfSorting;
+    protected final SortMetrics metrics = new SortMetrics();
+
+    /**
+     * Whether the running sort should stop at its next checkpoint.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * The listener of the progress of the sorting process, or null.
+     */
+    private volatile ProgressListener progressListener;
+
+    /**
+     * The last percentage reported to the listener.
+     */
+    private int lastReportedPercent = -1;
 
     /**
      * Gets the duration of the sorting process.
@@ -17,7 +35,69 @@ public abstract class Sort implements IndividualSorting{
      * @return The duration of the sorting process as a Duration object.
      */
     public Duration getTimeOfProcessing() {
-        return Duration.between(startOfSorting, endOfSorting);
+        return metrics.getElapsed();
+    }
+
+    /**
+     * Gets the measurements of the last sorting process: the time of its phases, the number of comparisons
+     * and moves, and the number of allocated bytes.
+     *
+     * @return The metrics of the last sorting process.
+     */
+    public SortMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the listener that is notified of the progress of the sorting processes of this instance.
+     * The listener is called on the sorting thread whenever the progress reaches another percent.
+     *
+     * @param progressListener The listener, or null to stop reporting the progress.
+     */
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Asks the running sort to stop. The sort stops at its next checkpoint with a {@link CancellationException},
+     * which can be called from any thread. The array is left partially sorted, unless the sort works on a copy.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Marks a point where a long sort may report its progress or stop when it was cancelled.
+     * A checkpoint should be cheap compared to the work between two checkpoints.
+     *
+     * @param done  The amount of work done.
+     * @param total The total amount of work.
+     * @throws CancellationException If the sort was cancelled.
+     */
+    protected final void checkpoint(long done, long total) {
+        if (cancelled) {
+            cancelled = false;
+            throw new CancellationException("The sort was cancelled");
+        }
+
+        ProgressListener listener = progressListener;
+        if (listener != null && total > 0) {
+            int percent = (int) (100.0 * done / total);
+            if (percent != lastReportedPercent) {
+                lastReportedPercent = percent;
+                listener.progress(done, total);
+            }
+        }
+    }
+
+    /**
+     * Creates a counter for a static kernel that reports its progress to {@link #checkpoint(long, long)}.
+     *
+     * @param total The total amount of work of the kernel.
+     * @return The counter.
+     */
+    OperationCounter progressCounter(long total) {
+        return new OperationCounter(this, total);
     }
 
     /**
@@ -27,11 +107,302 @@ public abstract class Sort implements IndividualSorting{
      */
     public abstract Integer[] sortLab(Integer[] arrayOfNumbers);
 
+    /**
+     * Sorts the array of int values in-place and returns it.
+     *
+     * @param arrayOfNumbers The array of int values to be sorted.
+     * @return The sorted array.
+     */
+    public abstract int[] sortLab(int[] arrayOfNumbers);
+
+    /**
+     * Sorts the array of long values in-place and returns it.
+     *
+     * @param arrayOfNumbers The array of long values to be sorted.
+     * @return The sorted array.
+     */
+    public abstract long[] sortLab(long[] arrayOfNumbers);
+
+
+    /**
+     * Sorts an array of objects in ascending order of a long key, stably: items with equal keys keep their order.
+     * The key of every item is extracted once, the keys are sorted together with the indices of the items, and
+     * the items are then moved to their sorted positions, so the key function is never called while sorting.
+     *
+     * @param items The array of objects to be sorted.
+     * @param key   The function that extracts the key of an item.
+     * @param <T>   The type of the items.
+     * @return The sorted array, which is the same array.
+     */
+    public <T> T[] sortByLong(T[] items, ToLongFunction<? super T> key) {
+        metrics.start();
+        try {
+            long phaseStart = System.nanoTime();
+            long[] keys = new long[items.length];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = key.applyAsLong(items[i]);
+            }
+            metrics.recordPhase("keys", phaseStart);
+
+            permute(items, sortedOrder(keys));
+
+            return items;
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Sorts an array of objects in ascending order of a double key like {@link #sortByLong(Object[], ToLongFunction)},
+     * with the order of {@link Double#compare(double, double)}: -0.0 before 0.0 and NaN last.
+     *
+     * @param items The array of objects to be sorted.
+     * @param key   The function that extracts the key of an item.
+     * @param <T>   The type of the items.
+     * @return The sorted array, which is the same array.
+     */
+    public <T> T[] sortByDouble(T[] items, ToDoubleFunction<? super T> key) {
+        metrics.start();
+        try {
+            long phaseStart = System.nanoTime();
+            long[] keys = new long[items.length];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = RadixSort.sortableBits(key.applyAsDouble(items[i]));
+            }
+            metrics.recordPhase("keys", phaseStart);
+
+            permute(items, sortedOrder(keys));
+
+            return items;
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Calculates the permutation that sorts an array of int values in ascending order without moving them:
+     * {@code order[i]} is the index of the value that belongs at position i, and equal values keep their order.
+     * The order can be applied to the array and to any number of parallel arrays with
+     * {@link Permutations#applyToAll(int[], Object[])}.
+     *
+     * @param values The array of int values, which is not changed.
+     * @return The sorted order.
+     */
+    public int[] argsort(int[] values) {
+        metrics.start();
+        try {
+            long phaseStart = System.nanoTime();
+            long[] keys = new long[values.length];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = values[i];
+            }
+            metrics.recordPhase("keys", phaseStart);
+            int[] order = sortedOrder(keys);
+
+            return order;
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Calculates the permutation that sorts an array of long values in ascending order without moving them,
+     * like {@link #argsort(int[])}.
+     *
+     * @param values The array of long values, which is not changed.
+     * @return The sorted order.
+     */
+    public int[] argsort(long[] values) {
+        metrics.start();
+        try {
+            int[] order = sortedOrder(values.clone());
+            return order;
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Calculates the permutation that sorts an array of double values in ascending order without moving them,
+     * like {@link #argsort(int[])}, with the order of {@link Double#compare(double, double)}: -0.0 before 0.0
+     * and NaN last. The order is ascending for every algorithm, including those whose
+     * {@link #sortIndividual(double[])} sorts in descending order.
+     *
+     * @param values The array of double values, which is not changed.
+     * @return The sorted order.
+     */
+    public int[] argsort(double[] values) {
+        metrics.start();
+        try {
+            long phaseStart = System.nanoTime();
+            long[] keys = new long[values.length];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = RadixSort.sortableBits(values[i]);
+            }
+            metrics.recordPhase("keys", phaseStart);
+            int[] order = sortedOrder(keys);
+
+            return order;
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Calculates the stable sorted order of long keys: {@code order[i]} is the index of the key that belongs
+     * at position i. The keys are overwritten.
+     * <p>
+     * When the range of the keys leaves enough bits for the indices, each key is packed with its index into
+     * one long value and the packed values are sorted by {@link #sortLab(long[])} of this algorithm; the index
+     * in the low bits breaks the ties, so the order is stable even for unstable algorithms. Keys with a wider
+     * range, e.g. the keys of double values, are sorted with their indices by a stable Merge Sort instead.
+     * Algorithms with a stable way to sort keys together with their indices override this.
+     *
+     * @param keys The keys, which are overwritten.
+     * @return The sorted order.
+     */
+    int[] sortedOrder(long[] keys) {
+        int n = keys.length;
+        int[] order = new int[n];
+        if (n == 0) {
+            return order;
+        }
+
+        long phaseStart = System.nanoTime();
+        long[] minMax = ArrayKernels.get().minMax(keys);
+        long min = minMax[0];
+        int indexBits = 32 - Integer.numberOfLeadingZeros(Math.max(n - 1, 1));
+        // max - min read as an unsigned number is the exact width of the range; the packed values must stay positive
+        boolean packable = (minMax[1] - min) >>> (63 - indexBits) == 0;
+        if (packable) {
+            for (int i = 0; i < n; i++) {
+                keys[i] = (keys[i] - min) << indexBits | i;
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+        }
+        metrics.recordPhase("pack", phaseStart);
+
+        if (packable) {
+            sortLab(keys);
+
+            phaseStart = System.nanoTime();
+            long indexMask = (1L << indexBits) - 1;
+            for (int i = 0; i < n; i++) {
+                order[i] = (int) (keys[i] & indexMask);
+            }
+            metrics.recordPhase("unpack", phaseStart);
+        } else {
+            phaseStart = System.nanoTime();
+            int levels = 32 - Integer.numberOfLeadingZeros(n - 1);
+            OperationCounter counter = progressCounter((long) n * levels);
+            MergeSort.mergeSort(keys, order, new long[n], new int[n], 0, n, counter);
+            metrics.count(counter);
+            metrics.recordPhase("stable sort", phaseStart);
+        }
+        return order;
+    }
+
+    /**
+     * Moves items to their sorted positions and records the time as the "permute" phase.
+     *
+     * @param items The items.
+     * @param order The sorted order of the items.
+     */
+    private void permute(Object[] items, int[] order) {
+        long phaseStart = System.nanoTime();
+        Permutations.apply(items, order);
+        metrics.countMoves(items.length);
+        metrics.recordPhase("permute", phaseStart);
+    }
 
     /**
      * Sorts the array with intermediate steps and returns a list of intermediate sorting states.
+     * Every state is a full copy of the array, so for large arrays {@link #sortLabWithSteps(Integer[], StepLog)}
+     * takes much less memory.
      *
      * @return An ArrayList of arrays representing intermediate sorting states.
      */
-    public abstract ArrayList<Integer[]> sortLabWithSteps(Integer[] arrayOfNumbers);
+    public ArrayList<Integer[]> sortLabWithSteps(Integer[] arrayOfNumbers) {
+        ArrayList<Integer[]> steps = new ArrayList<>();
+        try (StepLog stepLog = new StepLog()) {
+            sortLabWithSteps(arrayOfNumbers, stepLog);
+            for (Integer[] step : stepLog) {
+                steps.add(step);
+            }
+        }
+        return steps;
+    }
+
+    /**
+     * Sorts the array and records the intermediate sorting states in a step log.
+     *
+     * @param arrayOfNumbers The array of Integer elements to be sorted.
+     * @param steps          The step log to record the intermediate sorting states in.
+     */
+    public abstract void sortLabWithSteps(Integer[] arrayOfNumbers, StepLog steps);
+
+    /**
+     * Copies the values of a boxed array into a new primitive array and records the time as the "unbox" phase.
+     *
+     * @param arrayOfNumbers The array of Integer elements.
+     * @return A new int array holding the same values.
+     */
+    protected int[] unbox(Integer[] arrayOfNumbers) {
+        long phaseStart = System.nanoTime();
+        int[] values = new int[arrayOfNumbers.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = arrayOfNumbers[i];
+        }
+        metrics.recordPhase("unbox", phaseStart);
+        return values;
+    }
+
+    /**
+     * Copies the values of a boxed array into a new primitive array and records the time as the "unbox" phase.
+     *
+     * @param arrayOfNumbers The array of Double elements.
+     * @return A new double array holding the same values.
+     */
+    protected double[] unbox(Double[] arrayOfNumbers) {
+        long phaseStart = System.nanoTime();
+        double[] values = new double[arrayOfNumbers.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = arrayOfNumbers[i];
+        }
+        metrics.recordPhase("unbox", phaseStart);
+        return values;
+    }
+
+    /**
+     * Writes the values of a primitive array back into a boxed array of the same length and records the time
+     * as the "box" phase.
+     *
+     * @param values         The primitive values.
+     * @param arrayOfNumbers The array of Integer elements to be overwritten.
+     */
+    protected void box(int[] values, Integer[] arrayOfNumbers) {
+        long phaseStart = System.nanoTime();
+        for (int i = 0; i < values.length; i++) {
+            arrayOfNumbers[i] = values[i];
+        }
+        metrics.recordPhase("box", phaseStart);
+    }
+
+    /**
+     * Writes the values of a primitive array back into a boxed array of the same length and records the time
+     * as the "box" phase.
+     *
+     * @param values         The primitive values.
+     * @param arrayOfNumbers The array of Double elements to be overwritten.
+     */
+    protected void box(double[] values, Double[] arrayOfNumbers) {
+        long phaseStart = System.nanoTime();
+        for (int i = 0; i < values.length; i++) {
+            arrayOfNumbers[i] = values[i];
+        }
+        metrics.recordPhase("box", phaseStart);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,211 @@
+package com.mhorak.dsa.sort;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Measurements of the last run of a sorting algorithm.
+ * <p>
+ * Times are taken with {@link System#nanoTime()}. Besides the total time, an algorithm can record the time of
+ * its phases (e.g. the histogram and the prefix sum of Counting Sort), the number of comparisons and the
+ * number of moves, i.e. writes of elements into arrays (a swap counts as two moves). The allocated bytes are
+ * those of the thread that started the sort, as reported by the JVM, or 0 if the JVM does not support it.
+ */
+public class SortMetrics {
+    private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+
+    private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+    private long startNanos;
+    private long endNanos;
+    private long comparisons;
+    private long moves;
+    private long allocatedBytesAtStart;
+    private long allocatedBytes;
+    private String strategy;
+
+    /**
+     * The number of nested {@link #start()} calls that have not been stopped yet.
+     */
+    private int depth;
+
+    /**
+     * Starts a new run and resets all measurements.
+     * Nested calls, e.g. a boxed method delegating to a primitive one, are part of the outer run.
+     */
+    void start() {
+        if (depth++ > 0) {
+            return;
+        }
+        phaseNanos.clear();
+        comparisons = 0;
+        moves = 0;
+        allocatedBytes = 0;
+        strategy = null;
+        allocatedBytesAtStart = threadAllocatedBytes();
+        startNanos = System.nanoTime();
+        endNanos = startNanos;
+    }
+
+    /**
+     * Finishes the run started by the matching {@link #start()} call. It is called in a finally block, so a
+     * sort that fails with an exception still ends its run and the next run starts from scratch.
+     */
+    void stop() {
+        if (--depth > 0) {
+            return;
+        }
+        endNanos = System.nanoTime();
+        allocatedBytes = threadAllocatedBytes() - allocatedBytesAtStart;
+    }
+
+    /**
+     * Adds the time since the given moment to a phase. A phase may be recorded several times.
+     *
+     * @param phase           The name of the phase.
+     * @param phaseStartNanos The value of {@link System#nanoTime()} when the phase started.
+     */
+    void recordPhase(String phase, long phaseStartNanos) {
+        phaseNanos.merge(phase, System.nanoTime() - phaseStartNanos, Long::sum);
+    }
+
+    /**
+     * Records the strategy an adaptive algorithm chose for the run, e.g. the kind of histogram of Counting Sort.
+     *
+     * @param strategy The name of the strategy.
+     */
+    void setStrategy(String strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * Adds to the number of comparisons.
+     *
+     * @param count The number of comparisons made.
+     */
+    void countComparisons(long count) {
+        comparisons += count;
+    }
+
+    /**
+     * Adds to the number of moves.
+     *
+     * @param count The number of elements written.
+     */
+    void countMoves(long count) {
+        moves += count;
+    }
+
+    /**
+     * Adds the comparisons and moves of a counter.
+     *
+     * @param counter The counter of a part of the sorting process.
+     */
+    void count(OperationCounter counter) {
+        comparisons += counter.comparisons;
+        moves += counter.moves;
+    }
+
+    /**
+     * Adds the comparisons, moves and phases of the run of another algorithm that this run handed its work to.
+     *
+     * @param run The metrics of the other algorithm.
+     */
+    void include(SortMetrics run) {
+        comparisons += run.comparisons;
+        moves += run.moves;
+        run.phaseNanos.forEach((phase, nanos) -> phaseNanos.merge(phase, nanos, Long::sum));
+    }
+
+    /**
+     * Gets the total time of the last run.
+     *
+     * @return The time in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return endNanos - startNanos;
+    }
+
+    /**
+     * Gets the total time of the last run.
+     *
+     * @return The time as a Duration object.
+     */
+    public Duration getElapsed() {
+        return Duration.ofNanos(getElapsedNanos());
+    }
+
+    /**
+     * Gets the time of every phase of the last run in the order the phases were first recorded.
+     *
+     * @return An unmodifiable map from the name of a phase to its time in nanoseconds.
+     */
+    public Map<String, Long> getPhaseNanos() {
+        return Collections.unmodifiableMap(phaseNanos);
+    }
+
+    /**
+     * Gets the number of comparisons of elements made in the last run.
+     *
+     * @return The number of comparisons.
+     */
+    public long getComparisons() {
+        return comparisons;
+    }
+
+    /**
+     * Gets the number of writes of elements into arrays made in the last run.
+     *
+     * @return The number of moves.
+     */
+    public long getMoves() {
+        return moves;
+    }
+
+    /**
+     * Gets the number of bytes allocated by the sorting thread in the last run.
+     *
+     * @return The number of bytes, or 0 if the JVM cannot measure it.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Gets the strategy an adaptive algorithm chose for the last run.
+     *
+     * @return The name of the strategy, or null if the algorithm has only one.
+     */
+    public String getStrategy() {
+        return strategy;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("time=").append(getElapsedNanos()).append("ns")
+                .append(", comparisons=").append(comparisons)
+                .append(", moves=").append(moves)
+                .append(", allocated=").append(allocatedBytes).append('B');
+        if (strategy != null) {
+            builder.append(", strategy=").append(strategy);
+        }
+        phaseNanos.forEach((phase, nanos) -> builder.append(", ").append(phase).append('=').append(nanos).append("ns"));
+        return builder.toString();
+    }
+
+    /**
+     * Gets the number of bytes allocated by the current thread so far.
+     *
+     * @return The number of bytes, or 0 if the JVM cannot measure it.
+     */
+    private static long threadAllocatedBytes() {
+        if (THREAD_BEAN instanceof com.sun.management.ThreadMXBean bean) {
+            return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}
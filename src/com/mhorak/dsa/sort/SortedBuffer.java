@@ -0,0 +1,538 @@
+package com.mhorak.dsa.sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A sorted collection of long values that grows by appending, for streams of values that would otherwise be
+ * sorted again as a whole every time a few values arrive.
+ * <p>
+ * New values are appended to a small memtable. A full memtable is sorted once and sealed into an immutable sorted
+ * run. Runs are grouped into size tiers: tier 0 holds runs of up to one memtable, and every tier holds runs up to
+ * {@code fanIn} times longer than the one below. When a tier has {@code fanIn} runs, they are merged with a
+ * {@link LoserTree} into one run of the next tier, in the background, so every value is merged about
+ * log(n / memtable) / log(fanIn) times in total instead of being sorted again on every insert.
+ * <p>
+ * Reads never wait for merges: they take a snapshot of the runs and the memtable and merge them lazily, so a range
+ * scan only looks at the values in the range, found by binary search in every run, and iterating everything in
+ * sorted order costs one merge of the few runs that are left.
+ * <p>
+ * Values may be added and read by any number of threads; a read sees the values added before it started.
+ */
+public class SortedBuffer implements AutoCloseable {
+    /**
+     * The number of values in the memtable when none is given.
+     */
+    public static final int DEFAULT_MEMTABLE_CAPACITY = 1 << 16;
+
+    /**
+     * The number of runs of a tier that are merged together when none is given.
+     */
+    public static final int DEFAULT_FAN_IN = 4;
+
+    private final int memtableCapacity;
+    private final int fanIn;
+    private final Executor executor;
+
+    /**
+     * The executor created by the buffer itself, which is shut down when the buffer is closed, or null.
+     */
+    private final ExecutorService ownExecutor;
+
+    /**
+     * The values added since the last run was sealed, in the order they arrived.
+     */
+    private long[] memtable;
+    private int memtableSize;
+
+    /**
+     * The sealed runs from the oldest to the newest. The list is replaced rather than changed, so a reader can
+     * keep a snapshot of it.
+     */
+    private List<long[]> runs = List.of();
+
+    /**
+     * Whether a background merge is scheduled or running.
+     */
+    private boolean merging;
+
+    /**
+     * The number of merges of runs done so far.
+     */
+    private long merges;
+
+    /**
+     * Constructs a buffer with the default memtable and fan-in that merges runs on a background thread of its own.
+     */
+    public SortedBuffer() {
+        this(DEFAULT_MEMTABLE_CAPACITY, DEFAULT_FAN_IN);
+    }
+
+    /**
+     * Constructs a buffer that merges runs on a background thread of its own.
+     *
+     * @param memtableCapacity The number of values appended before they are sealed into a run.
+     * @param fanIn            The number of runs of a tier that are merged together, at least 2.
+     */
+    public SortedBuffer(int memtableCapacity, int fanIn) {
+        this(memtableCapacity, fanIn, null);
+    }
+
+    /**
+     * Constructs a buffer that merges runs on the given executor.
+     *
+     * @param memtableCapacity The number of values appended before they are sealed into a run.
+     * @param fanIn            The number of runs of a tier that are merged together, at least 2.
+     * @param executor         The executor of the merges, e.g. {@code Runnable::run} to merge on the thread that
+     *                         seals a run, or null for a background thread of the buffer's own.
+     */
+    public SortedBuffer(int memtableCapacity, int fanIn, Executor executor) {
+        if (memtableCapacity < 1 || fanIn < 2) {
+            throw new IllegalArgumentException("The memtable must hold at least 1 value and the fan-in must be at least 2, not "
+                    + memtableCapacity + " and " + fanIn);
+        }
+        this.memtableCapacity = memtableCapacity;
+        this.fanIn = fanIn;
+        if (executor == null) {
+            ownExecutor = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "sorted-buffer-merge");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.executor = ownExecutor;
+        } else {
+            ownExecutor = null;
+            this.executor = executor;
+        }
+        memtable = new long[memtableCapacity];
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value The value.
+     */
+    public void add(long value) {
+        boolean sealed;
+        synchronized (this) {
+            memtable[memtableSize++] = value;
+            sealed = memtableSize == memtableCapacity && sealMemtable();
+        }
+        if (sealed) {
+            scheduleMerge();
+        }
+    }
+
+    /**
+     * Adds many values at once. A batch at least as long as the memtable is sorted and sealed as a run of its own
+     * instead of going through the memtable, so loading the initial data costs one sort.
+     *
+     * @param values The values, which are not changed.
+     */
+    public void addAll(long[] values) {
+        if (values.length < memtableCapacity) {
+            for (long value : values) {
+                add(value);
+            }
+            return;
+        }
+
+        long[] run = values.clone();
+        IntroSort.sort(run, new OperationCounter());
+        synchronized (this) {
+            addRun(run);
+        }
+        scheduleMerge();
+    }
+
+    /**
+     * Seals the values of the memtable into a run now, even if the memtable is not full.
+     */
+    public void flush() {
+        boolean sealed;
+        synchronized (this) {
+            sealed = sealMemtable();
+        }
+        if (sealed) {
+            scheduleMerge();
+        }
+    }
+
+    /**
+     * Waits until the background merges have caught up, i.e. no tier has {@code fanIn} runs.
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public synchronized void awaitMerges() throws InterruptedException {
+        while (merging) {
+            wait();
+        }
+    }
+
+    /**
+     * Gets the number of values in the buffer.
+     *
+     * @return The number of values.
+     */
+    public synchronized long size() {
+        long size = memtableSize;
+        for (long[] run : runs) {
+            size += run.length;
+        }
+        return size;
+    }
+
+    /**
+     * Gets the number of sealed runs that a read has to merge at the moment.
+     *
+     * @return The number of runs.
+     */
+    public synchronized int runCount() {
+        return runs.size();
+    }
+
+    /**
+     * Gets the number of merges of runs done so far.
+     *
+     * @return The number of merges.
+     */
+    public synchronized long mergeCount() {
+        return merges;
+    }
+
+    /**
+     * Iterates over all values in ascending order. The iteration sees the values added before the call.
+     *
+     * @return An iterator that merges the runs and the memtable lazily.
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        return range(Long.MIN_VALUE, Long.MAX_VALUE, true);
+    }
+
+    /**
+     * Iterates over the values from {@code from} inclusive to {@code to} exclusive in ascending order.
+     * The iteration sees the values added before the call.
+     *
+     * @param from The smallest value of the range.
+     * @param to   The value after the range.
+     * @return An iterator that merges the parts of the runs and the memtable in the range lazily.
+     */
+    public PrimitiveIterator.OfLong range(long from, long to) {
+        return range(from, to, false);
+    }
+
+    /**
+     * Copies all values into an array in ascending order.
+     *
+     * @return A new sorted array of the values.
+     */
+    public long[] toSortedArray() {
+        List<long[]> snapshot = snapshot();
+        long length = 0;
+        for (long[] run : snapshot) {
+            length += run.length;
+        }
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("The buffer holds " + length + " values, which do not fit into an array");
+        }
+        return merge(snapshot, (int) length);
+    }
+
+    /**
+     * Stops the background thread of the buffer, if it has one. Merges that are running are finished.
+     */
+    @Override
+    public void close() {
+        if (ownExecutor != null) {
+            ownExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Iterates over a range of the values.
+     *
+     * @param from  The smallest value of the range.
+     * @param to    The value after the range.
+     * @param toEnd Whether the range goes on to the largest value, ignoring {@code to}.
+     * @return An iterator over the range.
+     */
+    private PrimitiveIterator.OfLong range(long from, long to, boolean toEnd) {
+        List<long[]> snapshot = snapshot();
+        LoserTree.LongCursor[] cursors = new LoserTree.LongCursor[snapshot.size()];
+        for (int i = 0; i < cursors.length; i++) {
+            long[] run = snapshot.get(i);
+            int end = toEnd ? run.length : firstIndexOf(run, to);
+            cursors[i] = new RunCursor(run, Math.min(firstIndexOf(run, from), end), end);
+        }
+        LoserTree tree = new LoserTree(cursors, true);
+        return new PrimitiveIterator.OfLong() {
+            @Override
+            public boolean hasNext() {
+                return tree.hasNext();
+            }
+
+            @Override
+            public long nextLong() {
+                if (!tree.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return tree.next();
+            }
+        };
+    }
+
+    /**
+     * Takes the runs and a sorted copy of the memtable as they are now.
+     *
+     * @return The sorted runs to be read.
+     */
+    private List<long[]> snapshot() {
+        List<long[]> snapshot;
+        long[] memtableCopy;
+        synchronized (this) {
+            snapshot = new ArrayList<>(runs);
+            memtableCopy = Arrays.copyOf(memtable, memtableSize);
+        }
+        // The memtable is sorted outside the lock, so a reader does not hold up the writer
+        if (memtableCopy.length > 0) {
+            IntroSort.sort(memtableCopy, new OperationCounter());
+            snapshot.add(memtableCopy);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Sorts the memtable, adds it as a run and starts a new one. The caller holds the lock.
+     *
+     * @return Whether a run was added.
+     */
+    private boolean sealMemtable() {
+        if (memtableSize == 0) {
+            return false;
+        }
+        long[] run = memtableSize == memtable.length ? memtable : Arrays.copyOf(memtable, memtableSize);
+        IntroSort.sort(run, new OperationCounter());
+        addRun(run);
+        memtable = new long[memtableCapacity];
+        memtableSize = 0;
+        return true;
+    }
+
+    /**
+     * Adds a sealed run. The caller holds the lock.
+     *
+     * @param run The sorted run.
+     */
+    private void addRun(long[] run) {
+        List<long[]> newRuns = new ArrayList<>(runs);
+        newRuns.add(run);
+        runs = newRuns;
+    }
+
+    /**
+     * Starts a background merge unless one is already running, which then picks up the new run itself.
+     * It is called without the lock, so that a synchronous executor does not merge while holding it.
+     */
+    private void scheduleMerge() {
+        synchronized (this) {
+            if (merging || fullTier(runs) == null) {
+                return;
+            }
+            merging = true;
+        }
+        try {
+            executor.execute(this::mergeTiers);
+        } catch (RuntimeException exception) {
+            synchronized (this) {
+                merging = false;
+                notifyAll();
+            }
+            throw exception;
+        }
+    }
+
+    /**
+     * Merges the runs of full tiers until no tier is full. The runs are merged outside the lock and then replaced
+     * by the merged run, so readers and the writer go on meanwhile.
+     */
+    private void mergeTiers() {
+        boolean finished = false;
+        try {
+            while (true) {
+                List<long[]> tier;
+                synchronized (this) {
+                    tier = fullTier(runs);
+                    if (tier == null) {
+                        // Finished under the lock that found no full tier, so a run added after it starts a
+                        // new merge instead of being missed by this one
+                        merging = false;
+                        notifyAll();
+                        finished = true;
+                        return;
+                    }
+                }
+
+                long length = 0;
+                for (long[] run : tier) {
+                    length += run.length;
+                }
+                if (length > Integer.MAX_VALUE - 8) {
+                    // The merged run would not fit into an array, so the runs stay as they are
+                    return;
+                }
+                long[] merged = merge(tier, (int) length);
+
+                synchronized (this) {
+                    List<long[]> newRuns = new ArrayList<>(runs.size());
+                    for (long[] run : runs) {
+                        if (!containsRun(tier, run)) {
+                            newRuns.add(run);
+                        }
+                    }
+                    newRuns.add(merged);
+                    runs = newRuns;
+                    merges++;
+                }
+            }
+        } finally {
+            if (!finished) {
+                synchronized (this) {
+                    merging = false;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the lowest tier that has at least {@code fanIn} runs.
+     *
+     * @param runs The runs.
+     * @return The runs of the tier, or null if no tier is full.
+     */
+    private List<long[]> fullTier(List<long[]> runs) {
+        int[] counts = new int[64];
+        for (long[] run : runs) {
+            counts[tier(run.length)]++;
+        }
+        for (int tier = 0; tier < counts.length; tier++) {
+            if (counts[tier] >= fanIn) {
+                List<long[]> full = new ArrayList<>(counts[tier]);
+                for (long[] run : runs) {
+                    if (tier(run.length) == tier) {
+                        full.add(run);
+                    }
+                }
+                return full;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the tier of a run: 0 for up to one memtable, and one more for every factor of {@code fanIn} beyond.
+     *
+     * @param length The length of the run.
+     * @return The tier.
+     */
+    private int tier(int length) {
+        int tier = 0;
+        for (long limit = memtableCapacity; length > limit; limit *= fanIn) {
+            tier++;
+        }
+        return tier;
+    }
+
+    /**
+     * Checks whether a list holds a run, comparing the arrays by identity.
+     */
+    private static boolean containsRun(List<long[]> runs, long[] run) {
+        for (long[] other : runs) {
+            if (other == run) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Merges sorted runs into one array.
+     *
+     * @param runs   The sorted runs.
+     * @param length The total length of the runs.
+     * @return A new sorted array of all values of the runs.
+     */
+    private static long[] merge(List<long[]> runs, int length) {
+        if (runs.size() == 1) {
+            return runs.get(0).clone();
+        }
+        LoserTree.LongCursor[] cursors = new LoserTree.LongCursor[runs.size()];
+        for (int i = 0; i < cursors.length; i++) {
+            cursors[i] = new RunCursor(runs.get(i), 0, runs.get(i).length);
+        }
+        LoserTree tree = new LoserTree(cursors, true);
+        long[] merged = new long[length];
+        for (int i = 0; i < length; i++) {
+            merged[i] = tree.next();
+        }
+        return merged;
+    }
+
+    /**
+     * Finds the first index of a sorted run whose value is at least the given one.
+     *
+     * @param run   The sorted run.
+     * @param value The value.
+     * @return The index, or the length of the run if all values are smaller.
+     */
+    private static int firstIndexOf(long[] run, long value) {
+        int low = 0, high = run.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (run[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Reads a part of a sorted run.
+     */
+    private static final class RunCursor implements LoserTree.LongCursor {
+        private final long[] run;
+        private final int end;
+        private int position;
+
+        /**
+         * Constructs a cursor over the part [from, end) of a run.
+         *
+         * @param run  The sorted run.
+         * @param from The first index to read.
+         * @param end  The index after the last one to read.
+         */
+        RunCursor(long[] run, int from, int end) {
+            this.run = run;
+            this.position = from;
+            this.end = end;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < end;
+        }
+
+        @Override
+        public long next() {
+            return run[position++];
+        }
+    }
+}
@@ -0,0 +1,431 @@
+package com.mhorak.dsa.sort;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The intermediate states of a sorting process, stored as the changes between them.
+ * <p>
+ * A step is either a keyframe, which holds all values of the state, or a delta, which holds the positions and
+ * values that changed since the previous step. A keyframe is stored when the length of the state changes, and
+ * when the deltas since the last keyframe hold as many values as a keyframe would, so a step is reconstructed
+ * from at most one keyframe and as many changes, and the log takes at most about twice the memory of the changes.
+ * <p>
+ * The steps are kept in memory, or with {@link #StepLog(Path)} in a temporary file that is deleted by
+ * {@link #close()}. Only the state of the last step and the index of the steps stay in memory.
+ */
+public class StepLog implements Iterable<Integer[]>, Closeable {
+    /**
+     * The number of values in a chunk of the memory storage and in the write buffer of the file storage.
+     */
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final Storage storage;
+
+    /**
+     * The state after the last recorded step.
+     */
+    private int[] current = new int[0];
+
+    /**
+     * The changes of the step in progress as pairs of a position and a value.
+     */
+    private int[] changes = new int[16];
+    private int changeCount;
+
+    /**
+     * The number of values stored since the last keyframe.
+     */
+    private long valuesSinceKeyframe;
+
+    /**
+     * For every step: the offset of its values in the storage, the number of its values and the keyframe
+     * it is based on, which is the step itself for a keyframe.
+     */
+    private long[] offsets = new long[16];
+    private int[] sizes = new int[16];
+    private int[] keyframes = new int[16];
+    private int size;
+
+    /**
+     * Constructs a step log that keeps the steps in memory.
+     */
+    public StepLog() {
+        this.storage = new MemoryStorage();
+    }
+
+    /**
+     * Constructs a step log that writes the steps to a temporary file in the given directory.
+     *
+     * @param directory The directory of the temporary file.
+     * @throws IOException If the file cannot be created.
+     */
+    public StepLog(Path directory) throws IOException {
+        this.storage = new FileStorage(directory);
+    }
+
+    /**
+     * Gets the number of recorded steps.
+     *
+     * @return The number of steps.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Sets the state that the changes of the first step apply to, without recording it as a step.
+     *
+     * @param state The initial state of the array.
+     */
+    public void setInitialState(Integer[] state) {
+        current = new int[state.length];
+        for (int i = 0; i < state.length; i++) {
+            current[i] = state[i];
+        }
+        changeCount = 0;
+    }
+
+    /**
+     * Adds a changed value to the step in progress. The step is recorded by {@link #endStep()}.
+     *
+     * @param index The position of the value.
+     * @param value The new value.
+     */
+    public void recordChange(int index, int value) {
+        if (current[index] == value) {
+            return;
+        }
+        current[index] = value;
+        if (2 * changeCount + 2 > changes.length) {
+            changes = Arrays.copyOf(changes, 2 * changes.length);
+        }
+        changes[2 * changeCount] = index;
+        changes[2 * changeCount + 1] = value;
+        changeCount++;
+    }
+
+    /**
+     * Records the step in progress with the changes added since the previous step.
+     */
+    public void endStep() {
+        if (size == 0 || valuesSinceKeyframe + 2L * changeCount > current.length) {
+            addKeyframe();
+        } else {
+            addStep(storage.append(changes, 2 * changeCount), 2 * changeCount, keyframes[size - 1]);
+            valuesSinceKeyframe += 2L * changeCount;
+        }
+        changeCount = 0;
+    }
+
+    /**
+     * Records a step with the given state.
+     *
+     * @param state The state of the array after the step.
+     */
+    public void record(Integer[] state) {
+        if (state.length != current.length) {
+            current = new int[state.length];
+            for (int i = 0; i < state.length; i++) {
+                current[i] = state[i];
+            }
+            changeCount = 0;
+            addKeyframe();
+            return;
+        }
+        record(state, 0, state.length);
+    }
+
+    /**
+     * Records a step in which only the values in the range [from, to) may have changed.
+     *
+     * @param state The state of the array after the step.
+     * @param from  The index of the first value that may have changed (inclusive).
+     * @param to    The index of the last value that may have changed (exclusive).
+     */
+    public void record(Integer[] state, int from, int to) {
+        for (int i = from; i < to; i++) {
+            recordChange(i, state[i]);
+        }
+        endStep();
+    }
+
+    /**
+     * Records a step with the given state.
+     *
+     * @param state The state of the array after the step.
+     */
+    public void record(int[] state) {
+        if (state.length != current.length) {
+            current = state.clone();
+            changeCount = 0;
+            addKeyframe();
+            return;
+        }
+        for (int i = 0; i < state.length; i++) {
+            recordChange(i, state[i]);
+        }
+        endStep();
+    }
+
+    /**
+     * Reconstructs the state after a step.
+     *
+     * @param step The index of the step.
+     * @return A new array with the state.
+     */
+    public Integer[] get(int step) {
+        if (step < 0 || step >= size) {
+            throw new IndexOutOfBoundsException("Step " + step + " of " + size);
+        }
+        int[] state = new int[0];
+        for (int i = keyframes[step]; i <= step; i++) {
+            state = apply(i, state);
+        }
+        return box(state);
+    }
+
+    /**
+     * Gets an iterator that reconstructs the steps one after another, applying the changes of every step
+     * to the state of the previous one.
+     *
+     * @return An iterator over the states after the steps.
+     */
+    @Override
+    public Iterator<Integer[]> iterator() {
+        return new Iterator<>() {
+            private int step;
+            private int[] state = new int[0];
+
+            @Override
+            public boolean hasNext() {
+                return step < size;
+            }
+
+            @Override
+            public Integer[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                state = apply(step++, state);
+                return box(state);
+            }
+        };
+    }
+
+    /**
+     * Releases the storage of the steps and deletes the temporary file, if there is one.
+     */
+    @Override
+    public void close() {
+        storage.close();
+    }
+
+    /**
+     * Stores the current state as a keyframe.
+     */
+    private void addKeyframe() {
+        addStep(storage.append(current, current.length), current.length, size);
+        valuesSinceKeyframe = 0;
+    }
+
+    /**
+     * Adds a step to the index.
+     *
+     * @param offset   The offset of the values of the step in the storage.
+     * @param count    The number of values of the step.
+     * @param keyframe The keyframe the step is based on.
+     */
+    private void addStep(long offset, int count, int keyframe) {
+        if (size == offsets.length) {
+            offsets = Arrays.copyOf(offsets, 2 * size);
+            sizes = Arrays.copyOf(sizes, 2 * size);
+            keyframes = Arrays.copyOf(keyframes, 2 * size);
+        }
+        offsets[size] = offset;
+        sizes[size] = count;
+        keyframes[size] = keyframe;
+        size++;
+    }
+
+    /**
+     * Applies a step to the state after the previous step.
+     *
+     * @param step  The index of the step.
+     * @param state The state after the previous step, which is changed in place unless the step is a keyframe.
+     * @return The state after the step.
+     */
+    private int[] apply(int step, int[] state) {
+        int[] values = new int[sizes[step]];
+        storage.read(offsets[step], values);
+        if (keyframes[step] == step) {
+            return values;
+        }
+        for (int i = 0; i < values.length; i += 2) {
+            state[values[i]] = values[i + 1];
+        }
+        return state;
+    }
+
+    /**
+     * Copies a state into a new boxed array.
+     */
+    private static Integer[] box(int[] state) {
+        Integer[] result = new Integer[state.length];
+        for (int i = 0; i < state.length; i++) {
+            result[i] = state[i];
+        }
+        return result;
+    }
+
+    /**
+     * An append-only store of int values.
+     */
+    private interface Storage {
+        /**
+         * Appends values to the store.
+         *
+         * @param values The array with the values.
+         * @param count  The number of values to append from the start of the array.
+         * @return The offset of the first appended value.
+         */
+        long append(int[] values, int count);
+
+        /**
+         * Reads values from the store.
+         *
+         * @param offset The offset of the first value.
+         * @param target The array to fill with the values.
+         */
+        void read(long offset, int[] target);
+
+        /**
+         * Releases the resources of the store.
+         */
+        void close();
+    }
+
+    /**
+     * A store that keeps the values in memory, in chunks, so it never copies what was appended before.
+     */
+    private static final class MemoryStorage implements Storage {
+        private int[][] chunks = new int[0][];
+        private long length;
+
+        @Override
+        public long append(int[] values, int count) {
+            long offset = length;
+            for (int written = 0; written < count; ) {
+                int chunk = (int) (length / CHUNK_SIZE), position = (int) (length % CHUNK_SIZE);
+                if (chunk == chunks.length) {
+                    chunks = Arrays.copyOf(chunks, chunks.length + 1);
+                    chunks[chunk] = new int[CHUNK_SIZE];
+                }
+                int part = Math.min(count - written, CHUNK_SIZE - position);
+                System.arraycopy(values, written, chunks[chunk], position, part);
+                written += part;
+                length += part;
+            }
+            return offset;
+        }
+
+        @Override
+        public void read(long offset, int[] target) {
+            for (int done = 0; done < target.length; ) {
+                int chunk = (int) ((offset + done) / CHUNK_SIZE), position = (int) ((offset + done) % CHUNK_SIZE);
+                int part = Math.min(target.length - done, CHUNK_SIZE - position);
+                System.arraycopy(chunks[chunk], position, target, done, part);
+                done += part;
+            }
+        }
+
+        @Override
+        public void close() {
+            chunks = new int[0][];
+            length = 0;
+        }
+    }
+
+    /**
+     * A store that writes the values to a temporary file through a buffer.
+     */
+    private static final class FileStorage implements Storage {
+        private final Path file;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_SIZE * Integer.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        private long length;
+
+        FileStorage(Path directory) throws IOException {
+            this.file = Files.createTempFile(directory, "steps", ".bin");
+            this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE);
+        }
+
+        @Override
+        public long append(int[] values, int count) {
+            long offset = length;
+            for (int i = 0; i < count; i++) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                buffer.putInt(values[i]);
+            }
+            length += count;
+            return offset;
+        }
+
+        @Override
+        public void read(long offset, int[] target) {
+            flush();
+            ByteBuffer bytes = ByteBuffer.allocate(target.length * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            try {
+                long position = offset * Integer.BYTES;
+                while (bytes.hasRemaining()) {
+                    int read = channel.read(bytes, position + bytes.position());
+                    if (read < 0) {
+                        throw new IOException("Unexpected end of " + file);
+                    }
+                }
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+            bytes.flip();
+            bytes.asIntBuffer().get(target);
+        }
+
+        @Override
+        public void close() {
+            try {
+                channel.close();
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+
+        /**
+         * Writes the buffered values to the end of the file.
+         */
+        private void flush() {
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer, channel.size());
+                }
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+            buffer.clear();
+        }
+    }
+}
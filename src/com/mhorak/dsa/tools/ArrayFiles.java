@@ -0,0 +1,518 @@
+package com.mhorak.dsa.tools;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Reads and writes arrays in a compact binary format through memory-mapped files.
+ * <p>
+ * A file holds one or more arrays one after another. Every array starts with a header of {@link #HEADER_BYTES}
+ * bytes: the magic number {@link #MAGIC}, the element type, the number of dimensions (1 or 2), two reserved bytes,
+ * the number of rows and the number of columns (1 for a one-dimensional array). The header is followed by the
+ * elements as raw little-endian primitives, a matrix row by row. All numbers of the header are little-endian too.
+ * <p>
+ * The elements are copied between the arrays and the mapped file in bulk, in windows of at most
+ * {@link #WINDOW_BYTES} bytes, so files larger than 2 GB are supported as well.
+ */
+public class ArrayFiles {
+    /**
+     * The first four bytes of every array: "DSAA" in ASCII.
+     */
+    public static final int MAGIC = 0x41415344;
+
+    /**
+     * The number of bytes of the header of an array.
+     */
+    public static final int HEADER_BYTES = 16;
+
+    /**
+     * The largest part of a file that is mapped at once.
+     */
+    static final long WINDOW_BYTES = 1L << 28;
+
+    private ArrayFiles() {
+    }
+
+    /**
+     * Writes an array of int values.
+     *
+     * @param file   The file to write to.
+     * @param array  The array to be written.
+     * @param append If true, the array is added after the arrays in the file, otherwise the file is replaced.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(Path file, int[] array, boolean append) throws IOException {
+        try (FileChannel channel = openForWriting(file, append)) {
+            long position = writeHeader(channel, ElementType.INT, 1, array.length, 1);
+            for (int done = 0; done < array.length; ) {
+                int count = (int) Math.min(array.length - done, WINDOW_BYTES / Integer.BYTES);
+                map(channel, FileChannel.MapMode.READ_WRITE, position, (long) count * Integer.BYTES)
+                        .asIntBuffer().put(array, done, count);
+                position += (long) count * Integer.BYTES;
+                done += count;
+            }
+        }
+    }
+
+    /**
+     * Writes an array of long values.
+     *
+     * @param file   The file to write to.
+     * @param array  The array to be written.
+     * @param append If true, the array is added after the arrays in the file, otherwise the file is replaced.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(Path file, long[] array, boolean append) throws IOException {
+        try (FileChannel channel = openForWriting(file, append)) {
+            long position = writeHeader(channel, ElementType.LONG, 1, array.length, 1);
+            for (int done = 0; done < array.length; ) {
+                int count = (int) Math.min(array.length - done, WINDOW_BYTES / Long.BYTES);
+                map(channel, FileChannel.MapMode.READ_WRITE, position, (long) count * Long.BYTES)
+                        .asLongBuffer().put(array, done, count);
+                position += (long) count * Long.BYTES;
+                done += count;
+            }
+        }
+    }
+
+    /**
+     * Writes an array of double values.
+     *
+     * @param file   The file to write to.
+     * @param array  The array to be written.
+     * @param append If true, the array is added after the arrays in the file, otherwise the file is replaced.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(Path file, double[] array, boolean append) throws IOException {
+        try (FileChannel channel = openForWriting(file, append)) {
+            long position = writeHeader(channel, ElementType.DOUBLE, 1, array.length, 1);
+            writeDoubles(channel, position, array);
+        }
+    }
+
+    /**
+     * Writes a matrix of double values.
+     *
+     * @param file   The file to write to.
+     * @param matrix The matrix to be written; all rows must have the same length.
+     * @param append If true, the matrix is added after the arrays in the file, otherwise the file is replaced.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(Path file, double[][] matrix, boolean append) throws IOException {
+        int columns = matrix.length == 0 ? 0 : matrix[0].length;
+        try (FileChannel channel = openForWriting(file, append)) {
+            long position = writeHeader(channel, ElementType.DOUBLE, 2, matrix.length, columns);
+            for (double[] row : matrix) {
+                if (row.length != columns) {
+                    throw new IllegalArgumentException("All rows of the matrix must have " + columns + " columns");
+                }
+                position = writeDoubles(channel, position, row);
+            }
+        }
+    }
+
+    /**
+     * Writes a boxed array as it is used by the GUI: an array of Integer or Double elements, or a matrix of
+     * Double elements.
+     *
+     * @param file   The file to write to.
+     * @param array  The array to be written.
+     * @param append If true, the array is added after the arrays in the file, otherwise the file is replaced.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(Path file, Object[] array, boolean append) throws IOException {
+        if (array instanceof Integer[] integers) {
+            int[] values = new int[integers.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = integers[i];
+            }
+            write(file, values, append);
+        } else if (array instanceof Double[] doubles) {
+            double[] values = new double[doubles.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = doubles[i];
+            }
+            write(file, values, append);
+        } else if (array instanceof Double[][] matrix) {
+            int columns = matrix.length == 0 ? 0 : matrix[0].length;
+            try (FileChannel channel = openForWriting(file, append)) {
+                long position = writeHeader(channel, ElementType.DOUBLE, 2, matrix.length, columns);
+                double[] values = new double[columns];
+                for (Double[] row : matrix) {
+                    for (int i = 0; i < columns; i++) {
+                        values[i] = row[i];
+                    }
+                    position = writeDoubles(channel, position, values);
+                }
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported array type " + array.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Reads the header of an array.
+     *
+     * @param file     The file to read from.
+     * @param position The position of the array in the file, 0 for the first one.
+     * @return The header of the array.
+     * @throws IOException If the file cannot be read or holds no array at the position.
+     */
+    public static Header readHeader(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return readHeader(channel, position);
+        }
+    }
+
+    /**
+     * Reads an array of int values.
+     *
+     * @param file     The file to read from.
+     * @param position The position of the array in the file, 0 for the first one.
+     * @return The array.
+     * @throws IOException If the file cannot be read or holds no array of int values at the position.
+     */
+    public static int[] readInts(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Header header = readHeader(channel, position);
+            int[] array = new int[toLength(header, ElementType.INT)];
+            long dataPosition = header.dataPosition();
+            for (int done = 0; done < array.length; ) {
+                int count = (int) Math.min(array.length - done, WINDOW_BYTES / Integer.BYTES);
+                map(channel, FileChannel.MapMode.READ_ONLY, dataPosition, (long) count * Integer.BYTES)
+                        .asIntBuffer().get(array, done, count);
+                dataPosition += (long) count * Integer.BYTES;
+                done += count;
+            }
+            return array;
+        }
+    }
+
+    /**
+     * Reads an array of long values.
+     *
+     * @param file     The file to read from.
+     * @param position The position of the array in the file, 0 for the first one.
+     * @return The array.
+     * @throws IOException If the file cannot be read or holds no array of long values at the position.
+     */
+    public static long[] readLongs(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Header header = readHeader(channel, position);
+            long[] array = new long[toLength(header, ElementType.LONG)];
+            long dataPosition = header.dataPosition();
+            for (int done = 0; done < array.length; ) {
+                int count = (int) Math.min(array.length - done, WINDOW_BYTES / Long.BYTES);
+                map(channel, FileChannel.MapMode.READ_ONLY, dataPosition, (long) count * Long.BYTES)
+                        .asLongBuffer().get(array, done, count);
+                dataPosition += (long) count * Long.BYTES;
+                done += count;
+            }
+            return array;
+        }
+    }
+
+    /**
+     * Reads an array of double values; a matrix is read row by row into one array.
+     *
+     * @param file     The file to read from.
+     * @param position The position of the array in the file, 0 for the first one.
+     * @return The array.
+     * @throws IOException If the file cannot be read or holds no array of double values at the position.
+     */
+    public static double[] readDoubles(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Header header = readHeader(channel, position);
+            double[] array = new double[toLength(header, ElementType.DOUBLE)];
+            readDoubles(channel, header.dataPosition(), array);
+            return array;
+        }
+    }
+
+    /**
+     * Reads a matrix of double values.
+     *
+     * @param file     The file to read from.
+     * @param position The position of the matrix in the file, 0 for the first one.
+     * @return The matrix.
+     * @throws IOException If the file cannot be read or holds no matrix of double values at the position.
+     */
+    public static double[][] readDoubleMatrix(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Header header = readHeader(channel, position);
+            toLength(header, ElementType.DOUBLE);
+            double[][] matrix = new double[header.rows()][header.columns()];
+            long dataPosition = header.dataPosition();
+            for (double[] row : matrix) {
+                dataPosition = readDoubles(channel, dataPosition, row);
+            }
+            return matrix;
+        }
+    }
+
+    /**
+     * Exports all arrays of a binary file in the text format of the GUI: the elements separated by spaces,
+     * a new line after every row of a matrix, and an empty line between the arrays.
+     *
+     * @param file     The binary file.
+     * @param textFile The text file to be written.
+     * @throws IOException If a file cannot be read or written.
+     */
+    public static void exportText(Path file, Path textFile) throws IOException {
+        long size = Files.size(file);
+        try (BufferedWriter writer = Files.newBufferedWriter(textFile)) {
+            for (long position = 0; position < size; ) {
+                Header header = readHeader(file, position);
+                if (position > 0) {
+                    writer.newLine();
+                    writer.newLine();
+                }
+                switch (header.type()) {
+                    case INT -> {
+                        for (int value : readInts(file, position)) {
+                            writer.write(Integer.toString(value));
+                            writer.write(" ");
+                        }
+                    }
+                    case LONG -> {
+                        for (long value : readLongs(file, position)) {
+                            writer.write(Long.toString(value));
+                            writer.write(" ");
+                        }
+                    }
+                    case DOUBLE -> {
+                        double[] values = readDoubles(file, position);
+                        for (int i = 0; i < values.length; i++) {
+                            writer.write(Double.toString(values[i]));
+                            writer.write(" ");
+                            if (header.dimensions() == 2 && (i + 1) % header.columns() == 0) {
+                                writer.write("\n");
+                            }
+                        }
+                    }
+                }
+                position = header.nextPosition();
+            }
+        }
+    }
+
+    /**
+     * Opens a file for writing an array.
+     *
+     * @param file   The file to open.
+     * @param append If true, the file is kept, otherwise it is truncated.
+     * @return The channel of the file, positioned at its end.
+     */
+    private static FileChannel openForWriting(Path file, boolean append) throws IOException {
+        Set<StandardOpenOption> options = EnumSet.of(StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        if (!append) {
+            options.add(StandardOpenOption.TRUNCATE_EXISTING);
+        }
+        FileChannel channel = FileChannel.open(file, options);
+        channel.position(channel.size());
+        return channel;
+    }
+
+    /**
+     * Writes the header of an array at the position of the channel, for writers that stream the elements
+     * of an array themselves.
+     *
+     * @param channel    The channel of the file.
+     * @param type       The type of the elements.
+     * @param dimensions The number of dimensions, 1 or 2.
+     * @param rows       The number of rows, which is the length of a one-dimensional array.
+     * @param columns    The number of columns, which is 1 for a one-dimensional array.
+     * @return The position of the first element.
+     * @throws IOException If the header cannot be written.
+     */
+    public static long writeHeader(FileChannel channel, ElementType type, int dimensions, int rows, int columns)
+            throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).put(type.code).put((byte) dimensions).putShort((short) 0).putInt(rows).putInt(columns);
+        header.flip();
+
+        long position = channel.position();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        return position + HEADER_BYTES;
+    }
+
+    /**
+     * Reads and checks the header of an array.
+     */
+    private static Header readHeader(FileChannel channel, long position) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, position + bytes.position()) < 0) {
+                throw new IOException("No array at position " + position);
+            }
+        }
+        bytes.flip();
+
+        if (bytes.getInt() != MAGIC) {
+            throw new IOException("No array at position " + position + ": wrong magic number");
+        }
+        ElementType type = ElementType.of(bytes.get());
+        int dimensions = bytes.get();
+        bytes.getShort();
+        int rows = bytes.getInt();
+        int columns = bytes.getInt();
+        if (dimensions < 1 || dimensions > 2 || rows < 0 || columns < 0) {
+            throw new IOException("Corrupt header at position " + position);
+        }
+        return new Header(type, dimensions, rows, columns, position);
+    }
+
+    /**
+     * Checks that an array has the expected element type and fits into a Java array.
+     *
+     * @return The number of elements.
+     */
+    private static int toLength(Header header, ElementType expected) throws IOException {
+        if (header.type() != expected) {
+            throw new IOException("The array at position " + header.position() + " holds " + header.type()
+                    + " values, not " + expected);
+        }
+        if (header.elementCount() > Integer.MAX_VALUE - 8) {
+            throw new IOException("The array at position " + header.position() + " is too large to be read at once");
+        }
+        return (int) header.elementCount();
+    }
+
+    /**
+     * Writes double values at a position of the channel.
+     *
+     * @return The position after the values.
+     */
+    private static long writeDoubles(FileChannel channel, long position, double[] values) throws IOException {
+        for (int done = 0; done < values.length; ) {
+            int count = (int) Math.min(values.length - done, WINDOW_BYTES / Double.BYTES);
+            map(channel, FileChannel.MapMode.READ_WRITE, position, (long) count * Double.BYTES)
+                    .asDoubleBuffer().put(values, done, count);
+            position += (long) count * Double.BYTES;
+            done += count;
+        }
+        return position;
+    }
+
+    /**
+     * Reads double values from a position of the channel.
+     *
+     * @return The position after the values.
+     */
+    private static long readDoubles(FileChannel channel, long position, double[] values) throws IOException {
+        for (int done = 0; done < values.length; ) {
+            int count = (int) Math.min(values.length - done, WINDOW_BYTES / Double.BYTES);
+            map(channel, FileChannel.MapMode.READ_ONLY, position, (long) count * Double.BYTES)
+                    .asDoubleBuffer().get(values, done, count);
+            position += (long) count * Double.BYTES;
+            done += count;
+        }
+        return position;
+    }
+
+    /**
+     * Maps a part of a file as a little-endian buffer.
+     */
+    private static ByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long position, long size)
+            throws IOException {
+        MappedByteBuffer buffer = channel.map(mode, position, size);
+        return buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * The types of the elements of an array file.
+     */
+    public enum ElementType {
+        /**
+         * 32-bit int values.
+         */
+        INT((byte) 1),
+
+        /**
+         * 64-bit long values.
+         */
+        LONG((byte) 2),
+
+        /**
+         * 64-bit IEEE-754 double values.
+         */
+        DOUBLE((byte) 3);
+
+        private final byte code;
+
+        ElementType(byte code) {
+            this.code = code;
+        }
+
+        /**
+         * Gets the number of bytes of an element.
+         *
+         * @return The size of an element in bytes.
+         */
+        public int bytes() {
+            return this == INT ? Integer.BYTES : Long.BYTES;
+        }
+
+        /**
+         * Gets the element type of a code in a header.
+         */
+        static ElementType of(byte code) throws IOException {
+            for (ElementType type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IOException("Unknown element type " + code);
+        }
+    }
+
+    /**
+     * The header of an array in a file.
+     *
+     * @param type       The type of the elements.
+     * @param dimensions The number of dimensions, 1 or 2.
+     * @param rows       The number of rows, which is the length of a one-dimensional array.
+     * @param columns    The number of columns, which is 1 for a one-dimensional array.
+     * @param position   The position of the header in the file.
+     */
+    public record Header(ElementType type, int dimensions, int rows, int columns, long position) {
+        /**
+         * Gets the number of elements of the array.
+         *
+         * @return The number of elements.
+         */
+        public long elementCount() {
+            return (long) rows * columns;
+        }
+
+        /**
+         * Gets the position of the first element in the file.
+         *
+         * @return The position of the elements.
+         */
+        public long dataPosition() {
+            return position + HEADER_BYTES;
+        }
+
+        /**
+         * Gets the position of the next array in the file, which is the size of the file after the last array.
+         *
+         * @return The position after the elements.
+         */
+        public long nextPosition() {
+            return dataPosition() + elementCount() * type.bytes();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.mhorak.dsa.tools;
+
+/**
+ * Element-wise loops over primitive arrays: min/max scans, histogram counting, the mutation functions of the labs
+ * and the sortedness check.
+ * <p>
+ * {@link #get()} returns the implementation that is selected once at startup: the kernels of the Vector API when
+ * the JVM runs with {@code --add-modules jdk.incubator.vector} and the CPU has vectors of at least four int lanes,
+ * otherwise the scalar kernels. The system property {@code dsa.kernels=scalar} forces the scalar kernels.
+ * Both implementations give the same results, except that the sine of the vector kernels may differ from
+ * {@link Math#sin(double)} in the last bit.
+ */
+public interface ArrayKernels {
+
+    /**
+     * Gets the kernels selected at startup.
+     *
+     * @return The kernels.
+     */
+    static ArrayKernels get() {
+        return KernelSelection.KERNELS;
+    }
+
+    /**
+     * Gets the name of the implementation, e.g. for a report.
+     *
+     * @return The name of the kernels.
+     */
+    String name();
+
+    /**
+     * Finds the minimum and the maximum of a non-empty array.
+     *
+     * @param values The array.
+     * @return An array with the minimum and the maximum.
+     */
+    int[] minMax(int[] values);
+
+    /**
+     * Finds the minimum and the maximum of a non-empty array.
+     *
+     * @param values The array.
+     * @return An array with the minimum and the maximum.
+     */
+    long[] minMax(long[] values);
+
+    /**
+     * Finds the minimum and the maximum of a non-empty array like {@link Math#min(double, double)} and
+     * {@link Math#max(double, double)}: NaN wins, and -0.0 is less than 0.0.
+     *
+     * @param values The array.
+     * @return An array with the minimum and the maximum.
+     */
+    double[] minMax(double[] values);
+
+    /**
+     * Adds the frequencies of values to a histogram that starts at the given minimum.
+     *
+     * @param values      The values, which must all fall into the range of the histogram.
+     * @param min         The value counted at index 0.
+     * @param frequencies The histogram.
+     */
+    void countHistogram(int[] values, int min, int[] frequencies);
+
+    /**
+     * Adds the frequencies of values to a histogram that starts at the given minimum.
+     *
+     * @param values      The values, which must all fall into the range of the histogram.
+     * @param min         The value counted at index 0.
+     * @param frequencies The histogram.
+     */
+    void countHistogram(long[] values, long min, int[] frequencies);
+
+    /**
+     * Applies the function of lab variant 1 to the elements at even indices: sqrt(|x - 10|).
+     *
+     * @param values The array to mutate.
+     */
+    void applyFunctionLab1(double[] values);
+
+    /**
+     * Applies the function of lab variant 4 to the elements less than 0: sin(x).
+     *
+     * @param values The array to mutate.
+     */
+    void applyFunctionLab2(double[] values);
+
+    /**
+     * Applies the function of lab variant 5 to the first minimum of a row: log(|x|).
+     *
+     * @param row The row to mutate.
+     */
+    void applyFunctionLab3(double[] row);
+
+    /**
+     * Checks the pairs (i - 1, i) of an array for the indices i in [from, to).
+     *
+     * @param values      The array.
+     * @param from        The first index (inclusive), at least 1.
+     * @param to          The last index (exclusive).
+     * @param byAscending Whether to check for ascending order (true) or descending order (false).
+     * @return True if all pairs are in order, otherwise false.
+     */
+    boolean isSorted(int[] values, int from, int to, boolean byAscending);
+
+    /**
+     * Checks the pairs (i - 1, i) of an array for the indices i in [from, to), with the order of
+     * {@link Double#compare(double, double)}.
+     *
+     * @param values      The array.
+     * @param from        The first index (inclusive), at least 1.
+     * @param to          The last index (exclusive).
+     * @param byAscending Whether to check for ascending order (true) or descending order (false).
+     * @return True if all pairs are in order, otherwise false.
+     */
+    boolean isSorted(double[] values, int from, int to, boolean byAscending);
+}
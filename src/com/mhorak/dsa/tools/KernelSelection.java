@@ -0,0 +1,35 @@
+package com.mhorak.dsa.tools;
+
+/**
+ * Selects the {@link ArrayKernels} once, when the class is initialized.
+ */
+final class KernelSelection {
+    /**
+     * The selected kernels.
+     */
+    static final ArrayKernels KERNELS = select();
+
+    private KernelSelection() {
+    }
+
+    /**
+     * Selects the kernels of the Vector API if the incubator module is present and useful on this CPU,
+     * otherwise the scalar kernels. The class of the vector kernels is loaded reflectively, so the scalar
+     * kernels work without the module.
+     *
+     * @return The kernels.
+     */
+    private static ArrayKernels select() {
+        if ("scalar".equals(System.getProperty("dsa.kernels"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return new ScalarArrayKernels();
+        }
+        try {
+            return (ArrayKernels) Class.forName("com.mhorak.dsa.tools.VectorArrayKernels")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError exception) {
+            // The module is not readable, the class cannot be linked, or the vectors of the CPU are too short
+            return new ScalarArrayKernels();
+        }
+    }
+}
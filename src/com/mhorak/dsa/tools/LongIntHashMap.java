@@ -0,0 +1,244 @@
+package com.mhorak.dsa.tools;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from long keys to int values that stores them in primitive arrays, so that counting values does
+ * not box them or allocate an entry per key.
+ * <p>
+ * The map uses open addressing with linear probing in a table whose capacity is a power of two, and keeps the
+ * table at most half full. The key 0 marks a free slot, so the entry with the key 0 is kept outside the table.
+ */
+public class LongIntHashMap {
+    /**
+     * The multiplier of Fibonacci hashing, 2^64 divided by the golden ratio.
+     */
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private long[] keys;
+    private int[] values;
+    private int shift;
+    private int size;
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    /**
+     * Constructs an empty map that holds the given number of entries without growing.
+     *
+     * @param expectedSize The expected number of entries.
+     */
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(2 * Math.max(expectedSize, 1) - 1, 1)) << 1;
+        allocate(Math.max(capacity, 16));
+    }
+
+    /**
+     * Gets the number of entries in the map.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the value of a key.
+     *
+     * @param key          The key.
+     * @param defaultValue The value to return if the map does not contain the key.
+     * @return The value of the key, or the default value.
+     */
+    public int get(long key, int defaultValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        for (int slot = slot(key); ; slot = (slot + 1) & (keys.length - 1)) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            if (keys[slot] == 0) {
+                return defaultValue;
+            }
+        }
+    }
+
+    /**
+     * Checks whether the map contains a key.
+     *
+     * @param key The key.
+     * @return True if the map contains the key, otherwise false.
+     */
+    public boolean containsKey(long key) {
+        if (key == 0) {
+            return hasZeroKey;
+        }
+        for (int slot = slot(key); ; slot = (slot + 1) & (keys.length - 1)) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            if (keys[slot] == 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Sets the value of a key.
+     *
+     * @param key   The key.
+     * @param value The new value of the key.
+     */
+    public void put(long key, int value) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        int slot = findOrInsert(key);
+        values[slot] = value;
+    }
+
+    /**
+     * Adds a number to the value of a key, which is 0 if the map does not contain the key yet.
+     *
+     * @param key   The key.
+     * @param delta The number to add.
+     * @return The new value of the key.
+     */
+    public int addTo(long key, int delta) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            return zeroValue += delta;
+        }
+        int slot = findOrInsert(key);
+        return values[slot] += delta;
+    }
+
+    /**
+     * Gets the keys of the map in no particular order.
+     *
+     * @return A new array with the keys.
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int index = 0;
+        if (hasZeroKey) {
+            result[index++] = 0;
+        }
+        for (long key : keys) {
+            if (key != 0) {
+                result[index++] = key;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Calls the consumer for every entry of the map in no particular order.
+     *
+     * @param consumer The consumer of the entries.
+     */
+    public void forEach(EntryConsumer consumer) {
+        if (hasZeroKey) {
+            consumer.accept(0, zeroValue);
+        }
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    /**
+     * Removes all entries of the map and keeps its capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+        hasZeroKey = false;
+    }
+
+    /**
+     * Finds the slot of a key that is not 0, inserting the key with the value 0 if the map does not contain it.
+     *
+     * @param key The key.
+     * @return The slot of the key.
+     */
+    private int findOrInsert(long key) {
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & (keys.length - 1);
+        }
+
+        // Keep the table at most half full, so the probe sequences stay short
+        if (2 * (size + 1) > keys.length) {
+            grow();
+            return findOrInsert(key);
+        }
+        keys[slot] = key;
+        values[slot] = 0;
+        size++;
+        return slot;
+    }
+
+    /**
+     * Gets the first slot of the probe sequence of a key.
+     */
+    private int slot(long key) {
+        return (int) ((key * HASH_MULTIPLIER) >>> shift);
+    }
+
+    /**
+     * Doubles the capacity of the table and reinserts the entries.
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(2 * oldKeys.length);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != 0) {
+                int slot = slot(key);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & (keys.length - 1);
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Allocates an empty table.
+     *
+     * @param capacity The capacity of the table, a power of two.
+     */
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        shift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    /**
+     * A consumer of the entries of a {@link LongIntHashMap}.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        /**
+         * Accepts an entry.
+         *
+         * @param key   The key of the entry.
+         * @param value The value of the entry.
+         */
+        void accept(long key, int value);
+    }
+}
@@ -0,0 +1,177 @@
+package com.mhorak.dsa.tools;
+
+/**
+ * The kernels as plain loops, which also serve the tails of the vector kernels.
+ */
+class ScalarArrayKernels implements ArrayKernels {
+    /**
+     * Histograms up to this length are counted in interleaved copies, so that runs of equal values do not wait
+     * for the previous increment of the same counter.
+     */
+    static final int INTERLEAVED_HISTOGRAM_LENGTH = 1 << 16;
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public int[] minMax(int[] values) {
+        int min = values[0], max = values[0];
+        for (int value : values) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        return new int[]{min, max};
+    }
+
+    @Override
+    public long[] minMax(long[] values) {
+        long min = values[0], max = values[0];
+        for (long value : values) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        return new long[]{min, max};
+    }
+
+    @Override
+    public double[] minMax(double[] values) {
+        double min = values[0], max = values[0];
+        for (double value : values) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        return new double[]{min, max};
+    }
+
+    @Override
+    public void countHistogram(int[] values, int min, int[] frequencies) {
+        if (frequencies.length > INTERLEAVED_HISTOGRAM_LENGTH || values.length < 4 * frequencies.length) {
+            for (int value : values) {
+                frequencies[value - min]++;
+            }
+            return;
+        }
+        int length = frequencies.length;
+        int[] copies = new int[4 * length];
+        int i = 0;
+        for (; i + 3 < values.length; i += 4) {
+            copies[values[i] - min]++;
+            copies[length + values[i + 1] - min]++;
+            copies[2 * length + values[i + 2] - min]++;
+            copies[3 * length + values[i + 3] - min]++;
+        }
+        for (; i < values.length; i++) {
+            copies[values[i] - min]++;
+        }
+        for (int j = 0; j < length; j++) {
+            frequencies[j] += copies[j] + copies[length + j] + copies[2 * length + j] + copies[3 * length + j];
+        }
+    }
+
+    @Override
+    public void countHistogram(long[] values, long min, int[] frequencies) {
+        if (frequencies.length > INTERLEAVED_HISTOGRAM_LENGTH || values.length < 4 * frequencies.length) {
+            for (long value : values) {
+                frequencies[(int) (value - min)]++;
+            }
+            return;
+        }
+        int length = frequencies.length;
+        int[] copies = new int[4 * length];
+        int i = 0;
+        for (; i + 3 < values.length; i += 4) {
+            copies[(int) (values[i] - min)]++;
+            copies[length + (int) (values[i + 1] - min)]++;
+            copies[2 * length + (int) (values[i + 2] - min)]++;
+            copies[3 * length + (int) (values[i + 3] - min)]++;
+        }
+        for (; i < values.length; i++) {
+            copies[(int) (values[i] - min)]++;
+        }
+        for (int j = 0; j < length; j++) {
+            frequencies[j] += copies[j] + copies[length + j] + copies[2 * length + j] + copies[3 * length + j];
+        }
+    }
+
+    @Override
+    public void applyFunctionLab1(double[] values) {
+        applyFunctionLab1(values, 0);
+    }
+
+    /**
+     * Applies the function of lab variant 1 to the elements at even indices from an index on.
+     */
+    void applyFunctionLab1(double[] values, int from) {
+        for (int i = from + (from & 1); i < values.length; i += 2) {
+            values[i] = Math.sqrt(Math.abs(values[i] - 10.));
+        }
+    }
+
+    @Override
+    public void applyFunctionLab2(double[] values) {
+        applyFunctionLab2(values, 0);
+    }
+
+    /**
+     * Applies the function of lab variant 4 to the elements less than 0 from an index on.
+     */
+    void applyFunctionLab2(double[] values, int from) {
+        for (int i = from; i < values.length; i++) {
+            if (values[i] < 0) {
+                values[i] = Math.sin(values[i]);
+            }
+        }
+    }
+
+    @Override
+    public void applyFunctionLab3(double[] row) {
+        if (row.length == 0) {
+            return;
+        }
+        int minJ = 0;
+        for (int j = 0; j < row.length; j++) {
+            if (row[j] < row[minJ]) {
+                minJ = j;
+            }
+        }
+        row[minJ] = Math.log(Math.abs(row[minJ]));
+    }
+
+    @Override
+    public boolean isSorted(int[] values, int from, int to, boolean byAscending) {
+        if (byAscending) {
+            for (int i = from; i < to; i++) {
+                if (values[i - 1] > values[i]) {
+                    return false;
+                }
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                if (values[i - 1] < values[i]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isSorted(double[] values, int from, int to, boolean byAscending) {
+        if (byAscending) {
+            for (int i = from; i < to; i++) {
+                if (Double.compare(values[i - 1], values[i]) > 0) {
+                    return false;
+                }
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                if (Double.compare(values[i - 1], values[i]) < 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -2,6 +2,10 @@ package com.mhorak.dsa.tools;
 
 import java.text.DecimalFormat;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
 
 /**
  * A utility class for various operations on arrays.
@@ -10,53 +14,178 @@ public class Tools {
 
     public static final String filePath = "Output.txt";
 
+    public static final String binaryFilePath = "Output.bin"; // The arrays in the format of ArrayFiles
+
+    private static final int DENSE_MODE_MIN_RANGE = 1 << 16; // Ranges of whole parts up to this width are always counted in an array
+
+    private static final int DENSE_MODE_RANGE_PER_ELEMENT = 4; // Wider ranges are counted in an array if they have at most this many values per element
+
+    private static final int GENERATION_BLOCK_LENGTH = 1 << 16; // The number of random values generated by one task
+
+    private static final int SORTED_CHECK_BLOCK_LENGTH = 1 << 14; // A parallel check looks for a found violation after every block
+
+    private static final int MIN_PARALLEL_CHUNK_LENGTH = 1 << 16; // The smallest part of an array that is worth a task of its own
+
     public static final DecimalFormat decimalFormat = new DecimalFormat("0.00"); // Pattern for two digits after the decimal point
 
     /**
      * Checks if an array is sorted in the specified order (ascending or descending).
+     * A matrix of Doubles is checked with {@link #isMatrixSorted(Double[][], boolean, boolean)} by its key row.
      *
      * @param arrayOfNumbers The array to check for sorting.
      * @param byAscending    A boolean flag indicating whether to check for ascending order (true) or descending order (false).
      * @return True if the array is sorted in the specified order, otherwise false.
      */
     public static boolean isArraySorted(Object[] arrayOfNumbers, boolean byAscending) {
-        if (byAscending) {
-            // Check for ascending order
-            for (int i = 1; i < arrayOfNumbers.length; i++) {
-                if (arrayOfNumbers[0] instanceof Double[]) {
-                    Double[][] newArray = (Double[][]) arrayOfNumbers;
-                    // Check for ascending order within a row of the two-dimensional array
-                    if (newArray[0][i - 1].compareTo(newArray[0][i]) > 0) {
-                        return false;
-                    }
-                } else {
-                    Comparable[] newArray = (Comparable[]) arrayOfNumbers;
-                    // Check for ascending order within a one-dimensional array
-                    if (newArray[i - 1].compareTo(newArray[i]) > 0) {
-                        return false;
-                    }
-                }
+        if (arrayOfNumbers instanceof Double[][] matrix) {
+            return isMatrixSorted(matrix, byAscending, true);
+        }
+
+        Comparable[] newArray = (Comparable[]) arrayOfNumbers;
+        for (int i = 1; i < newArray.length; i++) {
+            int comparison = newArray[i - 1].compareTo(newArray[i]);
+            // A pair in the wrong order has a positive comparison in ascending order and a negative one in descending order
+            if (byAscending ? comparison > 0 : comparison < 0) {
+                return false;
             }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a matrix is sorted by its key row or by its key column.
+     *
+     * @param arrayOfNumbers The matrix to check for sorting.
+     * @param byAscending    Whether to check for ascending order (true) or descending order (false).
+     * @param byColumns      If true, the columns must be sorted by the first row, like the matrices of the
+     *                       individual task; if false, the rows must be sorted by the first column.
+     * @return True if the matrix is sorted in the specified order, otherwise false.
+     */
+    public static boolean isMatrixSorted(Double[][] arrayOfNumbers, boolean byAscending, boolean byColumns) {
+        if (arrayOfNumbers.length == 0) {
             return true;
-        } else {
-            // Check for descending order
-            for (int i = 1; i < arrayOfNumbers.length; i++) {
-                if (arrayOfNumbers[0] instanceof Double[]) {
-                    Double[][] newArray = (Double[][]) arrayOfNumbers;
-                    // Check for descending order within a row of the two-dimensional array
-                    if (newArray[0][i - 1].compareTo(newArray[0][i]) < 0) {
-                        return false;
-                    }
-                } else {
-                    Comparable[] newArray = (Comparable[]) arrayOfNumbers;
-                    // Check for descending order within a one-dimensional array
-                    if (newArray[i - 1].compareTo(newArray[i]) < 0) {
-                        return false;
-                    }
-                }
+        }
+        int length = byColumns ? arrayOfNumbers[0].length : arrayOfNumbers.length;
+        for (int i = 1; i < length; i++) {
+            Double previous = byColumns ? arrayOfNumbers[0][i - 1] : arrayOfNumbers[i - 1][0];
+            Double current = byColumns ? arrayOfNumbers[0][i] : arrayOfNumbers[i][0];
+            int comparison = previous.compareTo(current);
+            if (byAscending ? comparison > 0 : comparison < 0) {
+                return false;
             }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a matrix of double values is sorted by its key row or by its key column.
+     *
+     * @param arrayOfNumbers The matrix to check for sorting.
+     * @param byAscending    Whether to check for ascending order (true) or descending order (false).
+     * @param byColumns      If true, the columns must be sorted by the first row; if false, the rows must be
+     *                       sorted by the first column.
+     * @return True if the matrix is sorted in the specified order, otherwise false.
+     */
+    public static boolean isMatrixSorted(double[][] arrayOfNumbers, boolean byAscending, boolean byColumns) {
+        if (arrayOfNumbers.length == 0) {
             return true;
         }
+        if (byColumns) {
+            return isArraySorted(arrayOfNumbers[0], byAscending);
+        }
+        for (int i = 1; i < arrayOfNumbers.length; i++) {
+            int comparison = Double.compare(arrayOfNumbers[i - 1][0], arrayOfNumbers[i][0]);
+            if (byAscending ? comparison > 0 : comparison < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if an array of int values is sorted in the specified order.
+     *
+     * @param arrayOfNumbers The array to check for sorting.
+     * @param byAscending    Whether to check for ascending order (true) or descending order (false).
+     * @return True if the array is sorted in the specified order, otherwise false.
+     */
+    public static boolean isArraySorted(int[] arrayOfNumbers, boolean byAscending) {
+        return ArrayKernels.get().isSorted(arrayOfNumbers, 1, arrayOfNumbers.length, byAscending);
+    }
+
+    /**
+     * Checks if an array of double values is sorted in the specified order, with the order of
+     * {@link Double#compare(double, double)}.
+     *
+     * @param arrayOfNumbers The array to check for sorting.
+     * @param byAscending    Whether to check for ascending order (true) or descending order (false).
+     * @return True if the array is sorted in the specified order, otherwise false.
+     */
+    public static boolean isArraySorted(double[] arrayOfNumbers, boolean byAscending) {
+        return ArrayKernels.get().isSorted(arrayOfNumbers, 1, arrayOfNumbers.length, byAscending);
+    }
+
+    /**
+     * Checks if an array of int values is sorted in the specified order, checking parts of the array in
+     * parallel on the common pool. Every part also checks the pair across its first boundary, and all parts
+     * stop soon after any of them finds a pair in the wrong order.
+     *
+     * @param arrayOfNumbers The array to check for sorting.
+     * @param byAscending    Whether to check for ascending order (true) or descending order (false).
+     * @return True if the array is sorted in the specified order, otherwise false.
+     */
+    public static boolean isArraySortedParallel(int[] arrayOfNumbers, boolean byAscending) {
+        return isSortedInParallel(arrayOfNumbers.length,
+                (from, to) -> ArrayKernels.get().isSorted(arrayOfNumbers, from, to, byAscending));
+    }
+
+    /**
+     * Checks if an array of double values is sorted in the specified order, checking parts of the array in
+     * parallel on the common pool like {@link #isArraySortedParallel(int[], boolean)}.
+     *
+     * @param arrayOfNumbers The array to check for sorting.
+     * @param byAscending    Whether to check for ascending order (true) or descending order (false).
+     * @return True if the array is sorted in the specified order, otherwise false.
+     */
+    public static boolean isArraySortedParallel(double[] arrayOfNumbers, boolean byAscending) {
+        return isSortedInParallel(arrayOfNumbers.length,
+                (from, to) -> ArrayKernels.get().isSorted(arrayOfNumbers, from, to, byAscending));
+    }
+
+    /**
+     * Checks the pairs of an array in chunks on the common pool, in blocks so that every chunk can stop
+     * as soon as another one found a pair in the wrong order.
+     *
+     * @param length The length of the array.
+     * @param check  Checks the pairs (i - 1, i) for the indices i of a block.
+     * @return True if all pairs are in order, otherwise false.
+     */
+    private static boolean isSortedInParallel(int length, RangeCheck check) {
+        int chunks = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(), length / MIN_PARALLEL_CHUNK_LENGTH));
+        AtomicBoolean unsorted = new AtomicBoolean();
+        forEachChunk(chunks, length, (chunk, from, to) -> {
+            for (int block = Math.max(from, 1); block < to && !unsorted.get(); block += SORTED_CHECK_BLOCK_LENGTH) {
+                if (!check.test(block, (int) Math.min(to, (long) block + SORTED_CHECK_BLOCK_LENGTH))) {
+                    unsorted.set(true);
+                }
+            }
+        });
+        return !unsorted.get();
+    }
+
+    /**
+     * A check of the pairs of a block of an array.
+     */
+    @FunctionalInterface
+    private interface RangeCheck {
+        /**
+         * Checks the pairs (i - 1, i) for the indices i in [from, to).
+         *
+         * @param from The first index (inclusive).
+         * @param to   The last index (exclusive).
+         * @return True if all pairs are in order, otherwise false.
+         */
+        boolean test(int from, int to);
     }
 
     /**
@@ -68,21 +197,151 @@ public class Tools {
      *                       otherwise, the range is from 0 to 100.
      */
     public static void initializeArray(Object[] arrayOfNumbers, boolean useHugeNumbers) {
-        Random rand = new Random();
+        initializeArray(arrayOfNumbers, useHugeNumbers, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Initializes an array of numbers with random values that are determined by a seed.
+     * An array of Integers, Doubles or a matrix of Doubles is filled in parallel like the primitive arrays,
+     * and gets the same values as the primitive array of the same shape and seed.
+     *
+     * @param arrayOfNumbers The array to initialize.
+     * @param useHugeNumbers Indicates whether to use a range for huge numbers.
+     *                       If true, the range includes Integer.MIN_VALUE to Integer.MAX_VALUE;
+     *                       otherwise, the range is from -50 to 50.
+     * @param seed           The seed of the random values.
+     */
+    public static void initializeArray(Object[] arrayOfNumbers, boolean useHugeNumbers, long seed) {
         int min = useHugeNumbers ? Integer.MIN_VALUE : -50;
         int max = useHugeNumbers ? Integer.MAX_VALUE : 50; // Use a smaller range for huge numbers
 
-        for (int i = 0; i < arrayOfNumbers.length; i++) {
-            if (arrayOfNumbers[i] instanceof Integer) {
-                arrayOfNumbers[i] = rand.nextInt(min, max);
-            } else if (arrayOfNumbers[i] instanceof Double) {
-                arrayOfNumbers[i] = rand.nextDouble(min, max);
-            } else if (arrayOfNumbers[i] instanceof Double[]) {
-                initializeArray((Double[]) arrayOfNumbers[i], useHugeNumbers);
+        if (arrayOfNumbers instanceof Integer[] integers) {
+            fillBlocks(integers.length, GENERATION_BLOCK_LENGTH, seed, (random, from, to) -> {
+                for (int i = from; i < to; i++) {
+                    integers[i] = random.nextInt(min, max);
+                }
+            });
+        } else if (arrayOfNumbers instanceof Double[] doubles) {
+            fillBlocks(doubles.length, GENERATION_BLOCK_LENGTH, seed, (random, from, to) -> {
+                for (int i = from; i < to; i++) {
+                    doubles[i] = random.nextDouble(min, max);
+                }
+            });
+        } else if (arrayOfNumbers instanceof Double[][] matrix) {
+            int columns = matrix.length == 0 ? 1 : Math.max(matrix[0].length, 1);
+            fillBlocks(matrix.length, Math.max(1, GENERATION_BLOCK_LENGTH / columns), seed, (random, from, to) -> {
+                for (int i = from; i < to; i++) {
+                    for (int j = 0; j < matrix[i].length; j++) {
+                        matrix[i][j] = random.nextDouble(min, max);
+                    }
+                }
+            });
+        } else {
+            // Any other array gets the type of every element checked on a single thread
+            SplittableRandom random = new SplittableRandom(seed);
+            for (int i = 0; i < arrayOfNumbers.length; i++) {
+                if (arrayOfNumbers[i] instanceof Integer) {
+                    arrayOfNumbers[i] = random.nextInt(min, max);
+                } else if (arrayOfNumbers[i] instanceof Double) {
+                    arrayOfNumbers[i] = random.nextDouble(min, max);
+                } else if (arrayOfNumbers[i] instanceof Double[]) {
+                    initializeArray((Double[]) arrayOfNumbers[i], useHugeNumbers, random.nextLong());
+                }
             }
         }
     }
 
+    /**
+     * Initializes an array of int values with random values that are determined by a seed, in parallel.
+     *
+     * @param arrayOfNumbers The array to initialize.
+     * @param useHugeNumbers Indicates whether to use the whole range of int values instead of -50 to 50.
+     * @param seed           The seed of the random values.
+     */
+    public static void initializeArray(int[] arrayOfNumbers, boolean useHugeNumbers, long seed) {
+        int min = useHugeNumbers ? Integer.MIN_VALUE : -50;
+        int max = useHugeNumbers ? Integer.MAX_VALUE : 50;
+        fillBlocks(arrayOfNumbers.length, GENERATION_BLOCK_LENGTH, seed, (random, from, to) -> {
+            for (int i = from; i < to; i++) {
+                arrayOfNumbers[i] = random.nextInt(min, max);
+            }
+        });
+    }
+
+    /**
+     * Initializes an array of double values with random values that are determined by a seed, in parallel.
+     *
+     * @param arrayOfNumbers The array to initialize.
+     * @param useHugeNumbers Indicates whether to use the range of int values instead of -50 to 50.
+     * @param seed           The seed of the random values.
+     */
+    public static void initializeArray(double[] arrayOfNumbers, boolean useHugeNumbers, long seed) {
+        int min = useHugeNumbers ? Integer.MIN_VALUE : -50;
+        int max = useHugeNumbers ? Integer.MAX_VALUE : 50;
+        fillBlocks(arrayOfNumbers.length, GENERATION_BLOCK_LENGTH, seed, (random, from, to) -> {
+            for (int i = from; i < to; i++) {
+                arrayOfNumbers[i] = random.nextDouble(min, max);
+            }
+        });
+    }
+
+    /**
+     * Initializes a matrix of double values with random values that are determined by a seed, in parallel.
+     *
+     * @param arrayOfNumbers The matrix to initialize.
+     * @param useHugeNumbers Indicates whether to use the range of int values instead of -50 to 50.
+     * @param seed           The seed of the random values.
+     */
+    public static void initializeArray(double[][] arrayOfNumbers, boolean useHugeNumbers, long seed) {
+        int min = useHugeNumbers ? Integer.MIN_VALUE : -50;
+        int max = useHugeNumbers ? Integer.MAX_VALUE : 50;
+        int columns = arrayOfNumbers.length == 0 ? 1 : Math.max(arrayOfNumbers[0].length, 1);
+        fillBlocks(arrayOfNumbers.length, Math.max(1, GENERATION_BLOCK_LENGTH / columns), seed, (random, from, to) -> {
+            for (int i = from; i < to; i++) {
+                double[] row = arrayOfNumbers[i];
+                for (int j = 0; j < row.length; j++) {
+                    row[j] = random.nextDouble(min, max);
+                }
+            }
+        });
+    }
+
+    /**
+     * Splits the indices [0, length) into blocks of a fixed length and fills them in parallel on the common pool.
+     * Every block gets a generator of its own, split from the generator of the seed in the order of the blocks,
+     * so the values depend only on the seed and the block length, not on the number of threads.
+     *
+     * @param length      The number of indices.
+     * @param blockLength The number of indices of a block.
+     * @param seed        The seed of the random values.
+     * @param filler      The filler of every block.
+     */
+    private static void fillBlocks(int length, int blockLength, long seed, BlockFiller filler) {
+        int blocks = (int) (((long) length + blockLength - 1) / blockLength);
+        SplittableRandom seedGenerator = new SplittableRandom(seed);
+        SplittableRandom[] generators = new SplittableRandom[blocks];
+        for (int block = 0; block < blocks; block++) {
+            generators[block] = seedGenerator.split();
+        }
+        IntStream.range(0, blocks).parallel()
+                .forEach(block -> filler.accept(generators[block], block * blockLength, (int) Math.min(length, (long) (block + 1) * blockLength)));
+    }
+
+    /**
+     * Fills a block of the indices of an array with random values.
+     */
+    @FunctionalInterface
+    private interface BlockFiller {
+        /**
+         * Fills a block.
+         *
+         * @param random The generator of the block.
+         * @param from   The first index of the block (inclusive).
+         * @param to     The last index of the block (exclusive).
+         */
+        void accept(SplittableRandom random, int from, int to);
+    }
+
     /**
      * Mutates an array of Double values by applying specific functions based on the lab variant.
      *
@@ -120,6 +379,35 @@ public class Tools {
         }
     }
 
+    /**
+     * Mutates an array of double values like {@link #mutateArray(Double[], int)}, with the kernels of
+     * {@link ArrayKernels#get()}.
+     *
+     * @param arrayOfNumbers The array of double values to mutate.
+     * @param lab            The lab variant, which determines the mutation function to apply.
+     */
+    public static void mutateArray(double[] arrayOfNumbers, int lab) {
+        if (lab == 1) {
+            ArrayKernels.get().applyFunctionLab1(arrayOfNumbers);
+        }
+        if (lab == 4) {
+            ArrayKernels.get().applyFunctionLab2(arrayOfNumbers);
+        }
+    }
+
+    /**
+     * Mutates a matrix of double values like {@link #mutateArray(Double[][], int)}, with the kernels of
+     * {@link ArrayKernels#get()}.
+     *
+     * @param arrayOfNumbers The matrix of double values to mutate.
+     * @param lab            The lab variant, which determines the mutation function to apply.
+     */
+    public static void mutateArray(double[][] arrayOfNumbers, int lab) {
+        for (double[] row : arrayOfNumbers) {
+            ArrayKernels.get().applyFunctionLab3(row);
+        }
+    }
+
     /**
      * Applies a square root function to an element at the given index and stores the result.
      *
@@ -150,20 +438,111 @@ public class Tools {
     /**
      * Removes elements that belong to the mode (most frequently occurring whole parts)
      * from a Double array and returns a modified array without those elements.
+     * <p>
+     * The whole parts are counted in a frequency array when their range is small, and otherwise in a
+     * {@link LongIntHashMap}, so neither the keys nor the counts are boxed. The survivors are then copied
+     * into an array of their exact length in a single pass.
      *
      * @param inputArray The input array of Double values.
      * @return A Double array with mode elements removed.
      */
     public static Double[] removeMode(Double[] inputArray) {
-        // Create a HashMap to store the frequency of each whole part
-        Map<Long, Integer> frequencyMap = new HashMap<>();
+        return removeMode(inputArray, 1);
+    }
+
+    /**
+     * Removes elements that belong to the mode like {@link #removeMode(Double[])}, but counts and copies
+     * the parts of the array in parallel on the common pool. Every part is counted in a histogram of its own,
+     * and the histograms are merged before the mode is chosen, so the result is the same.
+     *
+     * @param inputArray The input array of Double values.
+     * @return A Double array with mode elements removed.
+     */
+    public static Double[] removeModeParallel(Double[] inputArray) {
+        return removeMode(inputArray, ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * Removes elements that belong to the mode, counting and copying the array in the given number of parts.
+     *
+     * @param inputArray The input array of Double values.
+     * @param parts      The number of parts that are processed in parallel, 1 to work on the calling thread.
+     * @return A Double array with mode elements removed.
+     */
+    private static Double[] removeMode(Double[] inputArray, int parts) {
+        int n = inputArray.length;
+        int chunks = Math.max(1, Math.min(parts, n / MIN_PARALLEL_CHUNK_LENGTH));
+
+        // Get the whole part of every double and the range of the whole parts
+        long[] wholeParts = new long[n];
+        long[] chunkMin = new long[chunks], chunkMax = new long[chunks];
+        forEachChunk(chunks, n, (chunk, from, to) -> {
+            long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+            for (int i = from; i < to; i++) {
+                long wholePart = (long) (double) inputArray[i];
+                wholeParts[i] = wholePart;
+                min = Math.min(min, wholePart);
+                max = Math.max(max, wholePart);
+            }
+            chunkMin[chunk] = min;
+            chunkMax[chunk] = max;
+        });
+        long min = Arrays.stream(chunkMin).min().orElse(0);
+        long max = Arrays.stream(chunkMax).max().orElse(0);
+
+        // Count the whole parts of every chunk in a histogram of its own and merge the histograms into the first one
+        boolean dense = n > 0 && max - min >= 0 && max - min < Math.max(DENSE_MODE_MIN_RANGE, DENSE_MODE_RANGE_PER_ELEMENT * (long) n / chunks);
+        int[][] frequencyArrays = new int[chunks][];
+        LongIntHashMap[] frequencyMaps = new LongIntHashMap[chunks];
+        forEachChunk(chunks, n, (chunk, from, to) -> {
+            if (dense) {
+                int[] frequencies = new int[(int) (max - min + 1)];
+                for (int i = from; i < to; i++) {
+                    frequencies[(int) (wholeParts[i] - min)]++;
+                }
+                frequencyArrays[chunk] = frequencies;
+            } else {
+                LongIntHashMap frequencies = new LongIntHashMap(Math.min(to - from, 1 << 20));
+                for (int i = from; i < to; i++) {
+                    frequencies.addTo(wholeParts[i], 1);
+                }
+                frequencyMaps[chunk] = frequencies;
+            }
+        });
+        for (int chunk = 1; chunk < chunks; chunk++) {
+            if (dense) {
+                int[] frequencies = frequencyArrays[chunk];
+                for (int i = 0; i < frequencies.length; i++) {
+                    frequencyArrays[0][i] += frequencies[i];
+                }
+            } else {
+                frequencyMaps[chunk].forEach((key, value) -> frequencyMaps[0].addTo(key, value));
+            }
+        }
 
-        // Find the maximum frequency (mode)
-        int maxFrequency = 0;
-        for (double num : inputArray) {
-            long wholePart = (long) num; // Get the whole part of the double
-            frequencyMap.put(wholePart, frequencyMap.getOrDefault(wholePart, 0) + 1);
-            maxFrequency = Math.max(maxFrequency, frequencyMap.get(wholePart));
+        // Find the maximum frequency (mode) and the number of whole parts that have it
+        int maxFrequency = 0, modes = 0;
+        if (dense) {
+            for (int frequency : frequencyArrays[0]) {
+                if (frequency > maxFrequency) {
+                    maxFrequency = frequency;
+                    modes = 1;
+                } else if (frequency == maxFrequency) {
+                    modes++;
+                }
+            }
+        } else {
+            int[] mode = new int[2];
+            frequencyMaps[0].forEach((key, frequency) -> {
+                if (frequency > mode[0]) {
+                    mode[0] = frequency;
+                    mode[1] = 1;
+                } else if (frequency == mode[0]) {
+                    mode[1]++;
+                }
+            });
+            maxFrequency = mode[0];
+            modes = mode[1];
         }
 
         // If there is no mode (maxFrequency is 1), remove first element
@@ -173,23 +552,71 @@ public class Tools {
             return resultArray;
         }
 
-        // Create a list to store elements that are not part of the mode
-        List<Double> result = new ArrayList<>();
-        for (double num : inputArray) {
-            long wholePart = (long) num;
-            if (frequencyMap.get(wholePart) != maxFrequency) {
-                result.add(num);
+        // Count the survivors of every chunk, so that every chunk knows where to copy its survivors to
+        int mode = maxFrequency;
+        int[] survivors = new int[chunks + 1];
+        forEachChunk(chunks, n, (chunk, from, to) -> {
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                if (frequency(wholeParts[i], min, frequencyArrays[0], frequencyMaps[0]) != mode) {
+                    count++;
+                }
             }
+            survivors[chunk + 1] = count;
+        });
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            survivors[chunk + 1] += survivors[chunk];
         }
 
-        // Convert the list to an array
-        Double[] resultArray = new Double[result.size()];
-        for (int i = 0; i < result.size(); i++) {
-            resultArray[i] = result.get(i);
-        }
+        Double[] resultArray = new Double[n - modes * maxFrequency];
+        forEachChunk(chunks, n, (chunk, from, to) -> {
+            int position = survivors[chunk];
+            for (int i = from; i < to; i++) {
+                if (frequency(wholeParts[i], min, frequencyArrays[0], frequencyMaps[0]) != mode) {
+                    resultArray[position++] = inputArray[i];
+                }
+            }
+        });
 
         return resultArray;
     }
 
+    /**
+     * Gets the frequency of a whole part from the merged histogram, which is either a frequency array or a map.
+     */
+    private static int frequency(long wholePart, long min, int[] frequencyArray, LongIntHashMap frequencyMap) {
+        return frequencyArray != null ? frequencyArray[(int) (wholePart - min)] : frequencyMap.get(wholePart, 0);
+    }
+
+    /**
+     * Splits the indices [0, length) into chunks of about the same size and processes them, in parallel on
+     * the common pool if there is more than one chunk.
+     *
+     * @param chunks The number of chunks.
+     * @param length The number of indices.
+     * @param action The action for every chunk.
+     */
+    private static void forEachChunk(int chunks, int length, ChunkAction action) {
+        if (chunks == 1) {
+            action.accept(0, 0, length);
+            return;
+        }
+        IntStream.range(0, chunks).parallel()
+                .forEach(chunk -> action.accept(chunk, (int) ((long) length * chunk / chunks), (int) ((long) length * (chunk + 1) / chunks)));
+    }
 
+    /**
+     * An action on a chunk of the indices of an array.
+     */
+    @FunctionalInterface
+    private interface ChunkAction {
+        /**
+         * Processes a chunk.
+         *
+         * @param chunk The index of the chunk.
+         * @param from  The first index of the chunk (inclusive).
+         * @param to    The last index of the chunk (exclusive).
+         */
+        void accept(int chunk, int from, int to);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,193 @@
+package com.mhorak.dsa.tools;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The kernels with the Vector API in the preferred vector size of the CPU. The tails shorter than a vector,
+ * the histograms and the rows that hold NaN are handled by the scalar loops.
+ * <p>
+ * The class is only loaded by {@link KernelSelection} when the module {@code jdk.incubator.vector} is present.
+ */
+final class VectorArrayKernels extends ScalarArrayKernels {
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED; // The species of int vectors
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED; // The species of long vectors
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED; // The species of double vectors
+
+    private final VectorMask<Double> evenLanes; // The lanes at even indices, as every vector starts at an even index
+
+    /**
+     * Creates the kernels.
+     *
+     * @throws UnsupportedOperationException If the vectors of the CPU hold fewer than four int values.
+     */
+    VectorArrayKernels() {
+        if (INTS.length() < 4) {
+            throw new UnsupportedOperationException("The vectors are too short: " + INTS.vectorBitSize() + " bits");
+        }
+        boolean[] even = new boolean[DOUBLES.length()];
+        for (int lane = 0; lane < even.length; lane += 2) {
+            even[lane] = true;
+        }
+        evenLanes = VectorMask.fromArray(DOUBLES, even, 0);
+    }
+
+    @Override
+    public String name() {
+        return "vector (" + INTS.vectorBitSize() + "-bit)";
+    }
+
+    @Override
+    public int[] minMax(int[] values) {
+        int i = 0;
+        int min = values[0], max = values[0];
+        if (values.length >= INTS.length()) {
+            IntVector mins = IntVector.fromArray(INTS, values, 0), maxs = mins;
+            for (i = INTS.length(); i <= values.length - INTS.length(); i += INTS.length()) {
+                IntVector v = IntVector.fromArray(INTS, values, i);
+                mins = mins.lanewise(VectorOperators.MIN, v);
+                maxs = maxs.lanewise(VectorOperators.MAX, v);
+            }
+            min = mins.reduceLanes(VectorOperators.MIN);
+            max = maxs.reduceLanes(VectorOperators.MAX);
+        }
+        for (; i < values.length; i++) {
+            min = Math.min(min, values[i]);
+            max = Math.max(max, values[i]);
+        }
+        return new int[]{min, max};
+    }
+
+    @Override
+    public long[] minMax(long[] values) {
+        int i = 0;
+        long min = values[0], max = values[0];
+        if (values.length >= LONGS.length()) {
+            LongVector mins = LongVector.fromArray(LONGS, values, 0), maxs = mins;
+            for (i = LONGS.length(); i <= values.length - LONGS.length(); i += LONGS.length()) {
+                LongVector v = LongVector.fromArray(LONGS, values, i);
+                mins = mins.lanewise(VectorOperators.MIN, v);
+                maxs = maxs.lanewise(VectorOperators.MAX, v);
+            }
+            min = mins.reduceLanes(VectorOperators.MIN);
+            max = maxs.reduceLanes(VectorOperators.MAX);
+        }
+        for (; i < values.length; i++) {
+            min = Math.min(min, values[i]);
+            max = Math.max(max, values[i]);
+        }
+        return new long[]{min, max};
+    }
+
+    @Override
+    public double[] minMax(double[] values) {
+        int i = 0;
+        double min = values[0], max = values[0];
+        if (values.length >= DOUBLES.length()) {
+            // MIN and MAX of double lanes follow Math.min and Math.max, including NaN and -0.0
+            DoubleVector mins = DoubleVector.fromArray(DOUBLES, values, 0), maxs = mins;
+            for (i = DOUBLES.length(); i <= values.length - DOUBLES.length(); i += DOUBLES.length()) {
+                DoubleVector v = DoubleVector.fromArray(DOUBLES, values, i);
+                mins = mins.lanewise(VectorOperators.MIN, v);
+                maxs = maxs.lanewise(VectorOperators.MAX, v);
+            }
+            min = mins.reduceLanes(VectorOperators.MIN);
+            max = maxs.reduceLanes(VectorOperators.MAX);
+        }
+        for (; i < values.length; i++) {
+            min = Math.min(min, values[i]);
+            max = Math.max(max, values[i]);
+        }
+        return new double[]{min, max};
+    }
+
+    @Override
+    public void applyFunctionLab1(double[] values) {
+        int i = 0;
+        for (; i <= values.length - DOUBLES.length(); i += DOUBLES.length()) {
+            DoubleVector v = DoubleVector.fromArray(DOUBLES, values, i);
+            DoubleVector mutated = v.sub(10.).abs().sqrt();
+            v.blend(mutated, evenLanes).intoArray(values, i);
+        }
+        applyFunctionLab1(values, i);
+    }
+
+    @Override
+    public void applyFunctionLab2(double[] values) {
+        int i = 0;
+        for (; i <= values.length - DOUBLES.length(); i += DOUBLES.length()) {
+            DoubleVector v = DoubleVector.fromArray(DOUBLES, values, i);
+            v.lanewise(VectorOperators.SIN, v.lt(0.)).intoArray(values, i);
+        }
+        applyFunctionLab2(values, i);
+    }
+
+    @Override
+    public void applyFunctionLab3(double[] row) {
+        if (row.length < DOUBLES.length()) {
+            super.applyFunctionLab3(row);
+            return;
+        }
+        double min = minMax(row)[0];
+        if (Double.isNaN(min)) {
+            // The first minimum by < depends on where the NaN values are, so leave it to the scalar loop
+            super.applyFunctionLab3(row);
+            return;
+        }
+        int minJ = 0;
+        while (row[minJ] != min) {
+            minJ++;
+        }
+        row[minJ] = Math.log(Math.abs(row[minJ]));
+    }
+
+    @Override
+    public boolean isSorted(int[] values, int from, int to, boolean byAscending) {
+        VectorOperators.Comparison outOfOrder = byAscending ? VectorOperators.GT : VectorOperators.LT;
+        int i = from;
+        for (; i <= to - INTS.length(); i += INTS.length()) {
+            IntVector previous = IntVector.fromArray(INTS, values, i - 1);
+            IntVector current = IntVector.fromArray(INTS, values, i);
+            if (previous.compare(outOfOrder, current).anyTrue()) {
+                return false;
+            }
+        }
+        return super.isSorted(values, i, to, byAscending);
+    }
+
+    @Override
+    public boolean isSorted(double[] values, int from, int to, boolean byAscending) {
+        VectorOperators.Comparison outOfOrder = byAscending ? VectorOperators.GT : VectorOperators.LT;
+        int i = from;
+        for (; i <= to - DOUBLES.length(); i += DOUBLES.length()) {
+            DoubleVector previous = DoubleVector.fromArray(DOUBLES, values, i - 1);
+            DoubleVector current = DoubleVector.fromArray(DOUBLES, values, i);
+            if (previous.test(VectorOperators.IS_NAN).or(current.test(VectorOperators.IS_NAN)).anyTrue()) {
+                // NaN values have many bit patterns, so these pairs are compared by Double.compare
+                if (!super.isSorted(values, i, i + DOUBLES.length(), byAscending)) {
+                    return false;
+                }
+            } else if (sortableBits(previous).compare(outOfOrder, sortableBits(current)).anyTrue()) {
+                return false;
+            }
+        }
+        return super.isSorted(values, i, to, byAscending);
+    }
+
+    /**
+     * Maps double lanes without NaN to long lanes in the order of {@link Double#compare(double, double)}:
+     * the bits of negative values are flipped except for the sign.
+     *
+     * @param v The double lanes.
+     * @return The long lanes.
+     */
+    private static LongVector sortableBits(DoubleVector v) {
+        LongVector bits = v.viewAsIntegralLanes();
+        return bits.lanewise(VectorOperators.XOR,
+                bits.lanewise(VectorOperators.ASHR, 63).lanewise(VectorOperators.AND, Long.MAX_VALUE));
+    }
+}